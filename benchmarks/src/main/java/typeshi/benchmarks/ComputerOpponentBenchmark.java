@@ -0,0 +1,87 @@
+package typeshi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import typeshi.ComputerOpponent;
+import typeshi.ComputerOpponentConfig;
+import typeshi.TypistModel;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The AI's per-tick and per-keystroke cost: run() on the 100 ms tick (with catch-up bursts) and typeNext(), which
+ * is one sampleNextDelayNanos plus the error roll, with the flat Gaussian and with the bigram model
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComputerOpponentBenchmark {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final String PASSAGE = Passages.ofLength(100_000);
+
+    @Param({"1", "10"})
+    public int difficulty;
+
+    @Param({"flat", "bigram"})
+    public String model;
+
+    private ComputerOpponentConfig config;
+    private TypistModel typist;
+    private SplittableRandom random;
+    private ComputerOpponent opponent;
+    private long clock;
+    private boolean finished;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        config = ComputerOpponentConfig.fromLegacyDifficulty(difficulty);
+        typist = "bigram".equals(model) ? TypistModel.forConfig(config) : null;
+        random = new SplittableRandom(125);
+        newOpponent(blackhole);
+    }
+
+    @Benchmark
+    public void tick(Blackhole blackhole) {
+        if (finished) newOpponent(blackhole);
+        clock += TICK_NANOS;
+        opponent.run();
+    }
+
+    @Benchmark
+    public long typeNext(Blackhole blackhole) {
+        if (finished) newOpponent(blackhole);
+        return opponent.typeNext();
+    }
+
+    private void newOpponent(Blackhole blackhole) {
+        finished = false;
+        clock = 0;
+        opponent = new ComputerOpponent(PASSAGE, new ComputerOpponent.Listener() {
+            @Override
+            public void updateComputerTyping(int position, int errors, boolean lastWasCorrect) {
+                blackhole.consume(position);
+            }
+
+            @Override
+            public void onComputerFinished() {
+                finished = true;
+            }
+        }, config, random, () -> clock, typist);
+    }
+}
@@ -0,0 +1,80 @@
+package typeshi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import typeshi.GameEngine;
+import typeshi.WordGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One player keystroke through the headless engine (what GameController.onPlayerType does per input change):
+ * journal, TypingModel update, scoring and change tracking, across passage lengths
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeystrokeBenchmark {
+
+    @Param({"40", "1000", "100000"})
+    public int length;
+
+    // Fraction of keystrokes that are wrong
+    @Param({"0", "0.05"})
+    public double errorRate;
+
+    private final WordGenerator words = new WordGenerator();
+    private GameEngine engine;
+    private String passage;
+    private final StringBuilder typed = new StringBuilder();
+    private long nanos;
+    private long keystroke;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        passage = Passages.ofLength(length);
+        restart();
+    }
+
+    /**
+     * Outside the measurement: restart before the last character so the engine never moves on to a generated
+     * passage. A fresh engine, because clearing the input would journal one backspace per typed character
+     */
+    @Setup(Level.Invocation)
+    public void restartIfDone() {
+        if (typed.length() >= passage.length() - 1) restart();
+    }
+
+    private void restart() {
+        engine = new GameEngine(words, null);
+        engine.setMode(1);
+        engine.useSharedPassage(passage);
+        engine.startRound();
+        typed.setLength(0);
+    }
+
+    @Benchmark
+    public int typeOneCharacter() {
+        int index = typed.length();
+        char c = passage.charAt(index);
+        // Deterministic error pattern at the requested rate
+        if (errorRate > 0 && (keystroke++ % Math.round(1 / errorRate)) == 0) c = c == 'x' ? 'y' : 'x';
+        typed.append(c);
+        nanos += 150_000_000L;
+        engine.playerInput(typed, index, nanos);
+        return engine.getScores().getPlayerScore();
+    }
+}
@@ -0,0 +1,72 @@
+package typeshi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import typeshi.NetworkOpponent;
+import typeshi.WireProtocol;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding one received multiplayer frame, the per-message work of the receive loop
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkMessageBenchmark {
+
+    @Param({"PROGRESS", "ABS", "FINAL_SCORE", "FINISHED"})
+    public String message;
+
+    private final ByteBuffer frame = ByteBuffer.allocate(16);
+    private final WireProtocol.Decoder decoder = new WireProtocol.Decoder();
+
+    @Setup
+    public void encode() {
+        switch (message) {
+            case "PROGRESS": WireProtocol.write(frame, WireProtocol.PROGRESS, 1234, 17); break;
+            case "ABS": WireProtocol.write(frame, WireProtocol.ABS, 98765, 3); break;
+            case "FINAL_SCORE": WireProtocol.write(frame, WireProtocol.FINAL_SCORE, 4321, 12); break;
+            default: WireProtocol.write(frame, WireProtocol.FINISHED); break;
+        }
+        frame.flip();
+    }
+
+    @Benchmark
+    public void dispatch(Blackhole blackhole) throws ProtocolException {
+        frame.rewind();
+        decoder.next(frame);
+        NetworkOpponent.dispatch(decoder, new BlackholeHandler(blackhole));
+    }
+
+    // Allocated per call on purpose: escape analysis removes it, so only the decoding shows up
+    private static final class BlackholeHandler implements NetworkOpponent.MessageHandler {
+        private final Blackhole blackhole;
+
+        BlackholeHandler(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override public void onPause() { blackhole.consume(1); }
+        @Override public void onResume() { blackhole.consume(2); }
+        @Override public void onDisconnect() { blackhole.consume(3); }
+        @Override public void onFinished() { blackhole.consume(4); }
+        @Override public void onProgress(int position, int errors) { blackhole.consume(position + errors); }
+        @Override public void onFinalScore(int score, int errors) { blackhole.consume(score - errors); }
+    }
+}
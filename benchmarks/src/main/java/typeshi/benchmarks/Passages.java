@@ -0,0 +1,26 @@
+package typeshi.benchmarks;
+
+/**
+ * Deterministic synthetic passages of any length: lowercase words of 2-9 letters separated by single spaces
+ */
+final class Passages {
+
+    private Passages() {}
+
+    static String ofLength(int length) {
+        StringBuilder sb = new StringBuilder(length);
+        long state = 0x9E3779B97F4A7C15L;
+        while (sb.length() < length) {
+            state = state * 6364136223846793005L + 1442695040888963407L;
+            int word = 2 + (int) ((state >>> 33) % 8);
+            for (int i = 0; i < word && sb.length() < length; i++) {
+                state = state * 6364136223846793005L + 1442695040888963407L;
+                sb.append((char) ('a' + (int) ((state >>> 33) % 26)));
+            }
+            if (sb.length() < length - 1) sb.append(' ');
+        }
+        // Never end on a space
+        if (sb.charAt(sb.length() - 1) == ' ') sb.setCharAt(sb.length() - 1, 'e');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package typeshi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import typeshi.ScoreManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Score bookkeeping per keystroke, and the label text the UI builds from it on every score change
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoreManagerBenchmark {
+
+    private final ScoreManager scores = new ScoreManager();
+    private int keystroke;
+
+    @Benchmark
+    public int keystrokeUpdate() {
+        keystroke++;
+        scores.setPlayerProgress((keystroke & 1023) / 1024.0);
+        scores.awardPlayer(1);
+        scores.setPlayerErrors(keystroke >>> 5);
+        return scores.getPlayerScore();
+    }
+
+    @Benchmark
+    public String summary() {
+        scores.awardComputer(1);
+        return scores.computerSummary();
+    }
+}
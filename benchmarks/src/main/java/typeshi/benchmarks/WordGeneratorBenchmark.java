@@ -0,0 +1,54 @@
+package typeshi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import typeshi.WordGenerator;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passage selection with an exclusion set, as GameEngine calls it for every new passage of a round
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordGeneratorBenchmark {
+
+    @Param({"1", "2", "3"})
+    public int mode;
+
+    // Share of the mode's passages already used this round
+    @Param({"0", "0.5", "1"})
+    public double used;
+
+    private WordGenerator words;
+    private Set<String> exclude;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        words = new WordGenerator();
+        List<String> passages = words.getPassages(mode);
+        exclude = new HashSet<>(passages.subList(0, (int) Math.round(passages.size() * used)));
+    }
+
+    @Benchmark
+    public String randomPassage() {
+        return words.getRandomPassage(mode, exclude);
+    }
+}
@@ -0,0 +1,66 @@
+package typeshi;
+
+/**
+ * Feedback controller that keeps the AI close to the player
+ *
+ * The AI's mean delay follows the player's rolling keystroke interval ({@link PlayerPace}), scaled by a PI
+ * controller on the lead: how many characters the AI is ahead of the player. A lead above the target slows the
+ * AI down, a deficit speeds it up; the integral term removes the steady offset a pure follower would keep.
+ * Jitter follows the delay and the error rate mirrors the player's accuracy. Results are written into a
+ * {@link TunableOpponentConfig}, so every update is a few multiplications and no allocation
+ */
+public class AdaptiveDifficulty {
+
+    // Gains per character of lead; the integral is per character-second
+    private static final double KP = 0.04;
+    private static final double KI = 0.01;
+    private static final double MAX_INTEGRAL = 40.0;
+    // AI speed stays within half to double the player's pace
+    private static final double MIN_SCALE = 0.5;
+    private static final double MAX_SCALE = 2.0;
+    private static final double JITTER_RATIO = 0.3;
+    private static final double MIN_ERROR = 0.01;
+    private static final double MAX_ERROR = 0.25;
+
+    private final TunableOpponentConfig config;
+    private final double targetLeadChars;
+
+    private double integral = 0;
+    private double scale = 1.0;
+    private long lastUpdateNanos = Long.MIN_VALUE;
+
+    /**
+     * @param targetLeadChars lead the AI should hold; 0 keeps it neck and neck, a positive value keeps it ahead
+     */
+    public AdaptiveDifficulty(TunableOpponentConfig config, double targetLeadChars) {
+        this.config = config;
+        this.targetLeadChars = targetLeadChars;
+    }
+
+    /**
+     * One controller step
+     * @param leadChars characters the AI is ahead of the player (negative when behind)
+     */
+    public void update(long nowNanos, PlayerPace pace, double leadChars) {
+        double dt = lastUpdateNanos == Long.MIN_VALUE ? 0 : (nowNanos - lastUpdateNanos) / 1e9;
+        lastUpdateNanos = nowNanos;
+        // A long frame gap (window hidden, pause) should not wind the integral up
+        dt = Math.min(dt, 0.5);
+
+        double error = leadChars - targetLeadChars;
+        double nextIntegral = Math.max(-MAX_INTEGRAL, Math.min(MAX_INTEGRAL, integral + error * dt));
+        double raw = 1.0 + KP * error + KI * nextIntegral;
+        scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, raw));
+        // Anti-windup: only integrate while the output is not saturated
+        if (raw == scale) integral = nextIntegral;
+
+        double meanMs = pace.intervalNanos() * scale / 1e6;
+        double errorRate = Math.max(MIN_ERROR, Math.min(MAX_ERROR, 1.0 - pace.accuracy()));
+        config.tune(meanMs, meanMs * JITTER_RATIO, errorRate);
+    }
+
+    /** Current multiplier on the player's keystroke interval; above 1 the AI is being slowed down */
+    public double scale() { return scale; }
+
+    public TunableOpponentConfig getConfig() { return config; }
+}
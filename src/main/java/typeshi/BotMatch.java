@@ -0,0 +1,124 @@
+package typeshi;
+
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * Two AI profiles racing each other without any UI, on one {@link VirtualGameScheduler}
+ *
+ * Each bot plays the opponent side of its own {@link GameEngine}, so both are scored by exactly the rules the game
+ * applies to the AI, on the same seeded passage sequence, the same countdown and the same HARD fades. The winner is
+ * decided like on the victory screen, by {@link ScoreManager#finalScore(int, int)}. Everything random follows from
+ * the seed, so a match can be rerun on any thread with the same result
+ */
+public class BotMatch {
+
+    public static final int FIRST = 0;
+    public static final int SECOND = 1;
+
+    // Only the bots type; the player side's journal stays empty
+    private static final int JOURNAL_CAPACITY = 2;
+
+    private final VirtualGameScheduler scheduler = new VirtualGameScheduler();
+    private final Side[] sides = new Side[2];
+    private final int mode;
+    private int remainingSeconds;
+    private boolean running = false;
+
+    /**
+     * @param firstModel compiled model for first (null for the flat Gaussian); share it between matches
+     */
+    public BotMatch(int mode, long seed, ComputerOpponentConfig first, TypistModel firstModel,
+                    ComputerOpponentConfig second, TypistModel secondModel) {
+        this.mode = mode;
+        sides[FIRST] = new Side(seed, MatchSeed.OPPONENT, first, firstModel);
+        sides[SECOND] = new Side(seed, MatchSeed.RIVAL, second, secondModel);
+    }
+
+    /**
+     * Race for durationSeconds
+     * @return FIRST or SECOND for the winner, -1 for a draw
+     */
+    public int run(int durationSeconds) {
+        running = true;
+        remainingSeconds = durationSeconds;
+        for (Side side : sides) side.start();
+
+        scheduler.scheduleAtFixedRate(() -> {
+            remainingSeconds--;
+            if (remainingSeconds <= 0) {
+                running = false;
+                for (Side side : sides) side.stop();
+                scheduler.shutdownNow();
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+
+        if (mode == 3) {
+            scheduler.scheduleAtFixedRate(() -> {
+                for (Side side : sides) side.engine.fadeNextWords();
+            }, 3, 3, TimeUnit.SECONDS);
+        }
+
+        scheduler.runUntil(() -> !running, durationSeconds + 1L, TimeUnit.SECONDS);
+        return winner();
+    }
+
+    /** FIRST or SECOND for the side with the higher final score, -1 for a draw */
+    public int winner() {
+        int first = finalScore(FIRST);
+        int second = finalScore(SECOND);
+        return first > second ? FIRST : second > first ? SECOND : -1;
+    }
+
+    public int score(int side) { return sides[side].engine.getScores().getComputerScore(); }
+
+    public int errors(int side) { return sides[side].engine.getScores().getComputerErrors(); }
+
+    public int finalScore(int side) { return sides[side].engine.getScores().getComputerFinal(); }
+
+    public int passagesFinished(int side) { return sides[side].engine.getOpponentFinishedCount(); }
+
+    // One bot on the opponent side of its own engine
+    private final class Side implements ComputerOpponent.Listener {
+        final GameEngine engine;
+        final OpponentDriver driver = OpponentDriver.eventDriven(scheduler, null);
+        final ComputerOpponentConfig config;
+        final TypistModel model;
+        final RandomGenerator random;
+
+        Side(long seed, int stream, ComputerOpponentConfig config, TypistModel model) {
+            this.engine = new GameEngine(new WordGenerator(), null, JOURNAL_CAPACITY);
+            this.engine.setMode(mode);
+            this.engine.setSeed(seed);
+            this.config = config;
+            this.model = model;
+            this.random = MatchSeed.random(seed, 1, stream);
+        }
+
+        void start() {
+            engine.resetPassages();
+            engine.startRound();
+            next();
+        }
+
+        void stop() {
+            engine.stop();
+            driver.stop();
+        }
+
+        void next() {
+            driver.drive(new ComputerOpponent(engine.getOpponentPassage(), this, config, random, scheduler::nanoTime,
+                    model));
+        }
+
+        @Override
+        public void updateComputerTyping(int position, int errors, boolean lastWasCorrect) {
+            engine.opponentTyped(position, errors, lastWasCorrect);
+        }
+
+        @Override
+        public void onComputerFinished() {
+            if (engine.opponentFinished()) next();
+        }
+    }
+}
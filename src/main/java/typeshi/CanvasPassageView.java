@@ -0,0 +1,187 @@
+package typeshi;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+
+/**
+ * Canvas alternative to {@link PassageView}: the passage is laid out once on a monospace grid and each commit
+ * only re-blits the dirty cells from the shared {@link GlyphAtlas}, so typing never triggers a TextFlow relayout
+ *
+ * Fading clears a cell, the caret is an underline drawn into its cell
+ */
+public class CanvasPassageView extends Region implements PassageRenderer {
+
+    private static final double PADDING = 10;
+    private static final double MIN_HEIGHT = 200;
+
+    private final Canvas canvas = new Canvas();
+    private final GlyphAtlas atlas = GlyphAtlas.shared();
+    private final Color pendingColor;
+
+    private String passage = "";
+    private byte[] styles = new byte[0];
+    private int caret = -1;
+
+    // Grid position of every character, recomputed when the passage or width changes
+    private int[] cellColumns = new int[0];
+    private int[] cellRows = new int[0];
+    private int columns = 0;
+    private int rows = 0;
+
+    private final DirtyRanges dirty = new DirtyRanges();
+
+    public CanvasPassageView(Color pendingColor) {
+        this.pendingColor = pendingColor;
+
+        getChildren().add(canvas);
+        widthProperty().addListener((obs, oldW, newW) -> relayout());
+    }
+
+    @Override
+    public void setPassage(String passage) {
+        this.passage = passage == null ? "" : passage;
+        this.styles = new byte[this.passage.length()];
+        this.caret = -1;
+        dirty.clear();
+        atlas.ensureGlyphs(this.passage);
+        cellColumns = new int[0];
+        cellRows = new int[0];
+        columns = 0;
+        relayout();
+    }
+
+    @Override
+    public void setStyle(int index, byte style) {
+        if (index < 0 || index >= styles.length || styles[index] == style) return;
+        styles[index] = style;
+        dirty.add(index);
+    }
+
+    @Override
+    public byte getStyle(int index) {
+        return styles[index];
+    }
+
+    @Override
+    public void setCaret(int index) {
+        if (index == caret) return;
+        if (caret >= 0 && caret < styles.length) dirty.add(caret);
+        caret = index;
+        if (caret >= 0 && caret < styles.length) dirty.add(caret);
+    }
+
+    @Override
+    public int length() {
+        return styles.length;
+    }
+
+    @Override
+    public String getPassage() {
+        return passage;
+    }
+
+    @Override
+    public void commit() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        for (int r = 0; r < dirty.size(); r++) {
+            for (int i = dirty.start(r); i < dirty.end(r); i++) {
+                drawCell(gc, i);
+            }
+        }
+        dirty.clear();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        canvas.relocate(PADDING, PADDING);
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        return Math.max(MIN_HEIGHT, rows * atlas.cellHeight() + 2 * PADDING);
+    }
+
+    // Word-wrap the passage onto the grid and redraw everything; only runs on passage or width changes
+    private void relayout() {
+        // Width not known yet; the width listener lays out once the parent sizes us
+        if (getWidth() <= 2 * PADDING + atlas.cellWidth()) {
+            rows = 0;
+            canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            return;
+        }
+
+        int newColumns = (int) ((getWidth() - 2 * PADDING) / atlas.cellWidth());
+        if (newColumns == columns && cellColumns.length == styles.length) return;
+        columns = newColumns;
+
+        int n = passage.length();
+        if (cellColumns.length != n) {
+            cellColumns = new int[n];
+            cellRows = new int[n];
+        }
+
+        int col = 0;
+        int row = 0;
+        for (int i = 0; i < n; i++) {
+            char c = passage.charAt(i);
+            boolean wordStart = c != ' ' && (i == 0 || passage.charAt(i - 1) == ' ');
+            if (wordStart && col > 0) {
+                int wordEnd = passage.indexOf(' ', i);
+                int wordLength = (wordEnd < 0 ? n : wordEnd) - i;
+                if (col + wordLength > columns) {
+                    col = 0;
+                    row++;
+                }
+            }
+            if (col >= columns) {
+                col = 0;
+                row++;
+            }
+            cellColumns[i] = col;
+            cellRows[i] = row;
+            col++;
+        }
+        rows = n == 0 ? 0 : row + 1;
+
+        canvas.setWidth(columns * atlas.cellWidth());
+        canvas.setHeight(rows * atlas.cellHeight());
+        dirty.clear();
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        for (int i = 0; i < n; i++) drawCell(gc, i);
+
+        requestLayout();
+    }
+
+    private void drawCell(GraphicsContext gc, int index) {
+        if (index >= cellColumns.length) return;
+
+        double w = atlas.cellWidth();
+        double h = atlas.cellHeight();
+        double x = cellColumns[index] * w;
+        double y = cellRows[index] * h;
+        gc.clearRect(x, y, w, h);
+
+        byte style = styles[index];
+        if (style == FADED) return;
+
+        Color color = colorFor(style);
+        atlas.draw(gc, passage.charAt(index), atlas.colorIndex(color), x, y);
+
+        if (index == caret) {
+            gc.setFill(color);
+            gc.fillRect(x, y + h - 2, w, 2);
+        }
+    }
+
+    private Color colorFor(byte style) {
+        switch (style) {
+            case CORRECT: return Color.LIMEGREEN;
+            case ERROR: return Color.RED;
+            default: return pendingColor;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package typeshi;
+
+/**
+ * Dead-reckoned opponent caret, so the caret glides at the opponent's typing speed instead of jumping whenever a
+ * burst of updates arrives
+ *
+ * Authoritative positions from the AI or the network go to {@link #observe(int, long)}, which also folds the
+ * characters per second between updates into a smoothed rate. {@link #advance(long)} is called once per frame: it
+ * extrapolates from the last authoritative position at that rate (at most {@link #MAX_LEAD} characters ahead and
+ * for at most {@link #HORIZON_NANOS}), moves the displayed position toward it no faster than a catch-up speed, and
+ * snaps back when the opponent turned out slower or deleted. A handful of primitive fields, constant work per call,
+ * no allocation. Single-threaded (FX thread)
+ */
+public class CaretPredictor {
+
+    // Extrapolate at most this far past the last update, and for at most this long
+    public static final double MAX_LEAD = 1.0;
+    public static final long HORIZON_NANOS = 400_000_000L;
+
+    // Rate samples shorter than this are merged (several updates often arrive in one burst)
+    private static final long MIN_SAMPLE_NANOS = 50_000_000L;
+    // Longer gaps are pauses, not typing speed
+    private static final long MAX_SAMPLE_NANOS = 1_500_000_000L;
+    private static final double RATE_ALPHA = 0.3;
+    // Displayed caret runs up to this much faster than the opponent types when it has fallen behind
+    private static final double CATCH_UP = 3.0;
+    private static final double MIN_CATCH_UP_RATE = 8.0;
+    // Never trail the authoritative position by more than this
+    private static final double MAX_LAG = 6.0;
+    private static final long MAX_FRAME_NANOS = 100_000_000L;
+
+    private int length = 0;
+    private int position = 0;
+    private long positionNanos = 0;
+    private int samplePosition = 0;
+    private long sampleNanos = 0;
+    // Characters per second
+    private double rate = 0;
+    private double display = 0;
+    private long frameNanos = 0;
+
+    /**
+     * @param initialRate characters per second assumed until the opponent has typed a little
+     */
+    public CaretPredictor(double initialRate) {
+        this.rate = initialRate;
+    }
+
+    /**
+     * New passage: the caret starts over at 0; the learned rate is kept
+     */
+    public void reset(int length, long nowNanos) {
+        this.length = length;
+        position = 0;
+        positionNanos = nowNanos;
+        samplePosition = 0;
+        sampleNanos = nowNanos;
+        display = 0;
+        frameNanos = nowNanos;
+    }
+
+    /**
+     * Authoritative position of the opponent at nowNanos
+     */
+    public void observe(int newPosition, long nowNanos) {
+        if (newPosition < position) {
+            // Deletions restart the speed sample
+            samplePosition = newPosition;
+            sampleNanos = nowNanos;
+        } else {
+            long elapsed = nowNanos - sampleNanos;
+            if (elapsed >= MAX_SAMPLE_NANOS) {
+                samplePosition = newPosition;
+                sampleNanos = nowNanos;
+            } else if (elapsed >= MIN_SAMPLE_NANOS) {
+                double sample = (newPosition - samplePosition) * 1e9 / elapsed;
+                rate += RATE_ALPHA * (sample - rate);
+                samplePosition = newPosition;
+                sampleNanos = nowNanos;
+            }
+        }
+        position = newPosition;
+        positionNanos = nowNanos;
+    }
+
+    /**
+     * No extrapolation this frame; call instead of {@link #advance(long)} while the opponent cannot type (paused)
+     */
+    public double hold(long nowNanos) {
+        positionNanos = nowNanos;
+        return advance(nowNanos);
+    }
+
+    /**
+     * Move the displayed caret to this frame
+     * @return the displayed position, fractional; the caret sits on its integer part
+     */
+    public double advance(long nowNanos) {
+        long frame = Math.max(0, Math.min(MAX_FRAME_NANOS, nowNanos - frameNanos));
+        frameNanos = nowNanos;
+
+        long since = Math.max(0, Math.min(HORIZON_NANOS, nowNanos - positionNanos));
+        double target = Math.min(position + Math.min(MAX_LEAD, rate * since / 1e9), Math.max(position, length));
+
+        if (target <= display) {
+            display = target;
+        } else {
+            double step = Math.max(rate, MIN_CATCH_UP_RATE) * CATCH_UP * frame / 1e9;
+            display = Math.max(position - MAX_LAG, Math.min(target, display + step));
+        }
+        return display;
+    }
+
+    public double getRate() { return rate; }
+
+    public int getPosition() { return position; }
+
+    public double getDisplay() { return display; }
+}
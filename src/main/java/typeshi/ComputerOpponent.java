@@ -1,25 +1,43 @@
 package typeshi;
 
 import java.util.Random;
+import java.util.function.LongSupplier;
+import java.util.random.RandomGenerator;
 
 /**
  * Computer opponent that advances through a passage over time
  *
  * This implementation is non-blocking: it uses tick-based updates (the existing ScheduledExecutorService calls run periodically) and the AI decides whether to produce a character based on elapsed time and a configurable delay distribution
  * This avoids Thread.sleep() inside run
+ *
+ * Event-driven callers skip the ticks: wait {@link #firstDelayNanos()}, then call {@link #typeNext()} at each
+ * returned deadline (see {@link OpponentDriver})
  */
-public class ComputerOpponent implements Runnable {
+public class ComputerOpponent implements Runnable, OpponentDriver.Opponent {
+
+    /**
+     * Receives the AI's keystrokes, on the thread that runs the opponent
+     */
+    public interface Listener {
+        void updateComputerTyping(int position, int errors, boolean lastWasCorrect);
+
+        void onComputerFinished();
+    }
 
     private final String passage;
-    private final GameController controller;
-    private final ComputerOpponentConfig config;
+    private final Listener listener;
+    private final OpponentParams config;
+    // Per-bigram timing and mistakes; null keeps the flat Gaussian from config
+    private final TypistModel model;
 
     private int position = 0;
     private int errors = 0;
     private volatile boolean running = true;
-    private final Random random;
+    private final RandomGenerator random;
+    private final LongSupplier clock;
 
     // Timing state in nanoseconds
+    private boolean started = false;
     private long lastTickNanos = 0;
     private long remainingDelayNanos = 0;
 
@@ -27,19 +45,37 @@ public class ComputerOpponent implements Runnable {
      * Backwards compatible constructor preserving the old signature
      * Legacy integer difficulty is mapped to a {@link ComputerOpponentConfig}
      */
-    public ComputerOpponent(String passage, GameController controller, int difficulty) {
-        this(passage, controller, ComputerOpponentConfig.fromLegacyDifficulty(difficulty), new Random());
+    public ComputerOpponent(String passage, Listener listener, int difficulty) {
+        this(passage, listener, ComputerOpponentConfig.fromLegacyDifficulty(difficulty), new Random());
     }
 
     /**
-     * Primary constructor with explicit configuration and seedable Random
+     * Primary constructor with explicit configuration and a seedable generator (Random, SplittableRandom, ...)
      * Useful for deterministic unit tests
      */
-    public ComputerOpponent(String passage, GameController controller, ComputerOpponentConfig config, Random random) {
+    public ComputerOpponent(String passage, Listener listener, OpponentParams config, RandomGenerator random) {
+        this(passage, listener, config, random, System::nanoTime);
+    }
+
+    /**
+     * @param clock nanosecond time source, e.g. {@link GameScheduler#nanoTime()} so the AI can run in virtual time
+     */
+    public ComputerOpponent(String passage, Listener listener, OpponentParams config, RandomGenerator random,
+                            LongSupplier clock) {
+        this(passage, listener, config, random, clock, null);
+    }
+
+    /**
+     * @param model bigram typist model compiled for config, or null for the flat delay and error rate
+     */
+    public ComputerOpponent(String passage, Listener listener, OpponentParams config, RandomGenerator random,
+                            LongSupplier clock, TypistModel model) {
         this.passage = passage;
-        this.controller = controller;
+        this.listener = listener;
         this.config = config;
+        this.model = model;
         this.random = random == null ? new Random() : random;
+        this.clock = clock;
         // Sample initial delay
         this.remainingDelayNanos = sampleNextDelayNanos();
     }
@@ -48,8 +84,11 @@ public class ComputerOpponent implements Runnable {
     public void run() {
         if (!running) return;
 
-        long now = System.nanoTime();
-        if (lastTickNanos == 0) lastTickNanos = now;
+        long now = clock.getAsLong();
+        if (!started) {
+            started = true;
+            lastTickNanos = now;
+        }
         long elapsed = now - lastTickNanos;
         lastTickNanos = now;
 
@@ -65,30 +104,58 @@ public class ComputerOpponent implements Runnable {
         }
     }
 
+    /**
+     * Event-driven mode: delay before the first keystroke, sampled at construction
+     */
+    @Override
+    public long firstDelayNanos() {
+        return remainingDelayNanos;
+    }
+
+    /**
+     * Event-driven mode: type exactly one character now
+     * @return nanoseconds until the next keystroke is due, or -1 once the passage is finished or the AI stopped
+     */
+    @Override
+    public long typeNext() {
+        if (!running) return -1;
+        advanceOneChar();
+        if (!running) return -1;
+        return sampleNextDelayNanos();
+    }
+
     private void advanceOneChar() {
         if (position >= passage.length()) {
             // Return if already at end of passage
             return;
         }
 
-        boolean makeError = random.nextDouble() < config.getErrorRate();
+        boolean makeError = model != null
+                ? model.sampleError(previousChar(), passage.charAt(position), random)
+                : random.nextDouble() < config.getErrorRate();
         if (makeError) {
             errors++;
         }
 
         position++;
 
-        // Notify controller and indicate whether last typed char was correct; GameController updates UI on the JavaFX thread
-        controller.updateComputerTyping(position, errors, !makeError);
+        // Notify listener and indicate whether last typed char was correct; GameController updates UI on the JavaFX thread
+        listener.updateComputerTyping(position, errors, !makeError);
 
-        // If finished, notify controller once
+        // If finished, notify listener once
         if (position >= passage.length()) {
             running = false;
-            controller.onComputerFinished();
+            listener.onComputerFinished();
         }
     }
 
     private long sampleNextDelayNanos() {
+        if (model != null) {
+            // Delay before the next character, given the one just typed
+            if (position >= passage.length()) return 0;
+            return model.sampleDelayNanos(previousChar(), passage.charAt(position), random);
+        }
+
         double mean = config.getMeanDelayMs();
         double jitter = config.getJitterMs();
         // Sample from normal distribution around mean with provided jitter and clamp to minimum 20 ms
@@ -97,6 +164,11 @@ public class ComputerOpponent implements Runnable {
         return (long) (ms * 1_000_000L);
     }
 
+    private char previousChar() {
+        return position == 0 ? ' ' : passage.charAt(position - 1);
+    }
+
+    @Override
     public void stop() {
         running = false;
     }
@@ -3,8 +3,9 @@ package typeshi;
 /**
  * Configuration for ComputerOpponent behavior.
  * Encapsulates typing speed (mean and jitter) and error probability.
+ * Immutable; adaptive difficulty retunes a {@link TunableOpponentConfig} started from one of these instead.
  */
-public final class ComputerOpponentConfig {
+public final class ComputerOpponentConfig implements OpponentParams {
     private final double meanDelayMs;
     private final double jitterMs;
     private final double errorRate; // 0.0 - 1.0
@@ -18,14 +19,17 @@ public final class ComputerOpponentConfig {
         this.errorRate = errorRate;
     }
 
+    @Override
     public double getMeanDelayMs() {
         return meanDelayMs;
     }
 
+    @Override
     public double getJitterMs() {
         return jitterMs;
     }
 
+    @Override
     public double getErrorRate() {
         return errorRate;
     }
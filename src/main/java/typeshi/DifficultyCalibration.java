@@ -0,0 +1,227 @@
+package typeshi;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Headless Monte Carlo calibration of the AI difficulty levels
+ *
+ * Simulates many {@link ComputerOpponent} passages for every legacy difficulty (1..10) on every
+ * {@link WordGenerator} tier, in parallel across cores, and prints the WPM, accuracy and score-per-minute
+ * distributions of each cell so {@link ComputerOpponentConfig#fromLegacyDifficulty(int)} can be tuned from data.
+ * Each passage is timed keystroke by keystroke, exactly as the game's event-driven {@link OpponentDriver} schedules
+ * the AI, without a clock to poll; runs are reproducible for a given seed
+ *
+ * Usage: DifficultyCalibration [passagesPerCell] [seed] [csvFile]
+ */
+public class DifficultyCalibration {
+
+    static final int MIN_DIFFICULTY = 1;
+    static final int MAX_DIFFICULTY = 10;
+    static final int MODES = 3;
+
+    // Passages per parallel task; each task gets its own split of the generator
+    private static final int CHUNK = 2048;
+
+    private static final ComputerOpponent.Listener NO_OP = new ComputerOpponent.Listener() {
+        @Override
+        public void updateComputerTyping(int position, int errors, boolean lastWasCorrect) {}
+
+        @Override
+        public void onComputerFinished() {}
+    };
+
+    public static void main(String[] args) throws IOException {
+        int passagesPerCell = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 125L;
+
+        long start = System.nanoTime();
+        Cell[] cells = calibrate(new WordGenerator(), passagesPerCell, seed);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        printTable(cells, new PrintWriter(System.out, true));
+        System.out.printf("%d passages in %d ms on %d cores%n", (long) passagesPerCell * cells.length, elapsedMs,
+                Runtime.getRuntime().availableProcessors());
+
+        if (args.length > 2) {
+            try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(Path.of(args[2])))) {
+                printCsv(cells, csv);
+            }
+        }
+    }
+
+    /**
+     * Simulate passagesPerCell passages for every mode x difficulty cell
+     * @return cells ordered by mode, then difficulty
+     */
+    public static Cell[] calibrate(WordGenerator words, int passagesPerCell, long seed) {
+        int difficulties = MAX_DIFFICULTY - MIN_DIFFICULTY + 1;
+        int cellCount = MODES * difficulties;
+        int chunksPerCell = (passagesPerCell + CHUNK - 1) / CHUNK;
+        int jobs = cellCount * chunksPerCell;
+
+        // Split sequentially so every job's stream depends only on the seed, not on scheduling
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[jobs];
+        for (int j = 0; j < jobs; j++) randoms[j] = root.split();
+
+        Cell[] partials = IntStream.range(0, jobs).parallel().mapToObj(j -> {
+            int cell = j / chunksPerCell;
+            int chunk = j % chunksPerCell;
+            int mode = cell / difficulties + 1;
+            int difficulty = cell % difficulties + MIN_DIFFICULTY;
+            int count = Math.min(CHUNK, passagesPerCell - chunk * CHUNK);
+            return simulate(words.getPassages(mode), mode, difficulty, count, randoms[j]);
+        }).toArray(Cell[]::new);
+
+        // Merge in job order so the sums are identical run to run
+        Cell[] cells = new Cell[cellCount];
+        for (int j = 0; j < jobs; j++) {
+            int cell = j / chunksPerCell;
+            if (cells[cell] == null) cells[cell] = partials[j];
+            else cells[cell].merge(partials[j]);
+        }
+        return cells;
+    }
+
+    private static Cell simulate(List<String> passages, int mode, int difficulty, int count, SplittableRandom random) {
+        ComputerOpponentConfig config = ComputerOpponentConfig.fromLegacyDifficulty(difficulty);
+        // Same bigram model the game uses
+        TypistModel model = TypistModel.forConfig(config);
+        Cell cell = new Cell(mode, difficulty);
+
+        for (int n = 0; n < count; n++) {
+            String passage = passages.get(random.nextInt(passages.size()));
+            // Event-driven typing never reads the clock
+            ComputerOpponent ai = new ComputerOpponent(passage, NO_OP, config, random, () -> 0L, model);
+            // The driver's deadlines: the first keystroke after firstDelayNanos, each next one after the delay
+            // typeNext returns; the passage is done at the last keystroke
+            long elapsed = ai.firstDelayNanos();
+            long next;
+            while ((next = ai.typeNext()) >= 0) elapsed += next;
+
+            double minutes = Math.max(elapsed, 1) / 60e9;
+            int length = passage.length();
+            int errors = ai.getErrors();
+            cell.wpm.add(length / 5.0 / minutes);
+            cell.accuracy.add(100.0 * (length - errors) / length);
+            // GameController awards every keystroke minus its mistakes
+            cell.scorePerMinute.add((length - errors) / minutes);
+        }
+        return cell;
+    }
+
+    static void printTable(Cell[] cells, PrintWriter out) {
+        out.printf("%-6s %4s %10s | %27s | %27s | %27s%n", "mode", "diff", "passages",
+                "WPM mean  p10  p50  p90", "accuracy%  p10  p50  p90", "score/min mean p10 p50 p90");
+        for (Cell c : cells) {
+            out.printf("%-6s %4d %10d | %s | %s | %s%n", modeName(c.mode), c.difficulty, c.wpm.count(),
+                    c.wpm.summary(), c.accuracy.summary(), c.scorePerMinute.summary());
+        }
+        out.flush();
+    }
+
+    static void printCsv(Cell[] cells, PrintWriter out) {
+        out.println("mode,difficulty,passages,wpm_mean,wpm_p10,wpm_p50,wpm_p90,acc_mean,acc_p10,acc_p50,acc_p90,"
+                + "score_min_mean,score_min_p10,score_min_p50,score_min_p90");
+        for (Cell c : cells) {
+            out.printf("%d,%d,%d,%s,%s,%s%n", c.mode, c.difficulty, c.wpm.count(),
+                    c.wpm.csv(), c.accuracy.csv(), c.scorePerMinute.csv());
+        }
+    }
+
+    private static String modeName(int mode) {
+        switch (mode) {
+            case 1: return "easy";
+            case 3: return "hard";
+            default: return "medium";
+        }
+    }
+
+    /**
+     * Distributions for one mode x difficulty combination
+     */
+    public static final class Cell {
+        final int mode;
+        final int difficulty;
+        final Histogram wpm = new Histogram(0.5, 400);
+        final Histogram accuracy = new Histogram(0.5, 100);
+        final Histogram scorePerMinute = new Histogram(2.0, 2000);
+
+        Cell(int mode, int difficulty) {
+            this.mode = mode;
+            this.difficulty = difficulty;
+        }
+
+        void merge(Cell other) {
+            wpm.merge(other.wpm);
+            accuracy.merge(other.accuracy);
+            scorePerMinute.merge(other.scorePerMinute);
+        }
+
+        public int getMode() { return mode; }
+        public int getDifficulty() { return difficulty; }
+        public double meanWpm() { return wpm.mean(); }
+        public double meanAccuracy() { return accuracy.mean(); }
+        public double meanScorePerMinute() { return scorePerMinute.mean(); }
+    }
+
+    /**
+     * Fixed-width bins with an exact mean; percentiles are bin midpoints
+     */
+    static final class Histogram {
+        private final double binWidth;
+        private final double max;
+        private final long[] bins;
+        private long count = 0;
+        private double sum = 0;
+
+        Histogram(double binWidth, double max) {
+            this.binWidth = binWidth;
+            this.max = max;
+            this.bins = new long[(int) Math.ceil(max / binWidth) + 1];
+        }
+
+        void add(double value) {
+            int bin = (int) Math.min(bins.length - 1, Math.max(0, value / binWidth));
+            bins[bin]++;
+            count++;
+            sum += value;
+        }
+
+        void merge(Histogram other) {
+            for (int i = 0; i < bins.length; i++) bins[i] += other.bins[i];
+            count += other.count;
+            sum += other.sum;
+        }
+
+        long count() { return count; }
+
+        double mean() { return count == 0 ? 0 : sum / count; }
+
+        double percentile(double q) {
+            long target = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int i = 0; i < bins.length; i++) {
+                seen += bins[i];
+                if (seen >= target && seen > 0) return Math.min(max, (i + 0.5) * binWidth);
+            }
+            return 0;
+        }
+
+        String summary() {
+            return String.format("%8.1f %5.1f %5.1f %5.1f", mean(), percentile(0.1), percentile(0.5), percentile(0.9));
+        }
+
+        String csv() {
+            return String.format(java.util.Locale.ROOT, "%.2f,%.2f,%.2f,%.2f",
+                    mean(), percentile(0.1), percentile(0.5), percentile(0.9));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package typeshi;
+
+/**
+ * Compact list of half-open [start, end) index ranges changed by a model update
+ * Ranges that touch the most recently added one are merged, so in-order updates collapse into a few entries
+ * Backed by a reusable int array, clearing does not release it
+ */
+public final class DirtyRanges {
+
+    private int[] bounds = new int[8];
+    private int count = 0;
+
+    public void add(int index) {
+        add(index, index + 1);
+    }
+
+    public void add(int start, int end) {
+        if (end <= start) return;
+
+        if (count > 0) {
+            int last = (count - 1) * 2;
+            if (start <= bounds[last + 1] && end >= bounds[last]) {
+                bounds[last] = Math.min(bounds[last], start);
+                bounds[last + 1] = Math.max(bounds[last + 1], end);
+                return;
+            }
+        }
+
+        if (count * 2 == bounds.length) {
+            int[] grown = new int[bounds.length * 2];
+            System.arraycopy(bounds, 0, grown, 0, bounds.length);
+            bounds = grown;
+        }
+        bounds[count * 2] = start;
+        bounds[count * 2 + 1] = end;
+        count++;
+    }
+
+    public int size() { return count; }
+
+    public boolean isEmpty() { return count == 0; }
+
+    public int start(int range) { return bounds[range * 2]; }
+
+    public int end(int range) { return bounds[range * 2 + 1]; }
+
+    public void clear() {
+        count = 0;
+    }
+}
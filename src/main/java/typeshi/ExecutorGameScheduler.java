@@ -0,0 +1,60 @@
+package typeshi;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Real-time {@link GameScheduler} backed by a ScheduledExecutorService; tasks run on its pool threads
+ */
+public class ExecutorGameScheduler implements GameScheduler {
+
+    private final ScheduledExecutorService pool;
+
+    public ExecutorGameScheduler(int threads) {
+        this(Executors.newScheduledThreadPool(threads));
+    }
+
+    public ExecutorGameScheduler(ScheduledExecutorService pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public Task schedule(Runnable task, long delay, TimeUnit unit) {
+        return new FutureTask(pool.schedule(task, delay, unit));
+    }
+
+    @Override
+    public Task scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        return new FutureTask(pool.scheduleAtFixedRate(task, initialDelay, period, unit));
+    }
+
+    @Override
+    public void shutdownNow() {
+        pool.shutdownNow();
+    }
+
+    private static final class FutureTask implements Task {
+        private final ScheduledFuture<?> future;
+
+        FutureTask(ScheduledFuture<?> future) {
+            this.future = future;
+        }
+
+        @Override
+        public void cancel() {
+            future.cancel(false);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return future.isCancelled();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package typeshi;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+
+/**
+ * Compact progress lanes for a {@link FieldRace}, one thin bar per AI racer on a single canvas
+ *
+ * {@link #render(FieldRace)} is called once per frame; it does nothing unless the race ticked since the last frame,
+ * and then redraws only the lanes whose position changed
+ */
+public class FieldLanesView extends Region {
+
+    private static final double LANE_HEIGHT = 4;
+    private static final double LANE_GAP = 2;
+    private static final double PADDING = 6;
+
+    private static final Color BACKGROUND = Color.web("#2b1b1b");
+    private static final Color TRACK = Color.web("#3a2a2a");
+    private static final Color RUNNING = Color.web("#e05050");
+    private static final Color FINISHED = Color.GOLD;
+
+    private final Canvas canvas = new Canvas();
+
+    private FieldRace race;
+    private int[] drawn = new int[0];
+    private int drawnVersion = -1;
+    private boolean fullRedraw = true;
+
+    public FieldLanesView() {
+        getChildren().add(canvas);
+        widthProperty().addListener((obs, o, n) -> fullRedraw = true);
+    }
+
+    /**
+     * Draw the race's lanes from now on (null hides them)
+     */
+    public void setRace(FieldRace race) {
+        this.race = race;
+        int lanes = race == null ? 0 : race.lanes();
+        drawn = new int[lanes];
+        drawnVersion = -1;
+        fullRedraw = true;
+        setVisible(race != null);
+        setManaged(race != null);
+        requestLayout();
+    }
+
+    /**
+     * Redraw lanes that moved since the previous frame; JavaFX thread
+     */
+    public void render(FieldRace race) {
+        if (race != this.race) return;
+        int version = race.version();
+        if (version == drawnVersion && !fullRedraw) return;
+        drawnVersion = version;
+
+        double width = canvas.getWidth() - 2 * PADDING;
+        if (width <= 0) return;
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        int length = Math.max(1, race.length());
+
+        if (fullRedraw) {
+            fullRedraw = false;
+            g.setFill(BACKGROUND);
+            g.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            for (int i = 0; i < drawn.length; i++) {
+                drawn[i] = -1;
+            }
+        }
+
+        for (int i = 0; i < drawn.length; i++) {
+            int position = race.position(i);
+            if (position == drawn[i]) continue;
+            drawn[i] = position;
+
+            double y = PADDING + i * (LANE_HEIGHT + LANE_GAP);
+            double filled = width * Math.min(position, length) / length;
+            g.setFill(TRACK);
+            g.fillRect(PADDING + filled, y, width - filled, LANE_HEIGHT);
+            g.setFill(position >= length ? FINISHED : RUNNING);
+            g.fillRect(PADDING, y, filled, LANE_HEIGHT);
+        }
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        int lanes = drawn.length;
+        return lanes == 0 ? 0 : 2 * PADDING + lanes * (LANE_HEIGHT + LANE_GAP) - LANE_GAP;
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double w = getWidth();
+        double h = getHeight();
+        if (canvas.getWidth() != w || canvas.getHeight() != h) {
+            canvas.setWidth(w);
+            canvas.setHeight(h);
+            fullRedraw = true;
+        }
+    }
+}
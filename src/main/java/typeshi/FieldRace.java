@@ -0,0 +1,149 @@
+package typeshi;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Field of AI racers on one passage, advanced together by a single tick
+ *
+ * Each lane types like {@link ComputerOpponent}'s flat model (Gaussian delay clamped at 20 ms, fixed error rate),
+ * but all lane state lives in primitive arrays indexed by lane, so a tick is one pass over a few arrays and adding
+ * a lane costs a handful of arithmetic operations per tick. One thread ticks; any thread may read positions after
+ * {@link #version()}, which is bumped after every tick
+ */
+public class FieldRace {
+
+    public static final int MIN_LANES = 8;
+    public static final int MAX_LANES = 64;
+
+    private static final long MIN_DELAY_NANOS = 20_000_000L;
+
+    private final int length;
+    private final int lanes;
+    private final RandomGenerator random;
+
+    // Per lane configuration
+    private final double[] meanNanos;
+    private final double[] sigmaNanos;
+    private final double[] errorRates;
+
+    // Per lane state
+    private final int[] positions;
+    private final int[] errors;
+    private final long[] remainingNanos;
+    private final long[] finishNanos;
+
+    private boolean started = false;
+    private long startNanos;
+    private long lastTickNanos;
+    private volatile int finishedCount = 0;
+    private volatile int version = 0;
+
+    public FieldRace(String passage, ComputerOpponentConfig[] configs, RandomGenerator random) {
+        this.length = passage.length();
+        this.lanes = configs.length;
+        this.random = random;
+
+        meanNanos = new double[lanes];
+        sigmaNanos = new double[lanes];
+        errorRates = new double[lanes];
+        positions = new int[lanes];
+        errors = new int[lanes];
+        remainingNanos = new long[lanes];
+        finishNanos = new long[lanes];
+
+        for (int i = 0; i < lanes; i++) {
+            meanNanos[i] = configs[i].getMeanDelayMs() * 1_000_000.0;
+            sigmaNanos[i] = configs[i].getJitterMs() / 2.0 * 1_000_000.0;
+            errorRates[i] = configs[i].getErrorRate();
+            remainingNanos[i] = sampleDelay(i);
+            finishNanos[i] = -1;
+        }
+    }
+
+    /**
+     * Lanes spread over the legacy difficulties around the given one (two below to two above), cycling
+     */
+    public static ComputerOpponentConfig[] mixedField(int lanes, int difficulty) {
+        int count = Math.max(MIN_LANES, Math.min(MAX_LANES, lanes));
+        ComputerOpponentConfig[] configs = new ComputerOpponentConfig[count];
+        for (int i = 0; i < count; i++) {
+            configs[i] = ComputerOpponentConfig.fromLegacyDifficulty(difficulty - 2 + i % 5);
+        }
+        return configs;
+    }
+
+    /**
+     * Advance every lane to nowNanos
+     */
+    public void tick(long nowNanos) {
+        if (!started) {
+            started = true;
+            startNanos = nowNanos;
+            lastTickNanos = nowNanos;
+        }
+        long elapsed = nowNanos - lastTickNanos;
+        lastTickNanos = nowNanos;
+
+        int finished = finishedCount;
+        for (int i = 0; i < lanes; i++) {
+            if (positions[i] >= length) continue;
+            long remaining = remainingNanos[i] - elapsed;
+            while (remaining <= 0) {
+                if (random.nextDouble() < errorRates[i]) errors[i]++;
+                if (++positions[i] >= length) {
+                    // Finish time within the tick, for ranking against the player
+                    finishNanos[i] = nowNanos + remaining;
+                    finished++;
+                    break;
+                }
+                remaining += sampleDelay(i);
+            }
+            remainingNanos[i] = remaining;
+        }
+        finishedCount = finished;
+        version++;
+    }
+
+    /**
+     * Move the clock without typing (paused)
+     */
+    public void hold(long nowNanos) {
+        lastTickNanos = nowNanos;
+    }
+
+    public int lanes() { return lanes; }
+
+    public int length() { return length; }
+
+    /** Incremented after every tick; read it before the positions to see that tick's state */
+    public int version() { return version; }
+
+    public int position(int lane) { return positions[lane]; }
+
+    public int errors(int lane) { return errors[lane]; }
+
+    public int getFinishedCount() { return finishedCount; }
+
+    /**
+     * How many lanes finished before the given time on the tick clock
+     */
+    public int finishedBefore(long nanos) {
+        // Volatile read first so the finish times of the latest tick are visible
+        if (finishedCount == 0) return 0;
+        int count = 0;
+        for (int i = 0; i < lanes; i++) {
+            if (finishNanos[i] >= 0 && finishNanos[i] < nanos) count++;
+        }
+        return count;
+    }
+
+    /** Time from the first tick to the lane's finish, or -1 */
+    public long finishTimeNanos(int lane) {
+        return finishNanos[lane] < 0 ? -1 : finishNanos[lane] - startNanos;
+    }
+
+    private long sampleDelay(int lane) {
+        double nanos = meanNanos[lane] + random.nextGaussian() * sigmaNanos[lane];
+        return Math.max(MIN_DELAY_NANOS, (long) nanos);
+    }
+}
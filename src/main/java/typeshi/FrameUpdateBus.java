@@ -0,0 +1,153 @@
+package typeshi;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conflating hand-off from background threads (AI ticks, network receive loop, countdown) to the JavaFX thread
+ *
+ * Producers overwrite lock-free "latest value" slots instead of posting one Platform.runLater per event; a single
+ * AnimationTimer drains them once per pulse, so the opponent is redrawn at most once per frame however many
+ * updates arrived. Log lines are queued and all applied in order
+ */
+public class FrameUpdateBus {
+
+    /**
+     * Receives the drained state on the JavaFX thread
+     */
+    public interface Sink {
+        /** An AI keystroke coalesced into the next {@link #applyOpponentTyping} typed index wrong */
+        void applyOpponentMiss(int index);
+
+        /** Latest AI state; several keystrokes may have been coalesced into it */
+        void applyOpponentTyping(int position, int errors, boolean lastWasCorrect);
+
+        /** Latest remote progress (multiplayer) */
+        void applyOpponentProgress(int position, int errors);
+
+        /** Opponent finished its passage, applied after the final position */
+        void applyOpponentFinished();
+
+        void applyTimer(int remainingSeconds);
+
+        void applyLog(String line);
+
+        /** Called on every pulse after the published state, with the pulse timestamp (System.nanoTime base) */
+        void applyFrame(long nowNanos);
+    }
+
+    private static final long EMPTY = -1L;
+    private static final int NO_TIMER = Integer.MIN_VALUE;
+
+    // position (high 32 bits) | errors << 2 | network flag << 1 | lastWasCorrect
+    private final AtomicLong opponentSlot = new AtomicLong(EMPTY);
+    private final AtomicBoolean opponentFinished = new AtomicBoolean(false);
+    private final AtomicInteger timerSlot = new AtomicInteger(NO_TIMER);
+    // Cells the AI mistyped since the last drain; the slot only keeps the count
+    private final ConcurrentLinkedQueue<Integer> opponentMisses = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<String> logLines = new ConcurrentLinkedQueue<>();
+
+    private final Sink sink;
+    private AnimationTimer pulse;
+
+    public FrameUpdateBus(Sink sink) {
+        this.sink = sink;
+    }
+
+    /* ---------- PRODUCERS (any thread) ---------- */
+
+    public void publishOpponentTyping(int position, int errors, boolean lastWasCorrect) {
+        // Before the slot, so a drain that sees this position also sees the miss
+        if (!lastWasCorrect) opponentMisses.add(position - 1);
+        opponentSlot.set(pack(position, errors, false, lastWasCorrect));
+    }
+
+    public void publishOpponentProgress(int position, int errors) {
+        opponentSlot.set(pack(position, errors, true, true));
+    }
+
+    public void publishOpponentFinished() {
+        opponentFinished.set(true);
+    }
+
+    public void publishTimer(int remainingSeconds) {
+        timerSlot.set(remainingSeconds);
+    }
+
+    public void publishLog(String line) {
+        logLines.add(line);
+    }
+
+    /**
+     * Drop any opponent state not yet drawn (e.g. when a new round resets the passage)
+     */
+    public void discardOpponent() {
+        opponentSlot.set(EMPTY);
+        opponentMisses.clear();
+        opponentFinished.set(false);
+    }
+
+    /* ---------- CONSUMER (JavaFX thread) ---------- */
+
+    /**
+     * Apply everything published since the previous drain
+     */
+    public void drain() {
+        // Read the finish flag first: the final position is always published before it
+        boolean finished = opponentFinished.getAndSet(false);
+
+        long opponent = opponentSlot.getAndSet(EMPTY);
+        // Misses after the slot; one belonging to a later position only marks its cell early
+        Integer miss;
+        while ((miss = opponentMisses.poll()) != null) {
+            sink.applyOpponentMiss(miss);
+        }
+        if (opponent != EMPTY) {
+            int position = (int) (opponent >>> 32);
+            int errors = (int) ((opponent & 0xFFFFFFFFL) >>> 2);
+            if ((opponent & 2L) != 0) sink.applyOpponentProgress(position, errors);
+            else sink.applyOpponentTyping(position, errors, (opponent & 1L) != 0);
+        }
+        if (finished) sink.applyOpponentFinished();
+
+        int timer = timerSlot.getAndSet(NO_TIMER);
+        if (timer != NO_TIMER) sink.applyTimer(timer);
+
+        String line;
+        while ((line = logLines.poll()) != null) {
+            sink.applyLog(line);
+        }
+    }
+
+    /**
+     * Start draining once per pulse; call on the JavaFX thread
+     */
+    public void start() {
+        if (pulse == null) {
+            pulse = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    drain();
+                    sink.applyFrame(now);
+                }
+            };
+        }
+        pulse.start();
+    }
+
+    /**
+     * Stop the pulse; call on the JavaFX thread
+     */
+    public void stop() {
+        if (pulse != null) pulse.stop();
+    }
+
+    private static long pack(int position, int errors, boolean network, boolean lastWasCorrect) {
+        long low = ((long) Math.max(0, errors) << 2) | (network ? 2L : 0L) | (lastWasCorrect ? 1L : 0L);
+        return ((long) Math.max(0, position) << 32) | (low & 0xFFFFFFFFL);
+    }
+}
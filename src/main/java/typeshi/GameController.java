@@ -9,6 +9,7 @@ import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.TextFormatter;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.layout.HBox;
@@ -16,7 +17,6 @@ import javafx.scene.Node;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
-import javafx.scene.text.Text;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
@@ -24,27 +24,54 @@ import javafx.stage.Window;
 import javafx.util.Duration;
 import javafx.scene.control.Alert;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.prefs.Preferences;
+import java.util.random.RandomGenerator;
 
 /**
  * game controller - singleplayer & multiplayer logic
  */
-public class GameController {
+public class GameController implements ComputerOpponent.Listener {
 
     private final UIComponents ui;
-    private final WordGenerator wordGenerator;
+
+    // Match rules; everything below is view, scheduling and networking around it
+    private final GameEngine engine;
 
     private boolean gameEnded = false;
 
     private boolean pauseLockedByNetwork = false;
 
-    private ComputerOpponent computer;
-    private ScheduledExecutorService backgroundPool;
+    private OpponentDriver opponentDriver;
+    // Compiled once per match for currentDifficulty and shared by every passage's opponent
+    private TypistModel typistModel;
+    // Ghost race: replays the player's best run for this mode instead of the AI (null = AI)
+    private GhostOpponent ghost;
+    // Adaptive mode: the AI's config is retuned every frame from the player's live pace (null = fixed difficulty)
+    private volatile AdaptiveDifficulty adaptive;
+    private PlayerPace playerPace;
+    // Field race: extra AI lanes on the first passage, all advanced by one tick task
+    private FieldRace fieldRace;
+    private GameScheduler.Task fieldTask;
+    private static final long FIELD_TICK_MILLIS = 16;
+    // Fixes passages, AI and field for every round of this match (see MatchSeed)
+    private final long matchSeed;
+    // The AI's random stream for the running round, shared by its successive opponents
+    private RandomGenerator opponentRandom;
+    // Inputs of the running singleplayer round, saved for a headless replay (null = not recorded)
+    private MatchRecording.Recorder recorder;
+    // Where this round's run starts in the journal and the score it started from, for saving a new best
+    private long roundJournalStart;
+    private long roundStartNanos;
+    private int roundStartScore;
+    // Timer, AI and fade tasks of the running round; a fresh scheduler per round
+    private final Supplier<GameScheduler> schedulerFactory;
+    private GameScheduler backgroundPool;
 
     private int remainingSeconds;
     private boolean running = false;
@@ -61,6 +88,8 @@ public class GameController {
     private NetworkOpponent networkOpponent;
     private MultiplayerServer mpServer;
     private MultiplayerClient mpClient;
+    // Threads of the current multiplayer match; closed in safeNetworkCleanup
+    private NetworkSession networkSession;
     private boolean multiplayerActive = false;
 
     // Final-score sync
@@ -68,60 +97,17 @@ public class GameController {
     private Integer opponentFinalErrors = null;
     private boolean localFinalScoreSent = false;
 
-    private int playerCumulativeErrors = 0;
-    private int lastOpponentPosition = 0;
-    private int lastTypedLength = 0;
-    private int lastOpponentErrors = 0;
-
     private int multiplayerRoundSeconds = 20;
     private int multiplayerPort = 5000;
 
-    // Scoring
-    private final ScoreManager scoreManager = new ScoreManager();
-    private int lastCorrectCount = 0;
-
-    // Difficulty mode: 1 = Easy, 2 = Medium, 3 = Hard
-    private int mode = 1;
-
-    // For HARD fading (player side)
-    private int fadeIndex = 0;
-
-    // Separate fade index for computer side
-    private int computerFadeIndex = 0;
-
     // Handle the scheduled HARD fade task so we can cancel/reschedule it
-    private ScheduledFuture<?> hardFadeFuture = null;
-
-    // Guard flag so programmatic text changes do not recurse badly
-    private boolean adjustingInput = false;
-
-    // Track which character positions have been auto-backspaced (Medium/Hard)
-    private final java.util.Set<Integer> backspacedPositions = new java.util.HashSet<>();
+    private GameScheduler.Task hardFadeTask = null;
 
-    // Current passages for each side
-    private String playerPassage;
-    private String computerPassage;
-
-    // Shared ordered sequence of passages
-    private final List<String> passageSequence = new ArrayList<>();
-    private int playerPassageIndex = 0;
-    private int computerPassageIndex = 0;
-
-    // Track passages used in the current round to avoid repeats
-    private final java.util.Set<String> usedPassagesInRound = new java.util.HashSet<>();
-
-    // How many passages each has finished (for stats)
-    private int playerFinishedCount = 0;
-    private int computerFinishedCount = 0;
-
-    // Track if current computer passage has already been handled
-    private boolean computerPassageDone = false;
+    // Lowest index touched by input edits not yet passed to the engine
+    private int pendingEditStart = Integer.MAX_VALUE;
 
     private Runnable onReturnToMenu = null;
 
-    // Rounds support
-    private int totalRounds = 1;
-    private int currentRound = 1;
     // UI controls placed near pause button
     private Label roundLabelNode = null;
     private Button backToHomeButton = null;
@@ -130,56 +116,167 @@ public class GameController {
     private boolean countdownActive = false;
     private Timeline countdownTimeline = null;
 
+    // Background threads publish here; drained once per frame on the FX thread
+    private final FrameUpdateBus updateBus;
+
+    // Opponent caret and progress bar glide between updates; drawn once per frame
+    private static final double INITIAL_CARET_RATE = 5.0;
+    private final CaretPredictor opponentCaret = new CaretPredictor(INITIAL_CARET_RATE);
+    private int drawnOpponentCaret = -1;
+    private double drawnOpponentProgress = 0;
+
+    // Delayed red feedback and auto-backspace, advanced once per frame by updateBus
+    private static final int PLAYER_TIMERS = 0;
+    private static final int COMPUTER_TIMERS = 1;
+    private static final int REVEAL_ERROR = 0;
+    private static final int AUTO_BACKSPACE = 1;
+    private static final long ERROR_REVEAL_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long AUTO_BACKSPACE_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private final TimerWheel effectTimers;
+
     public GameController(UIComponents ui) {
+        this(ui, () -> new ExecutorGameScheduler(3));
+    }
+
+    /**
+     * @param schedulerFactory creates the scheduler for each round's timer, AI and fade tasks
+     */
+    public GameController(UIComponents ui, Supplier<GameScheduler> schedulerFactory) {
         this.ui = ui;
-        this.wordGenerator = new WordGenerator();
+        this.schedulerFactory = schedulerFactory;
+        this.engine = new GameEngine(new WordGenerator(), new GameEngine.Listener() {
+            @Override
+            public void passageStarted(int side, String passage) {
+                showPassage(side, passage);
+            }
 
-        // Allow tests to pass null for UI to avoid JavaFX initialization
-        if (this.ui != null) {
-            setupGameUI();
-        }
-    }
+            @Override
+            public void playerCellsChanged(TypingModel model) {
+                applyPlayerChanges(model);
+            }
 
-    // Called before startGame: 1 = Easy, 2 = Medium, 3 = Hard
-    public void setMode(int mode) {
-        this.mode = mode;
-        // If UI is present, regenerate the current passage to reflect new mode
-        if (this.ui != null) {
-            passageSequence.clear();
-            usedPassagesInRound.clear();
-            playerPassageIndex = 0;
-            computerPassageIndex = 0;
-
-            String first = getOrCreatePassageAt(0);
-            playerPassage = first;
-            computerPassage = first;
-            fadeIndex = 0;
-            computerFadeIndex = 0;
-            computerPassageDone = false;
+            @Override
+            public void playerRetreated(int position, int errors) {
+                // Send absolute progress (do not reveal score)
+                if (multiplayer && networkOpponent != null) {
+                    networkOpponent.sendAbsoluteProgress(position, errors);
+                }
+            }
 
-            Platform.runLater(() -> {
-                ui.targetTextFlow.getChildren().clear();
-                for (char c : playerPassage.toCharArray()) {
-                    Text t = new Text(String.valueOf(c));
-                    t.setFill(Color.WHITE);
-                    t.setStyle("-fx-font-family: Consolas; -fx-font-size: 18;");
-                    ui.targetTextFlow.getChildren().add(t);
+            @Override
+            public void playerAdvanced(int position, int errors) {
+                // Coalesced per send window, so fast typing does not mean one packet per key
+                if (multiplayer && networkOpponent != null) {
+                    networkOpponent.sendProgress(position, errors);
                 }
+            }
+
+            @Override
+            public void playerMistyped(int newErrors) {
+                // HARD: Screen shake on new error
+                if (engine.getMode() == 3) shakeScreen();
+            }
 
-                ui.computerTextFlow.getChildren().clear();
-                for (char c : computerPassage.toCharArray()) {
-                    Text t = new Text(String.valueOf(c));
-                    t.setFill(Color.GRAY);
-                    t.setStyle("-fx-font-family: Consolas; -fx-font-size: 18;");
-                    ui.computerTextFlow.getChildren().add(t);
+            @Override
+            public void autoBackspaceRequested() {
+                effectTimers.schedule(System.nanoTime(), AUTO_BACKSPACE_DELAY_NANOS, PLAYER_TIMERS, AUTO_BACKSPACE, 0);
+            }
+
+            @Override
+            public void opponentMoved(int previous, int position, boolean lastWasCorrect, boolean hitHidden) {
+                renderOpponent(previous, position, lastWasCorrect, hitHidden);
+            }
+
+            @Override
+            public void opponentCellsHidden(int from, int to) {
+                PassageRenderer view = ui.computerPassageView;
+                for (int i = from; i < to; i++) view.setStyle(i, PassageRenderer.FADED);
+                view.commit();
+            }
+
+            @Override
+            public void passageFinished(int side, int finishedCount) {
+                if (side == GameEngine.PLAYER) {
+                    updateBus.publishLog("You finished a passage! (" + finishedCount + ")");
+                    if (finishedCount == 1 && fieldRace != null && backgroundPool != null) {
+                        int place = fieldRace.finishedBefore(backgroundPool.nanoTime()) + 1;
+                        updateBus.publishLog("You placed #" + place + " of " + (fieldRace.lanes() + 1)
+                                + " in the field race.");
+                    }
+                    if (multiplayer && networkOpponent != null) {
+                        networkOpponent.sendFinished();
+                    }
+                    restartHardFade();
+                } else if (multiplayer) {
+                    updateBus.publishLog("Opponent finished the passage.");
+                } else {
+                    updateBus.publishLog("Computer finished a passage. (" + finishedCount + ")");
                 }
+            }
 
-                ui.inputField.clear();
-                ui.playerProgress.setProgress(0);
-                ui.computerProgress.setProgress(0);
-                lastCorrectCount = 0;
-            });
-        }
+            @Override
+            public void scoresChanged() {
+                showScores();
+            }
+        });
+        this.matchSeed = MatchSeed.newSeed();
+        engine.setSeed(matchSeed);
+        this.effectTimers = new TimerWheel(64, TimeUnit.MILLISECONDS.toNanos(16), this::onEffectTimer);
+        this.updateBus = new FrameUpdateBus(new FrameUpdateBus.Sink() {
+            @Override
+            public void applyOpponentMiss(int index) {
+                engine.opponentMissed(index);
+            }
+
+            @Override
+            public void applyOpponentTyping(int position, int errors, boolean lastWasCorrect) {
+                engine.opponentTyped(position, errors, lastWasCorrect);
+            }
+
+            @Override
+            public void applyOpponentProgress(int position, int errors) {
+                engine.opponentProgress(position, errors);
+            }
+
+            @Override
+            public void applyOpponentFinished() {
+                handleComputerFinished();
+            }
+
+            @Override
+            public void applyTimer(int remainingSeconds) {
+                ui.timerLabel.setText(String.format("%02d:%02d", remainingSeconds / 60, remainingSeconds % 60));
+            }
+
+            @Override
+            public void applyLog(String line) {
+                ui.logBox.getChildren().add(new Label(line));
+            }
+
+            @Override
+            public void applyFrame(long nowNanos) {
+                effectTimers.advance(nowNanos);
+                AdaptiveDifficulty controller = adaptive;
+                if (controller != null && running && !paused) {
+                    playerPace.update();
+                    controller.update(nowNanos, playerPace, opponentLeadChars());
+                }
+                FieldRace race = fieldRace;
+                if (race != null) ui.fieldLanes.render(race);
+                renderOpponentCaret(nowNanos);
+                NetworkOpponent network = networkOpponent;
+                if (network != null) network.flushProgress(nowNanos);
+            }
+        });
+
+        setupGameUI();
+    }
+
+    // Called before startGame: 1 = Easy, 2 = Medium, 3 = Hard
+    public void setMode(int mode) {
+        engine.setMode(mode);
+        // Regenerate the current passage to reflect new mode
+        engine.resetPassages();
     }
 
     public void setOnReturnToMenu(Runnable onReturnToMenu) {
@@ -187,15 +284,20 @@ public class GameController {
     }
 
     public void setTotalRounds(int total) {
-        this.totalRounds = Math.max(1, total);
-        this.currentRound = 1;
+        engine.setTotalRounds(total);
         // Update visible label if already present
         if (roundLabelNode != null) {
-            Platform.runLater(() -> roundLabelNode.setText("Round " + currentRound + " / " + totalRounds));
+            Platform.runLater(this::showRoundLabel);
         }
     }
 
     private void setupGameUI() {
+        // Record where each edit starts so only the changed suffix is re-evaluated
+        ui.inputField.setTextFormatter(new TextFormatter<>(change -> {
+            pendingEditStart = Math.min(pendingEditStart, change.getRangeStart());
+            return change;
+        }));
+
         // Listen for typing
         ui.inputField.textProperty().addListener((obs, oldVal, newVal) -> onPlayerType());
 
@@ -205,45 +307,11 @@ public class GameController {
             onPlayerType();
         });
 
-        // Reset passages
-        passageSequence.clear();
-        usedPassagesInRound.clear();
-        playerPassageIndex = 0;
-        computerPassageIndex = 0;
-
-        String first = getOrCreatePassageAt(0);
-        playerPassage = first;
-        computerPassage = first;
-
-        fadeIndex = 0;
-        computerFadeIndex = 0;
-        computerPassageDone = false;
-
-        // Build player TextFlow
-        ui.targetTextFlow.getChildren().clear();
-        for (char c : playerPassage.toCharArray()) {
-            Text t = new Text(String.valueOf(c));
-            t.setFill(Color.WHITE);
-            t.setStyle("-fx-font-family: Consolas; -fx-font-size: 18;");
-            ui.targetTextFlow.getChildren().add(t);
-        }
-
-        // Build computer TextFlow
-        ui.computerTextFlow.getChildren().clear();
-        for (char c : computerPassage.toCharArray()) {
-            Text t = new Text(String.valueOf(c));
-            t.setFill(Color.GRAY);
-            t.setStyle("-fx-font-family: Consolas; -fx-font-size: 18;");
-            ui.computerTextFlow.getChildren().add(t);
-        }
-
-        ui.inputField.clear();
-        ui.playerProgress.setProgress(0);
-        ui.computerProgress.setProgress(0);
-        lastCorrectCount = 0;
+        // Reset passages; the engine rebuilds both passage views
+        engine.resetPassages();
 
-        lastOpponentPosition = 0;
-        lastOpponentErrors = 0;
+        updateBus.discardOpponent();
+        updateBus.start();
 
         // Prepare pause button + round label
         if (ui.pauseButton != null) {
@@ -256,8 +324,9 @@ public class GameController {
                 HBox topBox = (HBox) parent;
 
                 if (roundLabelNode == null) {
-                    roundLabelNode = new Label("Round " + currentRound + " / " + totalRounds);
+                    roundLabelNode = new Label();
                     roundLabelNode.setStyle("-fx-text-fill: white; -fx-font-family: Consolas;");
+                    showRoundLabel();
                 }
                 if (!topBox.getChildren().contains(roundLabelNode)) {
                     topBox.getChildren().add(topBox.getChildren().indexOf(ui.pauseButton), roundLabelNode);
@@ -266,14 +335,8 @@ public class GameController {
         }
     }
 
-    // Generate or reuse passage. Avoid repeats within the current round
-    private String getOrCreatePassageAt(int index) {
-        while (index >= passageSequence.size()) {
-            String p = wordGenerator.getRandomPassage(this.mode, usedPassagesInRound);
-            passageSequence.add(p);
-            usedPassagesInRound.add(p);
-        }
-        return passageSequence.get(index);
+    private void showRoundLabel() {
+        roundLabelNode.setText("Round " + engine.getCurrentRound() + " / " + engine.getTotalRounds());
     }
 
     // Game that has countdown
@@ -283,8 +346,10 @@ public class GameController {
 
         // Update round label
         if (roundLabelNode != null) {
-            Platform.runLater(() -> roundLabelNode.setText("Round " + currentRound + " / " + totalRounds));
+            Platform.runLater(this::showRoundLabel);
         }
+        // The ghost's passages replace the round's before the countdown shows them
+        if (!multiplayer) prepareGhost();
         countdownActive = true;
         // Block typing
         ui.inputField.setDisable(true);
@@ -336,7 +401,7 @@ public class GameController {
         javafx.scene.Node originalCenter = ui.rootPane.getCenter();
 
         Rectangle dim = new Rectangle();
-        Label text = new Label("Round " + (currentRound - 1) + " Done.  Next Round!");
+        Label text = new Label("Round " + (engine.getCurrentRound() - 1) + " Done.  Next Round!");
         text.setTextFill(Color.WHITE);
         text.setFont(Font.font("Consolas", 36));
 
@@ -368,261 +433,173 @@ public class GameController {
         remainingSeconds = durationSeconds;
         currentDifficulty = difficulty;
 
-        // Reset scores at match start only
-        if (currentRound == 1) scoreManager.reset();
-
-        playerFinishedCount = 0;
-        computerFinishedCount = 0;
-        lastCorrectCount = 0;
-
-        lastOpponentPosition = 0;
-        lastOpponentErrors = 0;
-
-        ui.playerScoreLabel.setText(scoreManager.playerSummary());
-        // In multiplayer, keep opponent score hidden until final
-        if (!multiplayer) ui.computerScoreLabel.setText(scoreManager.computerSummary());
-        else ui.computerScoreLabel.setText("Score: ? | Errors: ?");
+        // Resets scores at match start only
+        engine.setMultiplayer(multiplayer);
+        engine.startRound();
+        roundJournalStart = engine.getJournal().size();
+        roundStartNanos = System.nanoTime();
+        roundStartScore = engine.getScores().getPlayerScore();
 
         // Scheduled thread pool for timer (+ optional fade). Computer only when NOT multiplayer.
-        backgroundPool = Executors.newScheduledThreadPool(3);
+        backgroundPool = schedulerFactory.get();
 
         if (!multiplayer) {
-            computer = new ComputerOpponent(computerPassage, this, currentDifficulty);
-            backgroundPool.scheduleAtFixedRate(() -> {
-                if (!paused && computer != null) computer.run();
-            }, 0, 100, TimeUnit.MILLISECONDS);
+            startAdaptive();
+            opponentRandom = MatchSeed.random(matchSeed, engine.getCurrentRound(), MatchSeed.OPPONENT);
+            startRecording(durationSeconds);
+            // The adaptive AI uses the flat model so retuned values apply directly
+            typistModel = adaptive != null ? null
+                    : TypistModel.forConfig(ComputerOpponentConfig.fromLegacyDifficulty(currentDifficulty));
+            // One subscription for the whole match; each keystroke is scheduled at its own deadline and
+            // finished passages swap the opponent in place
+            opponentDriver = OpponentDriver.eventDriven(backgroundPool, () -> paused);
+            opponentDriver.drive(ghost != null ? ghost : newComputerOpponent(engine.getOpponentPassage()));
+            startFieldRace();
         } else {
-            computer = null; // opponent is remote
+            opponentDriver = null; // opponent is remote
             // Reset final-score flags for a fresh match
             opponentFinalScore = null;
             opponentFinalErrors = null;
             localFinalScoreSent = false;
         }
 
-        // Countdown timer (pause-aware)
-        backgroundPool.scheduleAtFixedRate(() -> {
+        // Countdown timer (pause-aware); the round ends on the FX thread, which owns the engine, and only if
+        // this round's scheduler is still the current one by then
+        GameScheduler roundClock = backgroundPool;
+        roundClock.scheduleAtFixedRate(() -> {
             if (paused) return;
             remainingSeconds--;
-            Platform.runLater(() -> {
-                int minutes = remainingSeconds / 60;
-                int seconds = remainingSeconds % 60;
-                ui.timerLabel.setText(String.format("%02d:%02d", minutes, seconds));
-            });
-            if (remainingSeconds <= 0) endGame();
+            updateBus.publishTimer(remainingSeconds);
+            if (remainingSeconds == 0) {
+                Platform.runLater(() -> {
+                    if (backgroundPool == roundClock) endGame();
+                });
+            }
 
         }, 1, 1, TimeUnit.SECONDS);
 
         // HARD: fade words at a fixed interval (both player AND computer)
-        if (mode == 3) {
-            fadeIndex = 0;
-            computerFadeIndex = 0;
+        if (engine.getMode() == 3) {
             // Cancel previously-scheduled hard fade (if any)
-            if (hardFadeFuture != null) {
-                hardFadeFuture.cancel(false);
-                hardFadeFuture = null;
+            if (hardFadeTask != null) {
+                hardFadeTask.cancel();
+                hardFadeTask = null;
             }
             // Start with a short grace so the first passage is visible (no immediate fading)
-            hardFadeFuture = backgroundPool.scheduleAtFixedRate(
-                    () -> { if (!paused) Platform.runLater(() -> { fadeNextWord(); fadeNextComputerWord(); }); },
+            hardFadeTask = backgroundPool.scheduleAtFixedRate(
+                    () -> { if (!paused) Platform.runLater(engine::fadeNextWords); },
                     3, 3, TimeUnit.SECONDS
             );
         }
     }
 
-    // -------------------- START NEW PASSAGE (PLAYER ONLY) --------------------
-    private void startPlayerPassage() {
-        playerPassageIndex++; // human moves ahead in shared sequence
-        playerPassage = getOrCreatePassageAt(playerPassageIndex);
-        fadeIndex = 0;
-
-        playerCumulativeErrors = 0;
-
-        ui.targetTextFlow.getChildren().clear();
-        for (char c : playerPassage.toCharArray()) {
-            Text t = new Text(String.valueOf(c));
-            t.setFill(Color.WHITE);
-            t.setStyle("-fx-font-family: Consolas; -fx-font-size: 18;");
-            ui.targetTextFlow.getChildren().add(t);
+    // -------------------- PASSAGE VIEWS --------------------
+    private void showPassage(int side, String passage) {
+        if (side == GameEngine.OPPONENT) {
+            ui.computerPassageView.setPassage(passage);
+            effectTimers.cancelChannel(COMPUTER_TIMERS);
+            opponentCaret.reset(passage.length(), System.nanoTime());
+            drawnOpponentCaret = -1;
+            drawnOpponentProgress = 0;
+            ui.computerProgress.setProgress(0);
+            return;
         }
 
-        ui.inputField.clear();
+        ui.playerPassageView.setPassage(passage);
+        effectTimers.cancelChannel(PLAYER_TIMERS);
         ui.playerProgress.setProgress(0);
 
-        lastCorrectCount = 0;
-        // If HARD mode: ensure subsequent passages start fading immediately after first completion
-        if (mode == 3 && playerFinishedCount >= 1 && backgroundPool != null) {
-            if (hardFadeFuture != null) {
-                hardFadeFuture.cancel(false);
-            }
-            hardFadeFuture = backgroundPool.scheduleAtFixedRate(
-                    () -> { if (!paused) Platform.runLater(() -> { fadeNextWord(); fadeNextComputerWord(); }); },
-                    0, 3, TimeUnit.SECONDS
-            );
-            Platform.runLater(() -> { fadeNextWord(); fadeNextComputerWord(); });
-        }
+        // The finished passage's text may still be in the field; clear it once this input event is done
+        Platform.runLater(() -> {
+            ui.inputField.clear();
+            engine.releaseInput();
+        });
     }
 
-    // -------------------- START NEW PASSAGE (COMPUTER ONLY) --------------------
-    private void startComputerPassage() {
-        computerPassageIndex++; // Computer moves ahead in shared sequence
-        computerPassage = getOrCreatePassageAt(computerPassageIndex);
-        computerPassageDone = false;
-
-        computerFadeIndex = 0;
-
-        ui.computerTextFlow.getChildren().clear();
-        for (char c : computerPassage.toCharArray()) {
-            Text t = new Text(String.valueOf(c));
-            t.setFill(Color.GRAY);
-            t.setStyle("-fx-font-family: Consolas; -fx-font-size: 18;");
-            ui.computerTextFlow.getChildren().add(t);
+    // HARD: subsequent passages start fading immediately after the first completion
+    private void restartHardFade() {
+        if (engine.getMode() != 3 || backgroundPool == null) return;
+        if (hardFadeTask != null) {
+            hardFadeTask.cancel();
         }
+        hardFadeTask = backgroundPool.scheduleAtFixedRate(
+                () -> { if (!paused) Platform.runLater(engine::fadeNextWords); },
+                0, 3, TimeUnit.SECONDS
+        );
+        Platform.runLater(engine::fadeNextWords);
+    }
 
-        ui.computerProgress.setProgress(0);
+    private void showScores() {
+        TypingModel model = engine.getPlayerModel();
+        ScoreManager scores = engine.getScores();
+        if (model != null) {
+            ui.playerProgress.setProgress(model.length() == 0 ? 0.0 : (double) model.getCorrectCount() / model.length());
+        }
+        ui.playerScoreLabel.setText(scores.playerSummary());
+        // In multiplayer, keep opponent score hidden until final
+        if (!multiplayer) ui.computerScoreLabel.setText(scores.computerSummary());
+        else ui.computerScoreLabel.setText("Score: ? | Errors: ?");
     }
 
     // -------------------- PLAYER INPUT --------------------
     private void onPlayerType() {
+        int editStart = pendingEditStart;
+        pendingEditStart = Integer.MAX_VALUE;
+        engine.playerInput(ui.inputField.getText(), editStart, System.nanoTime());
+    }
 
-        String typedRaw = ui.inputField.getText();
-        if (typedRaw.length() < lastTypedLength) {
-            lastTypedLength = typedRaw.length();
-
-            // Send absolute progress (do not reveal score)
-            int correctedPos = Math.min(typedRaw.length(), playerPassage.length());
-
-            if (multiplayer && networkOpponent != null) {
-                networkOpponent.sendAbsoluteProgress(correctedPos, playerCumulativeErrors);
+    // FX thread: a delayed effect came due; channels are cancelled whenever their passage is replaced
+    private void onEffectTimer(int channel, int kind, int arg) {
+        if (kind == AUTO_BACKSPACE) {
+            String current = ui.inputField.getText();
+            if (current.length() > 1) {
+                String newText = current.substring(0, current.length() - 2) + " ";
+                ui.inputField.setText(newText);
+                ui.inputField.positionCaret(newText.length());
             }
-
-            return;
-        }
-
-        // Ignore when not running or adjusting
-        if (!running || adjustingInput) return;
-
-        var children = ui.targetTextFlow.getChildren();
-        int cappedLen = Math.min(typedRaw.length(), children.size());
-        String typed = typedRaw.substring(0, cappedLen);
-
-        int correctCount = 0;
-        boolean hasNewError = false;
-
-        for (int i = 0; i < children.size(); i++) {
-            Text t = (Text) children.get(i);
-            char targetChar = t.getText().charAt(0);
-
-            if (i < cappedLen) {
-                char typedChar = typedRaw.charAt(i);
-
-                if (typedChar == targetChar) {
-                    correctCount++;
-                    if (!t.getFill().equals(Color.TRANSPARENT)) {
-                        t.setFill(Color.LIMEGREEN);
-                    }
-                } else {
-                    // Count NEW errors only once per character
-                    if (!t.getFill().equals(Color.RED) && !t.getFill().equals(Color.TRANSPARENT)) {
-                        playerCumulativeErrors++;
-                        scoreManager.setPlayerErrors(playerCumulativeErrors);
-                        hasNewError = true;
-
-                        if (mode == 2 || mode == 3) {
-                            // Medium & Hard: delayed red feedback
-                            t.setFill(Color.WHITE);
-                            final int index = i;
-                            Timeline delay = new Timeline(new KeyFrame(Duration.millis(500), e -> {
-                                if (index < children.size()) {
-                                    Text delayedText = (Text) children.get(index);
-                                    if (!delayedText.getFill().equals(Color.LIMEGREEN) &&
-                                            !delayedText.getFill().equals(Color.TRANSPARENT)) {
-                                        delayedText.setFill(Color.RED);
-                                    }
-                                }
-                            }));
-                            delay.play();
-                        } else {
-                            // EASY: immediate red feedback
-                            t.setFill(Color.RED);
-                        }
-                    }
-                }
-            } else {
-                if (!t.getFill().equals(Color.TRANSPARENT)) {
-                    t.setFill(Color.WHITE);
-                }
+            engine.releaseInput();
+        } else if (channel == PLAYER_TIMERS) {
+            engine.revealPlayerError(arg);
+        } else {
+            // Skip if the character was passed or hidden meanwhile
+            PassageRenderer view = ui.computerPassageView;
+            if (arg < view.length() && view.getStyle(arg) == PassageRenderer.PENDING) {
+                view.setStyle(arg, PassageRenderer.ERROR);
+                view.commit();
             }
         }
+    }
 
-        // HARD: Screen shake on new error
-        if (mode == 3 && hasNewError) {
-            shakeScreen();
-        }
-
-        // Update player progress
-        double progress = children.isEmpty() ? 0.0 : (double) correctCount / children.size();
-        ui.playerProgress.setProgress(progress);
-        scoreManager.setPlayerProgress(progress);
-        ui.playerScoreLabel.setText(scoreManager.playerSummary());
-
-        // Award new correct characters
-        int deltaCorrect = correctCount - lastCorrectCount;
-        if (deltaCorrect > 0) scoreManager.awardPlayer(deltaCorrect);
-        lastCorrectCount = correctCount;
-
-        // MEDIUM & HARD: Auto-backspace after completing a correct word (ONCE per position only)
-        if ((mode == 2 || mode == 3) && typedRaw.length() > 0 && typedRaw.charAt(typedRaw.length() - 1) == ' ') {
-            int wordStart = typedRaw.lastIndexOf(' ', typedRaw.length() - 2) + 1;
-            boolean wordCorrect = true;
-            for (int i = wordStart; i < typedRaw.length() - 1; i++) {
-                if (i >= playerPassage.length() || typedRaw.charAt(i) != playerPassage.charAt(i)) {
-                    wordCorrect = false;
-                    break;
+    // Restyle only the player characters the model reports as changed
+    private void applyPlayerChanges(TypingModel model) {
+        DirtyRanges changed = model.changes();
+        PassageRenderer view = ui.playerPassageView;
+        for (int r = 0; r < changed.size(); r++) {
+            int end = Math.min(changed.end(r), view.length());
+            for (int i = changed.start(r); i < end; i++) {
+                view.setStyle(i, playerStyle(model, i));
+
+                // Medium & Hard: delayed red feedback for the characters that just went wrong
+                if (model.state(i) == TypingModel.PENDING_ERROR) {
+                    effectTimers.schedule(System.nanoTime(), ERROR_REVEAL_DELAY_NANOS, PLAYER_TIMERS, REVEAL_ERROR, i);
                 }
             }
-
-            int backspacePosition = typedRaw.length() - 2; // The character to remove
-            if (wordCorrect && typedRaw.length() > 1 && !backspacedPositions.contains(backspacePosition)) {
-                backspacedPositions.add(backspacePosition);
-                adjustingInput = true;
-                Timeline backspaceDelay = new Timeline(new KeyFrame(Duration.millis(100), e -> {
-                    String current = ui.inputField.getText();
-                    if (current.length() > 1) {
-                        String newText = current.substring(0, current.length() - 2) + " ";
-                        ui.inputField.setText(newText);
-                        ui.inputField.positionCaret(newText.length());
-                    }
-                    adjustingInput = false;
-                }));
-                backspaceDelay.play();
-            }
         }
+        view.commit();
+    }
 
-        // Check if player finished the passage
-        if (typed.equals(playerPassage)) {
-            playerFinishedCount++;
-            Platform.runLater(() -> ui.logBox.getChildren().add(
-                    new Label("You finished a passage! (" + playerFinishedCount + ")")
-            ));
-
-            if (multiplayer && networkOpponent != null) {
-                networkOpponent.sendFinished();
-            }
-
-            adjustingInput = true;
-            Platform.runLater(() -> {
-                startPlayerPassage();
-                adjustingInput = false;
-            });
+    private static byte playerStyle(TypingModel model, int index) {
+        if (model.isHidden(index)) return PassageRenderer.FADED;
+        switch (model.state(index)) {
+            case TypingModel.CORRECT: return PassageRenderer.CORRECT;
+            case TypingModel.ERROR: return PassageRenderer.ERROR;
+            default: return PassageRenderer.PENDING;
         }
-
-        // Update last typed length for next keystroke
-        lastTypedLength = typedRaw.length();
     }
 
     // HARD: Screen shake effect when player makes an error
     private void shakeScreen() {
-        if (ui == null || ui.rootPane == null) return;
+        if (ui.rootPane == null) return;
 
         // Store original position
         double originalX = ui.rootPane.getTranslateX();
@@ -638,48 +615,6 @@ public class GameController {
         shake.play();
     }
 
-    // HARD: fade (hide) the next word from the targetTextFlow
-    private void fadeNextWord() {
-        var children = ui.targetTextFlow.getChildren();
-        if (children.isEmpty()) return;
-
-        while (fadeIndex < children.size()) {
-            Text t = (Text) children.get(fadeIndex);
-            if (!t.getFill().equals(Color.TRANSPARENT)) break;
-            fadeIndex++;
-        }
-        if (fadeIndex >= children.size()) return;
-
-        while (fadeIndex < children.size()) {
-            Text t = (Text) children.get(fadeIndex);
-            t.setFill(Color.TRANSPARENT);
-            char ch = t.getText().charAt(0);
-            fadeIndex++;
-            if (ch == ' ') break;
-        }
-    }
-
-    // HARD: fade next computer word
-    private void fadeNextComputerWord() {
-        var children = ui.computerTextFlow.getChildren();
-        if (children.isEmpty()) return;
-
-        while (computerFadeIndex < children.size()) {
-            Text t = (Text) children.get(computerFadeIndex);
-            if (!t.getFill().equals(Color.TRANSPARENT)) break;
-            computerFadeIndex++;
-        }
-        if (computerFadeIndex >= children.size()) return;
-
-        while (computerFadeIndex < children.size()) {
-            Text t = (Text) children.get(computerFadeIndex);
-            t.setFill(Color.TRANSPARENT);
-            char ch = t.getText().charAt(0);
-            computerFadeIndex++;
-            if (ch == ' ') break;
-        }
-    }
-
     // -------------------- COMPUTER / OPPONENT UPDATES --------------------
     /**
      * Called by:
@@ -698,76 +633,70 @@ public class GameController {
     }
 
     /**
-     * COMPUTER-only UI update.
+     * COMPUTER-only update, from the AI thread; applied by the engine on the next frame.
      * lastWasCorrect indicates whether the most recently typed character was correct.
      */
+    @Override
     public void updateComputerTyping(int position, int errors, boolean lastWasCorrect) {
-        if (ui == null) return; // allow headless tests to run without JavaFX
-
-        Platform.runLater(() -> {
-            int total = ui.computerTextFlow.getChildren().size();
-            double progress = total == 0 ? 0.0 : (double) position / total;
-            ui.computerProgress.setProgress(progress);
-
-            scoreManager.setComputerProgress(progress);
-            scoreManager.setComputerErrors(errors);
+        updateBus.publishOpponentTyping(position, errors, lastWasCorrect);
+    }
 
-            // Don't award if last character was hidden by HARD fading
-            boolean wasHidden = false;
-            if (position > 0 && position - 1 < total) {
-                Text lastChar = (Text) ui.computerTextFlow.getChildren().get(position - 1);
-                wasHidden = lastChar.getFill().equals(Color.TRANSPARENT);
-            }
-            if (lastWasCorrect && !wasHidden) scoreManager.awardComputer(1);
-
-            ui.computerScoreLabel.setText(scoreManager.computerSummary());
-
-            // Update coloring + caret
-            for (int i = 0; i < total; i++) {
-                Text t = (Text) ui.computerTextFlow.getChildren().get(i);
-                t.setUnderline(i == position);
-
-                if (i < position - 1) {
-                    t.setFill(Color.LIMEGREEN);
-                } else if (i == position - 1) {
-                    if (lastWasCorrect && !wasHidden) {
-                        t.setFill(Color.LIMEGREEN);
-                    } else {
-                        // medium/hard: delayed red feedback
-                        if (mode == 2 || mode == 3) {
-                            if (!t.getFill().equals(Color.TRANSPARENT)) {
-                                t.setFill(Color.WHITE);
-                                final int index = i;
-                                Timeline delay = new Timeline(new KeyFrame(Duration.millis(500), e -> {
-                                    if (index < ui.computerTextFlow.getChildren().size()) {
-                                        Text delayedText = (Text) ui.computerTextFlow.getChildren().get(index);
-                                        if (!delayedText.getFill().equals(Color.LIMEGREEN) &&
-                                                !delayedText.getFill().equals(Color.TRANSPARENT)) {
-                                            delayedText.setFill(Color.RED);
-                                        }
-                                    }
-                                }));
-                                delay.play();
-                            } else {
-                                // hidden char: indicate struggle in HARD
-                                if (mode == 3) shakeScreen();
-                            }
-                        } else {
-                            if (!t.getFill().equals(Color.TRANSPARENT)) {
-                                t.setFill(Color.RED);
-                            }
-                        }
-
-                        // hard: shake on mistakes or hitting hidden char
-                        if (mode == 3 && (!lastWasCorrect || wasHidden)) {
-                            shakeScreen();
-                        }
-                    }
+    // FX thread: the engine moved the opponent, possibly several keystrokes past the last drawn position
+    private void renderOpponent(int previous, int position, boolean lastWasCorrect, boolean hitHidden) {
+        PassageRenderer view = ui.computerPassageView;
+        int total = view.length();
+        // Caret and progress bar follow on the next frame, predicted from here
+        opponentCaret.observe(position, System.nanoTime());
+
+        // Update coloring; only cells between the previously drawn and the new position can change,
+        // faded characters stay hidden
+        int mode = engine.getMode();
+        int from = Math.max(0, Math.min(previous, position) - 1);
+        int to = Math.min(total, Math.max(previous, position));
+        for (int i = from; i < to; i++) {
+            if (engine.isOpponentHidden(i)) continue;
+
+            if (i < position - 1) {
+                view.setStyle(i, PassageRenderer.CORRECT);
+            } else if (i == position - 1) {
+                if (lastWasCorrect) {
+                    view.setStyle(i, PassageRenderer.CORRECT);
+                } else if (mode == 2 || mode == 3) {
+                    // medium/hard: delayed red feedback
+                    view.setStyle(i, PassageRenderer.PENDING);
+                    effectTimers.schedule(System.nanoTime(), ERROR_REVEAL_DELAY_NANOS, COMPUTER_TIMERS, REVEAL_ERROR, i);
                 } else {
-                    t.setFill(Color.GRAY);
+                    view.setStyle(i, PassageRenderer.ERROR);
                 }
+            } else {
+                view.setStyle(i, PassageRenderer.PENDING);
             }
-        });
+        }
+        view.commit();
+
+        // hard: shake on mistakes or hitting hidden char
+        if (mode == 3 && (!lastWasCorrect || hitHidden)) {
+            shakeScreen();
+        }
+    }
+
+    // Dead-reckoned opponent caret: one prediction step and at most one caret cell per frame
+    private void renderOpponentCaret(long nowNanos) {
+        PassageRenderer view = ui.computerPassageView;
+        int total = view.length();
+        double display = running && !paused ? opponentCaret.advance(nowNanos) : opponentCaret.hold(nowNanos);
+
+        int caret = (int) display;
+        if (caret != drawnOpponentCaret) {
+            drawnOpponentCaret = caret;
+            view.setCaret(caret);
+            view.commit();
+        }
+        double progress = total == 0 ? 0.0 : Math.min(display, total) / total;
+        if (progress != drawnOpponentProgress) {
+            drawnOpponentProgress = progress;
+            ui.computerProgress.setProgress(progress);
+        }
     }
 
     /**
@@ -775,70 +704,169 @@ public class GameController {
      * Only update progress bar and text coloring. Final scores are exchanged at the end.
      */
     public void updateOpponentFromNetwork(int position, int errors) {
-        if (ui == null) return;
+        updateBus.publishOpponentProgress(position, errors);
+    }
 
-        Platform.runLater(() -> {
-            int total = ui.computerTextFlow.getChildren().size();
-            int pos = Math.max(0, Math.min(position, total));
+    @Override
+    public void onComputerFinished() {
+        updateBus.publishOpponentFinished();
+    }
 
-            // Progress bar (visual only)
-            double progress = total == 0 ? 0.0 : (double) pos / total;
-            ui.computerProgress.setProgress(progress);
+    // AI on the round's clock, so it follows the scheduler (real or virtual time)
+    private ComputerOpponent newComputerOpponent(String passage) {
+        GameScheduler clock = backgroundPool;
+        AdaptiveDifficulty controller = adaptive;
+        OpponentParams config = controller != null ? controller.getConfig()
+                : ComputerOpponentConfig.fromLegacyDifficulty(currentDifficulty);
+        return new ComputerOpponent(passage, this, config, opponentRandom, clock::nanoTime, typistModel);
+    }
 
-            // Update coloring (visual feedback) but DO NOT touch scoreManager/computerScoreLabel mid-game
-            for (int i = 0; i < total; i++) {
-                Text t = (Text) ui.computerTextFlow.getChildren().get(i);
-                t.setUnderline(i == pos);
-                if (i < pos) t.setFill(Color.LIMEGREEN);
-                else t.setFill(Color.GRAY);
-            }
+    private void stopOpponent() {
+        if (opponentDriver != null) {
+            opponentDriver.stop();
+            opponentDriver = null;
+        }
+        if (ghost != null) {
+            ghost.close();
+            ghost = null;
+        }
+        if (fieldTask != null) {
+            fieldTask.cancel();
+            fieldTask = null;
+        }
+        adaptive = null;
+    }
 
-            lastOpponentPosition = pos;
-            lastOpponentErrors = Math.max(0, errors);
-        });
+    // -------------------- ADAPTIVE DIFFICULTY --------------------
+    private void startAdaptive() {
+        adaptive = null;
+        Preferences prefs = Preferences.userNodeForPackage(SettingsScreen.class);
+        if (ghost != null || !prefs.getBoolean("adaptive", false)) return;
+
+        // Start from the chosen difficulty and assume the player types at its speed until keystrokes arrive
+        ComputerOpponentConfig initial = ComputerOpponentConfig.fromLegacyDifficulty(currentDifficulty);
+        playerPace = new PlayerPace(engine.getJournal(), 0.05, 60_000.0 / (5 * initial.getMeanDelayMs()));
+        adaptive = new AdaptiveDifficulty(new TunableOpponentConfig(initial), 0);
     }
 
-    public void onComputerFinished() {
-        Platform.runLater(() -> {
-            if (!running || remainingSeconds <= 0) return;
+    // Characters the AI is ahead of the player over the shared passage sequence (negative when behind)
+    private double opponentLeadChars() {
+        TypingModel model = engine.getPlayerModel();
+        int length = Math.max(1, engine.getPlayerPassage().length());
+        double player = engine.getPlayerFinishedCount()
+                + (model == null ? 0 : (double) model.getCorrectCount() / length);
+        double opponent = engine.getOpponentFinishedCount()
+                + (double) engine.getOpponentPosition() / Math.max(1, engine.getOpponentPassage().length());
+        return (opponent - player) * length;
+    }
 
-            if (multiplayer) {
+    // Lanes keep showing the final standings until the next round starts
+    private void startFieldRace() {
+        int lanes = Preferences.userNodeForPackage(SettingsScreen.class).getInt("fieldRace", 0);
+        fieldRace = lanes <= 0 ? null : new FieldRace(engine.getPlayerPassage(),
+                FieldRace.mixedField(lanes, currentDifficulty),
+                MatchSeed.random(matchSeed, engine.getCurrentRound(), MatchSeed.FIELD));
+        ui.fieldLanes.setRace(fieldRace);
+        if (fieldRace == null) return;
+
+        FieldRace race = fieldRace;
+        GameScheduler clock = backgroundPool;
+        // One task for the whole field however many lanes it has
+        fieldTask = backgroundPool.scheduleAtFixedRate(() -> {
+            if (paused) race.hold(clock.nanoTime());
+            else race.tick(clock.nanoTime());
+        }, 0, FIELD_TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
 
-                computerFinishedCount++;
+    // -------------------- REPLAY RECORDING --------------------
+    private static Path replayFile(int round) {
+        return Path.of(System.getProperty("user.home"), ".typeshi", "replay-round" + round + ".tsmr");
+    }
 
-                ui.logBox.getChildren().add(new Label("Opponent finished the passage."));
-                startComputerPassage();
+    // Ghost and adaptive rounds depend on more than the seed and the player's input, so they are not recorded
+    private void startRecording(int durationSeconds) {
+        recorder = ghost != null || adaptive != null ? null
+                : new MatchRecording.Recorder(matchSeed, engine.getCurrentRound(), engine.getMode(),
+                        currentDifficulty, durationSeconds, roundStartNanos, System::nanoTime);
+        engine.setRecorder(recorder);
+    }
 
-                // Reset opponent progress tracking
-                lastOpponentPosition = 0;
-                lastOpponentErrors = 0;
-                endGame();
-                return;
-            }
+    // FX thread, at the end of a singleplayer round: replay with HeadlessMatch <file>
+    private void saveRecording() {
+        MatchRecording.Recorder finished = recorder;
+        recorder = null;
+        engine.setRecorder(null);
+        if (finished == null) return;
+        MatchRecording recording = finished.finish();
+        try {
+            recording.write(replayFile(recording.getRound()));
+        } catch (IOException e) {
+            System.err.println("Could not save match recording: " + e.getMessage());
+        }
+    }
 
-            // SINGLEPLAYER behavior (existing logic)
-            if (computerPassageDone) return;
-            computerPassageDone = true;
+    // -------------------- GHOST RACE --------------------
+    private static Path ghostFile(int mode) {
+        return Path.of(System.getProperty("user.home"), ".typeshi", "ghost-" + mode + ".tsgr");
+    }
 
-            computerFinishedCount++;
-            ui.logBox.getChildren().add(
-                    new Label("Computer finished a passage. (" + computerFinishedCount + ")")
-            );
+    // Before the countdown: open this round's ghost, if any, and race the same passages it typed
+    private void prepareGhost() {
+        if (ghost != null) ghost.close();
+        ghost = openGhost();
+        if (ghost != null) engine.usePassageSequence(ghost.getPassages());
+    }
 
-            // Only computer moves to next passage in shared sequence
-            startComputerPassage();
+    private GhostOpponent openGhost() {
+        Preferences prefs = Preferences.userNodeForPackage(SettingsScreen.class);
+        Path file = ghostFile(engine.getMode());
+        if (!prefs.getBoolean("ghost", false) || !Files.exists(file)) return null;
+        try {
+            // The round's clock only exists from startGame on; the ghost first reads it once driven
+            return GhostOpponent.open(file, this, () -> {
+                GameScheduler clock = backgroundPool;
+                return clock != null ? clock.nanoTime() : System.nanoTime();
+            });
+        } catch (IOException e) {
+            System.err.println("Could not load ghost recording: " + e.getMessage());
+            return null;
+        }
+    }
 
-            // Restart AI with new passage
-            if (computer != null) computer.stop();
-            computer = new ComputerOpponent(computerPassage, this, currentDifficulty);
+    // FX thread, at the end of a singleplayer round: keep the run as the new ghost if it beat the best one
+    private void saveGhostIfBest() {
+        int mode = engine.getMode();
+        int roundScore = engine.getScores().getPlayerScore() - roundStartScore;
+        Preferences prefs = Preferences.userNodeForPackage(SettingsScreen.class);
+        String key = "ghostBest" + mode;
+        // The stored best only counts while its ghost can still be raced
+        int best = GhostRecording.isReadable(ghostFile(mode)) ? prefs.getInt(key, 0) : 0;
+        if (roundScore <= best) return;
 
-            if (backgroundPool != null) {
-                backgroundPool.scheduleAtFixedRate(
-                        () -> { if (!paused && computer != null) computer.run(); },
-                        0, 100, TimeUnit.MILLISECONDS
-                );
-            }
-        });
+        try {
+            GhostRecording.write(ghostFile(mode), engine.getJournal(), roundJournalStart, roundStartNanos, mode,
+                    engine.getPlayerPassages());
+            prefs.putInt(key, roundScore);
+            updateBus.publishLog("New personal best! Saved as your ghost.");
+        } catch (IOException e) {
+            System.err.println("Could not save ghost recording: " + e.getMessage());
+        }
+    }
+
+    // FX thread: applied by the update bus right after the opponent's final position
+    private void handleComputerFinished() {
+        if (remainingSeconds <= 0 || !engine.opponentFinished()) return;
+
+        if (multiplayer) {
+            endGame();
+            return;
+        }
+
+        // A ghost moves on to its next recorded passage by itself
+        if (ghost != null) return;
+
+        // Restart AI with new passage on the existing subscription
+        if (opponentDriver != null) opponentDriver.drive(newComputerOpponent(engine.getOpponentPassage()));
     }
 
     private void togglePause() {
@@ -868,6 +896,7 @@ public class GameController {
 
     private void applyPause() {
         paused = true;
+        if (recorder != null) recorder.pause();
 
         if (ui != null && ui.pauseButton != null) {
             ui.pauseButton.setText("▶ Resume");
@@ -883,6 +912,7 @@ public class GameController {
 
     private void applyResume() {
         paused = false;
+        if (recorder != null) recorder.resume();
 
         if (ui != null && ui.pauseButton != null) {
             ui.pauseButton.setText("⏸ Pause");
@@ -912,13 +942,15 @@ public class GameController {
             return;
         }
 
+        stopOpponent();
         if (backgroundPool != null) {
             backgroundPool.shutdownNow();
             backgroundPool = null;
         }
-        if (hardFadeFuture != null) { hardFadeFuture.cancel(false); hardFadeFuture = null; }
+        if (hardFadeTask != null) { hardFadeTask.cancel(); hardFadeTask = null; }
 
         running = false;
+        engine.stop();
         paused = false;
 
         Platform.runLater(() -> {
@@ -933,10 +965,12 @@ public class GameController {
     void returnToHomeFromPause() {
 
         // Stop timers
+        stopOpponent();
         if (backgroundPool != null) backgroundPool.shutdownNow();
-        if (hardFadeFuture != null) hardFadeFuture.cancel(false);
+        if (hardFadeTask != null) hardFadeTask.cancel();
 
         running = false;
+        engine.stop();
         paused = false;
 
         // Only notify opponent if match actually started
@@ -945,16 +979,10 @@ public class GameController {
         }
 
         // Close network
-        if (networkOpponent != null) {
-            networkOpponent.stop();
-            networkOpponent = null;
-        }
-
-        multiplayer = false;
-        multiplayerActive = false;
-        isHost = false;
+        safeNetworkCleanup();
 
         Platform.runLater(() -> {
+            updateBus.stop();
             hidePauseOverlay();
             if (ui != null && ui.pauseButton != null) {
                 ui.pauseButton.setDisable(true);
@@ -1134,59 +1162,40 @@ public class GameController {
         if (multiplayer && networkOpponent != null && !localFinalScoreSent) {
             localFinalScoreSent = true;
             networkOpponent.sendFinalScore(
-                    scoreManager.getPlayerScore(),
-                    scoreManager.getPlayerErrors()
+                    engine.getScores().getPlayerScore(),
+                    engine.getScores().getPlayerErrors()
             );
         }
 
         if (!running) return;
         running = false;
+        engine.stop();
 
+        stopOpponent();
         if (backgroundPool != null) backgroundPool.shutdownNow();
-        if (hardFadeFuture != null) { hardFadeFuture.cancel(false); hardFadeFuture = null; }
+        if (hardFadeTask != null) { hardFadeTask.cancel(); hardFadeTask = null; }
 
 
+        // Before the next round replaces the passages
+        if (!multiplayer) {
+            Platform.runLater(() -> {
+                saveRecording();
+                saveGhostIfBest();
+            });
+        }
+
         // If singleplayer match has more rounds, start next round after a short "round done" overlay
-        if (!multiplayer && currentRound < totalRounds) {
-            currentRound++;
+        if (engine.hasNextRound()) {
             Platform.runLater(() -> {
                 hidePauseOverlay();
                 if (ui != null && ui.pauseButton != null) ui.pauseButton.setDisable(true);
 
-                // Prepare fresh passages for next round (preserve cumulative scores)
-                passageSequence.clear();
-                usedPassagesInRound.clear();
-                playerPassageIndex = 0;
-                computerPassageIndex = 0;
-                String first = getOrCreatePassageAt(0);
-                playerPassage = first;
-                computerPassage = first;
-                fadeIndex = 0;
-                computerFadeIndex = 0;
-                computerPassageDone = false;
-
-                ui.targetTextFlow.getChildren().clear();
-                for (char c : playerPassage.toCharArray()) {
-                    Text t = new Text(String.valueOf(c));
-                    t.setFill(Color.WHITE);
-                    t.setStyle("-fx-font-family: Consolas; -fx-font-size: 18;");
-                    ui.targetTextFlow.getChildren().add(t);
-                }
-                ui.computerTextFlow.getChildren().clear();
-                for (char c : computerPassage.toCharArray()) {
-                    Text t = new Text(String.valueOf(c));
-                    t.setFill(Color.GRAY);
-                    t.setStyle("-fx-font-family: Consolas; -fx-font-size: 18;");
-                    ui.computerTextFlow.getChildren().add(t);
-                }
-
-                ui.inputField.clear();
-                ui.playerProgress.setProgress(0);
-                ui.computerProgress.setProgress(0);
-                lastCorrectCount = 0;
+                // Fresh passages for the next round (scores accumulate)
+                engine.advanceRound();
+                updateBus.discardOpponent();
 
                 // show a small "Round Done" overlay, then start next round countdown
-                ui.logBox.getChildren().add(new Label("Round " + (currentRound - 1) + " complete"));
+                updateBus.publishLog("Round " + (engine.getCurrentRound() - 1) + " complete");
                 showRoundDoneOverlay(() -> startGameWithCountdown(initialDurationSeconds, currentDifficulty));
             });
             return;
@@ -1199,8 +1208,8 @@ public class GameController {
                 localFinalScoreSent = true;
                 try {
                     networkOpponent.sendFinalScore(
-                            scoreManager.getPlayerScore(),
-                            scoreManager.getPlayerErrors()
+                            engine.getScores().getPlayerScore(),
+                            engine.getScores().getPlayerErrors()
                     );
                 } catch (Exception ignored) {}
             }
@@ -1213,14 +1222,16 @@ public class GameController {
 
         // Singleplayer final display (existing behavior)
         Platform.runLater(() -> {
+            updateBus.stop();
             hidePauseOverlay();
             if (ui != null && ui.pauseButton != null) ui.pauseButton.setDisable(true);
 
+            ScoreManager scores = engine.getScores();
             VictoryScreen victory = new VictoryScreen(
-                    scoreManager.getPlayerScore(),
-                    scoreManager.getComputerScore(),
-                    scoreManager.getPlayerErrors(),
-                    scoreManager.getComputerErrors(),
+                    scores.getPlayerScore(),
+                    scores.getComputerScore(),
+                    scores.getPlayerErrors(),
+                    scores.getComputerErrors(),
                     onReturnToMenu,
                     false
             );
@@ -1230,12 +1241,14 @@ public class GameController {
     }
 
     private void waitForFinalScores() {
+        NetworkSession session = networkSession;
+        if (session == null) return;
 
-        new Thread(() -> {
+        session.start(() -> {
             long start = System.currentTimeMillis();
 
             while (opponentFinalScore == null) {
-                try { Thread.sleep(50); } catch (InterruptedException ignored) {}
+                try { Thread.sleep(50); } catch (InterruptedException e) { return; }
 
                 // Safety timeout (prevents infinite hang)
                 if (System.currentTimeMillis() - start > 5000) {
@@ -1245,8 +1258,7 @@ public class GameController {
 
             // Show results (with a tiny additional delay to allow last packet processing)
             delayedShowMultiplayerResults(200);
-
-        }).start();
+        });
     }
 
     /**
@@ -1255,19 +1267,19 @@ public class GameController {
      * to finish sending its final packet.
      */
     private void delayedShowMultiplayerResults(int delayMillis) {
-        new Thread(() -> {
-            try { Thread.sleep(Math.max(0, delayMillis)); } catch (InterruptedException ignored) {}
-            Platform.runLater(this::showMultiplayerResults);
-        }).start();
+        NetworkSession session = networkSession;
+        if (session == null) return;
+        session.schedule(() -> Platform.runLater(this::showMultiplayerResults), delayMillis, TimeUnit.MILLISECONDS);
     }
 
     private void showMultiplayerResults() {
-        int myScore = scoreManager.getPlayerScore();
-        int myErrors = scoreManager.getPlayerErrors();
+        int myScore = engine.getScores().getPlayerScore();
+        int myErrors = engine.getScores().getPlayerErrors();
         int oppScore = opponentFinalScore != null ? opponentFinalScore : 0;
         int oppErrors = opponentFinalErrors != null ? opponentFinalErrors : 0;
 
         Platform.runLater(() -> {
+            updateBus.stop();
             hidePauseOverlay();
             if (ui != null && ui.pauseButton != null) ui.pauseButton.setDisable(true);
 
@@ -1311,6 +1323,12 @@ public class GameController {
             }
         } catch (Exception ignored) {}
 
+        // Interrupts whatever is still blocked: a host waiting for its opponent, the receive loops, result waits
+        if (networkSession != null) {
+            networkSession.close();
+            networkSession = null;
+        }
+
         multiplayer = false;
         multiplayerActive = false;
         isHost = false;
@@ -1330,8 +1348,8 @@ public class GameController {
         ui.inputField.clear();
         ui.inputField.setDisable(true);
 
-        ui.targetTextFlow.getChildren().clear();
-        ui.computerTextFlow.getChildren().clear();
+        ui.playerPassageView.clear();
+        ui.computerPassageView.clear();
 
         ui.playerProgress.setProgress(0);
         ui.computerProgress.setProgress(0);
@@ -1491,42 +1509,7 @@ public class GameController {
     }
 
     private void setPassageFromNetwork(String passage) {
-        while (passageSequence.size() <= 0) {
-            passageSequence.add(passage);
-            usedPassagesInRound.add(passage);
-        }
-        playerPassage = passage;
-        computerPassage = passage;
-        playerPassageIndex = 0;
-        computerPassageIndex = 0;
-        fadeIndex = 0;
-        computerFadeIndex = 0;
-        computerPassageDone = false;
-
-        Platform.runLater(() -> {
-            // Build player TextFlow
-            ui.targetTextFlow.getChildren().clear();
-            for (char c : playerPassage.toCharArray()) {
-                Text t = new Text(String.valueOf(c));
-                t.setFill(Color.WHITE);
-                t.setStyle("-fx-font-family: Consolas; -fx-font-size: 18;");
-                ui.targetTextFlow.getChildren().add(t);
-            }
-
-            // Build computer TextFlow
-            ui.computerTextFlow.getChildren().clear();
-            for (char c : computerPassage.toCharArray()) {
-                Text t = new Text(String.valueOf(c));
-                t.setFill(Color.GRAY);
-                t.setStyle("-fx-font-family: Consolas; -fx-font-size: 18;");
-                ui.computerTextFlow.getChildren().add(t);
-            }
-
-            ui.inputField.clear();
-            ui.playerProgress.setProgress(0);
-            ui.computerProgress.setProgress(0);
-            lastCorrectCount = 0;
-        });
+        engine.useSharedPassage(passage);
     }
 
     // Host a multiplayer match (called from Main)
@@ -1536,31 +1519,40 @@ public class GameController {
         multiplayerPort = port;
         multiplayerRoundSeconds = roundSeconds;
         currentDifficulty = difficulty;
-        this.mode = mode;
+        engine.setMode(mode);
 
         Platform.runLater(() -> {
             prepareMultiplayerLobbyUI("Waiting for opponent...");
-            ui.logBox.getChildren().add(new Label("Hosting on port " + multiplayerPort));
+            updateBus.publishLog("Hosting on port " + multiplayerPort);
         });
 
-        new Thread(() -> {
+        NetworkSession session = newNetworkSession("host");
+        session.start(() -> {
+            // Ours until NetworkOpponent takes it over
+            ProgressChannel udp = null;
             try {
                 mpServer = new MultiplayerServer(multiplayerPort); // blocks until client connects
-                Platform.runLater(() -> ui.logBox.getChildren().add(new Label("Client connected!")));
-
-                // Generate & share passage and config using current mode and avoid repeats
-                String text = wordGenerator.getRandomPassage(this.mode, usedPassagesInRound);
-                usedPassagesInRound.add(text);
-                Platform.runLater(() -> setPassageFromNetwork(text));
-                mpServer.send("TEXT:" + text);
-                mpServer.send("CFG:" + multiplayerRoundSeconds + ":" + currentDifficulty + ":" + this.mode);
+                udp = openProgressChannel();
+                mpServer.acceptHello(udp == null ? 0 : udp.getLocalPort());
+                updateBus.publishLog("Client connected!");
+
+                // Generate & share passage and config using current mode and avoid repeats; the engine is only
+                // touched on the FX thread, so pick the passage there and wait for it
+                String text = CompletableFuture.supplyAsync(() -> {
+                    String passage = engine.nextSharedPassage();
+                    setPassageFromNetwork(passage);
+                    return passage;
+                }, Platform::runLater).get();
+                mpServer.sendText(text);
+                mpServer.sendConfig(multiplayerRoundSeconds, currentDifficulty, mode);
 
                 // Start receiver loop for opponent updates
-                networkOpponent = new NetworkOpponent(this, mpServer, null, true);
-                new Thread(networkOpponent).start();
+                networkOpponent = new NetworkOpponent(this, mpServer, udp);
+                udp = null;
+                networkOpponent.start(session);
 
                 // Signal start
-                mpServer.send("START");
+                mpServer.send(WireProtocol.START);
                 multiplayerActive = true;
 
                 Platform.runLater(() -> {
@@ -1569,10 +1561,39 @@ public class GameController {
                     startGameWithCountdown(multiplayerRoundSeconds, currentDifficulty);
                 });
             } catch (Exception e) {
+                closeProgressChannel(udp);
+                // Cancelled by safeNetworkCleanup
+                if (session.isClosed()) return;
                 e.printStackTrace();
                 Platform.runLater(() -> ui.bottomInstructionLabel.setText("Host error: " + e.getMessage()));
             }
-        }).start();
+        });
+    }
+
+    // Replaces (and cancels) the previous match's threads, if any
+    private NetworkSession newNetworkSession(String name) {
+        if (networkSession != null) networkSession.close();
+        networkSession = new NetworkSession(name);
+        return networkSession;
+    }
+
+    // Optional UDP progress (typeshi.udpProgress); the match falls back to TCP without it
+    private static ProgressChannel openProgressChannel() {
+        if (!ProgressChannel.enabled()) return null;
+        try {
+            return new ProgressChannel();
+        } catch (IOException e) {
+            System.err.println("UDP progress unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // A channel the match never got to use
+    private static void closeProgressChannel(ProgressChannel udp) {
+        if (udp == null) return;
+        try {
+            udp.close();
+        } catch (IOException ignored) {}
     }
 
     // Join a hosted match (called from Main)
@@ -1583,31 +1604,48 @@ public class GameController {
 
         Platform.runLater(() -> prepareMultiplayerLobbyUI("Connecting to host..."));
 
-        new Thread(() -> {
+        NetworkSession session = newNetworkSession("join");
+        session.start(() -> {
+            // Ours until NetworkOpponent takes it over
+            ProgressChannel udp = null;
             try {
                 mpClient = new MultiplayerClient(ip, multiplayerPort);
-                try { mpClient.send("READY"); } catch (Exception ignored) {}
+                udp = openProgressChannel();
+                mpClient.sendHello(null, udp == null ? 0 : udp.getLocalPort());
 
-                // Wait for TEXT, CFG, START
-                while (true) {
-                    String msg = mpClient.receive();
+                // Wait for HELLO, TEXT, CFG, START
+                boolean started = false;
+                while (!started) {
+                    WireProtocol.Decoder msg = mpClient.receive();
                     if (msg == null) throw new RuntimeException("Disconnected");
-                    if (msg.startsWith("TEXT:")) {
-                        String text = msg.substring(5);
-                        Platform.runLater(() -> setPassageFromNetwork(text));
-                    } else if (msg.startsWith("CFG:")) {
-                        String[] p = msg.split(":");
-                        multiplayerRoundSeconds = Integer.parseInt(p[1]);
-                        currentDifficulty = Integer.parseInt(p[2]);
-                        this.mode = Integer.parseInt(p[3]);
-                    } else if (msg.equals("START")) {
-                        break;
+                    switch (msg.opcode()) {
+                        case WireProtocol.HELLO:
+                            mpClient.checkHello(msg);
+                            break;
+                        case WireProtocol.TEXT:
+                            String text = msg.text();
+                            Platform.runLater(() -> setPassageFromNetwork(text));
+                            break;
+                        case WireProtocol.CFG:
+                            multiplayerRoundSeconds = msg.first();
+                            currentDifficulty = msg.second();
+                            int mode = msg.third();
+                            Platform.runLater(() -> engine.setMode(mode));
+                            break;
+                        case WireProtocol.START:
+                            started = true;
+                            break;
+                        case WireProtocol.DISCONNECT:
+                            throw new RuntimeException("Host refused this game version");
+                        default:
+                            break;
                     }
                 }
 
                 // Start receiver loop
-                networkOpponent = new NetworkOpponent(this, null, mpClient, false);
-                new Thread(networkOpponent).start();
+                networkOpponent = new NetworkOpponent(this, mpClient, udp);
+                udp = null;
+                networkOpponent.start(session);
 
                 multiplayerActive = true;
 
@@ -1617,10 +1655,12 @@ public class GameController {
                     startGameWithCountdown(multiplayerRoundSeconds, currentDifficulty);
                 });
             } catch (Exception e) {
+                closeProgressChannel(udp);
+                if (session.isClosed()) return;
                 e.printStackTrace();
                 Platform.runLater(() -> ui.bottomInstructionLabel.setText("Join failed: " + e.getMessage()));
             }
-        }).start();
+        });
     }
 
     /**
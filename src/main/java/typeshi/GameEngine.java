@@ -0,0 +1,521 @@
+package typeshi;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Match rules without any JavaFX: passage sequence, typing state, scoring, fading, rounds and finishes
+ *
+ * The engine is single-threaded and event driven. Callers feed it player input, opponent keystrokes and fade ticks
+ * and it reports what changed through a {@link Listener}; {@link GameController} is the JavaFX adapter on top of it,
+ * while simulations can drive it directly and run whole matches headless
+ */
+public class GameEngine {
+
+    public static final int PLAYER = 0;
+    public static final int OPPONENT = 1;
+
+    /**
+     * State deltas reported by the engine, on the thread that fed it the event
+     * Every method has an empty default so headless callers only implement what they need
+     */
+    public interface Listener {
+        /** A side switched to a new passage (also fired for both sides on resets) */
+        default void passageStarted(int side, String passage) {}
+
+        /** Player cells in model.changes() changed state or visibility; the list is cleared after this call */
+        default void playerCellsChanged(TypingModel model) {}
+
+        /** Player deleted input; position is the new typed length */
+        default void playerRetreated(int position, int errors) {}
+
+        /** Player typed forward; position is the new typed length (capped at the passage length) */
+        default void playerAdvanced(int position, int errors) {}
+
+        /** Player typed newErrors wrong characters with the last input */
+        default void playerMistyped(int newErrors) {}
+
+        /** Medium/Hard: remove the last letter of the word just completed from the input, then call releaseInput */
+        default void autoBackspaceRequested() {}
+
+        /** Opponent cursor moved; cells between previous and position need restyling */
+        default void opponentMoved(int previous, int position, boolean lastWasCorrect, boolean hitHidden) {}
+
+        /** Hard: opponent cells [from, to) were hidden */
+        default void opponentCellsHidden(int from, int to) {}
+
+        default void passageFinished(int side, int finishedCount) {}
+
+        default void scoresChanged() {}
+    }
+
+    private final WordGenerator wordGenerator;
+    private final Listener listener;
+    private final ScoreManager scores = new ScoreManager();
+    private final KeystrokeJournal journal;
+
+    // 1 = Easy, 2 = Medium, 3 = Hard
+    private int mode = 1;
+    private boolean multiplayer = false;
+    private boolean running = false;
+    private int totalRounds = 1;
+    private int currentRound = 1;
+
+    // Master seed of the match; when set, each round's passages come from its own MatchSeed stream
+    private long seed;
+    private boolean seeded = false;
+    // Records the inputs of the running round for a replay (null = not recording)
+    private MatchRecording.Recorder recorder;
+
+    // Shared ordered sequence of passages; repeats are avoided within a round
+    private final List<String> passageSequence = new ArrayList<>();
+    private final Set<String> usedPassagesInRound = new HashSet<>();
+    private int playerPassageIndex = 0;
+    private int opponentPassageIndex = 0;
+
+    // Player side
+    private TypingModel playerModel;
+    private int pendingEditStart = Integer.MAX_VALUE;
+    private int lastTypedLength = 0;
+    private int lastCorrectCount = 0;
+    private int playerCumulativeErrors = 0;
+    private int playerFinishedCount = 0;
+    // Forward input is ignored until the view has applied an input change the engine asked for
+    private boolean inputLocked = false;
+    // The pending locked change is the view clearing a finished passage, not an auto-backspace
+    private boolean clearingFinished = false;
+    // Positions auto-backspaced already (Medium/Hard), each happens only once
+    private final Set<Integer> backspacedPositions = new HashSet<>();
+
+    // Opponent side (AI or remote player)
+    private String opponentPassage = "";
+    private boolean[] opponentHidden = new boolean[0];
+    // Cells the opponent typed wrong; a coalesced update only says how many
+    private boolean[] opponentMissed = new boolean[0];
+    private int opponentFadeIndex = 0;
+    private int opponentPosition = 0;
+    private int opponentErrors = 0;
+    private boolean opponentPassageDone = false;
+    private int opponentFinishedCount = 0;
+
+    public GameEngine(WordGenerator wordGenerator, Listener listener) {
+        this(wordGenerator, listener, KeystrokeJournal.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param journalCapacity keystrokes kept in the journal; simulations where only AIs type can keep it tiny
+     */
+    public GameEngine(WordGenerator wordGenerator, Listener listener, int journalCapacity) {
+        this.wordGenerator = wordGenerator;
+        this.listener = listener == null ? new Listener() {} : listener;
+        this.journal = new KeystrokeJournal(journalCapacity);
+    }
+
+    /* ---------- SETUP ---------- */
+
+    public void setMode(int mode) { this.mode = mode; }
+    public int getMode() { return mode; }
+
+    public void setMultiplayer(boolean multiplayer) { this.multiplayer = multiplayer; }
+    public boolean isMultiplayer() { return multiplayer; }
+
+    public void setTotalRounds(int total) {
+        this.totalRounds = Math.max(1, total);
+        this.currentRound = 1;
+    }
+
+    public int getTotalRounds() { return totalRounds; }
+    public int getCurrentRound() { return currentRound; }
+
+    /**
+     * Replay: continue as if the earlier rounds had been played
+     */
+    public void setCurrentRound(int round) {
+        this.currentRound = Math.max(1, round);
+        this.totalRounds = Math.max(totalRounds, currentRound);
+    }
+
+    /**
+     * Draw passages from the seed's stream for each round, starting with the next reset
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.seeded = true;
+    }
+
+    public long getSeed() { return seed; }
+    public boolean isSeeded() { return seeded; }
+
+    /**
+     * Report every outside input from now on to the recorder (null stops recording)
+     */
+    public void setRecorder(MatchRecording.Recorder recorder) { this.recorder = recorder; }
+
+    /**
+     * Start a fresh passage sequence; both sides begin on its first passage
+     */
+    public void resetPassages() {
+        if (seeded) wordGenerator.setSeed(MatchSeed.derive(seed, currentRound, MatchSeed.PASSAGES));
+        passageSequence.clear();
+        usedPassagesInRound.clear();
+        playerPassageIndex = 0;
+        opponentPassageIndex = 0;
+
+        String first = passageAt(0);
+        startPlayerPassage(first);
+        startOpponentPassage(first);
+    }
+
+    /**
+     * Start a fresh sequence that begins with these passages (e.g. a ghost recording's), continuing with random
+     * ones once they run out
+     */
+    public void usePassageSequence(List<String> passages) {
+        passageSequence.clear();
+        usedPassagesInRound.clear();
+        passageSequence.addAll(passages);
+        usedPassagesInRound.addAll(passages);
+        playerPassageIndex = 0;
+        opponentPassageIndex = 0;
+
+        String first = passageAt(0);
+        startPlayerPassage(first);
+        startOpponentPassage(first);
+    }
+
+    /**
+     * Multiplayer: both sides type the passage chosen by the host
+     */
+    public void useSharedPassage(String passage) {
+        if (passageSequence.isEmpty()) {
+            passageSequence.add(passage);
+            usedPassagesInRound.add(passage);
+        }
+        playerPassageIndex = 0;
+        opponentPassageIndex = 0;
+        startPlayerPassage(passage);
+        startOpponentPassage(passage);
+    }
+
+    /**
+     * Host: pick a passage for the current mode not used in this round yet
+     */
+    public String nextSharedPassage() {
+        String passage = wordGenerator.getRandomPassage(mode, usedPassagesInRound);
+        usedPassagesInRound.add(passage);
+        return passage;
+    }
+
+    /* ---------- ROUNDS ---------- */
+
+    public void startRound() {
+        running = true;
+
+        // Scores accumulate over the rounds of a match
+        if (currentRound == 1) scores.reset();
+
+        playerFinishedCount = 0;
+        opponentFinishedCount = 0;
+        lastCorrectCount = 0;
+        listener.scoresChanged();
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public boolean isRunning() { return running; }
+
+    /** Singleplayer matches continue with another round until totalRounds is reached */
+    public boolean hasNextRound() {
+        return !multiplayer && currentRound < totalRounds;
+    }
+
+    /**
+     * Move to the next round with fresh passages, keeping the scores
+     */
+    public void advanceRound() {
+        currentRound++;
+        resetPassages();
+    }
+
+    /* ---------- PLAYER ---------- */
+
+    public void playerInput(CharSequence typed, int editStart) {
+        playerInput(typed, editStart, System.nanoTime());
+    }
+
+    /**
+     * Apply the full text of the input field
+     * @param editStart lowest index touched since the previous call
+     * @param nanos when the input happened, recorded in the keystroke journal
+     */
+    public void playerInput(CharSequence typed, int editStart, long nanos) {
+        if (recorder != null) recorder.input(nanos, typed, editStart);
+        if (playerModel == null) return;
+        pendingEditStart = Math.min(pendingEditStart, editStart);
+        String passage = playerModel.getPassage();
+
+        if (typed.length() < lastTypedLength) {
+            // While locked the deletion is the engine's own: auto-backspace is journaled as such, clearing a
+            // finished passage is not journaled at all
+            byte flag = inputLocked ? KeystrokeJournal.AUTO_DELETE : KeystrokeJournal.BACKSPACE;
+            for (int i = lastTypedLength - 1; i >= typed.length() && !clearingFinished; i--) {
+                journal.record(nanos, KeystrokeJournal.BACKSPACE_CODEPOINT, expectedAt(passage, i), flag);
+            }
+            lastTypedLength = typed.length();
+
+            // Deletions only clear cells, they never charge errors
+            playerModel.update(typed, consumeEditStart(), false);
+            publishPlayerChanges();
+            listener.playerRetreated(Math.min(typed.length(), playerModel.length()), playerCumulativeErrors);
+            return;
+        }
+
+        if (!running || inputLocked) return;
+
+        // Every character from the edit point on counts as typed now
+        for (int i = Math.max(0, Math.min(pendingEditStart, lastTypedLength)); i < typed.length(); i++) {
+            char c = typed.charAt(i);
+            char expected = expectedAt(passage, i);
+            journal.record(nanos, c, expected, c == expected ? KeystrokeJournal.CORRECT : KeystrokeJournal.ERROR);
+        }
+
+        boolean delayedFeedback = mode == 2 || mode == 3;
+        int newErrors = playerModel.update(typed, consumeEditStart(), delayedFeedback);
+        if (newErrors > 0) {
+            playerCumulativeErrors += newErrors;
+            scores.setPlayerErrors(playerCumulativeErrors);
+        }
+        publishPlayerChanges();
+        if (newErrors > 0) listener.playerMistyped(newErrors);
+
+        int correctCount = playerModel.getCorrectCount();
+        scores.setPlayerProgress(playerModel.length() == 0 ? 0.0 : (double) correctCount / playerModel.length());
+        int deltaCorrect = correctCount - lastCorrectCount;
+        if (deltaCorrect > 0) scores.awardPlayer(deltaCorrect);
+        lastCorrectCount = correctCount;
+        listener.scoresChanged();
+
+        // MEDIUM & HARD: auto-backspace after completing a correct word (once per position only)
+        if (delayedFeedback && isCorrectWordEnd(typed)) {
+            int backspacePosition = typed.length() - 2;
+            if (typed.length() > 1 && backspacedPositions.add(backspacePosition)) {
+                inputLocked = true;
+                listener.autoBackspaceRequested();
+            }
+        }
+
+        lastTypedLength = typed.length();
+        listener.playerAdvanced(Math.min(typed.length(), playerModel.length()), playerCumulativeErrors);
+
+        if (playerModel.isComplete()) {
+            journal.record(nanos, 0, (char) 0, KeystrokeJournal.PASSAGE_END);
+            playerFinishedCount++;
+            listener.passageFinished(PLAYER, playerFinishedCount);
+
+            playerPassageIndex++;
+            startPlayerPassage(passageAt(playerPassageIndex));
+            // The view still has to clear the old input
+            inputLocked = true;
+            clearingFinished = true;
+        }
+    }
+
+    /**
+     * The view applied the input change requested by the engine (auto-backspace, clearing a finished passage)
+     */
+    public void releaseInput() {
+        if (recorder != null) recorder.release();
+        inputLocked = false;
+        clearingFinished = false;
+    }
+
+    /**
+     * Medium/Hard: a delayed mistake becomes visible
+     */
+    public void revealPlayerError(int index) {
+        if (playerModel != null && playerModel.revealError(index)) publishPlayerChanges();
+    }
+
+    /* ---------- OPPONENT ---------- */
+
+    /**
+     * AI mistyped the character at index; report the mistakes of coalesced keystrokes before their
+     * {@link #opponentTyped}, the last keystroke's own mistake comes with it
+     */
+    public void opponentMissed(int index) {
+        if (index >= 0 && index < opponentMissed.length) opponentMissed[index] = true;
+    }
+
+    /**
+     * AI keystrokes; several may have been coalesced since the previous call
+     */
+    public void opponentTyped(int position, int errors, boolean lastWasCorrect) {
+        int total = opponentHidden.length;
+        scores.setComputerProgress(total == 0 ? 0.0 : (double) position / total);
+        scores.setComputerErrors(errors);
+        if (!lastWasCorrect) opponentMissed(position - 1);
+
+        // Award each correct keystroke since the previous call that landed on a visible character, as if scored
+        // one at a time: a mistake on a hidden cell costs nothing it had earned
+        int previous = opponentPosition;
+        int award = 0;
+        for (int i = Math.max(0, previous); i < Math.min(position, total); i++) {
+            if (!opponentHidden[i] && !opponentMissed[i]) award++;
+        }
+        if (award > 0) scores.awardComputer(award);
+        opponentPosition = position;
+        opponentErrors = errors;
+
+        // Typing a character hidden by HARD fading counts as a miss for the shake
+        boolean hitHidden = position > 0 && position - 1 < total && opponentHidden[position - 1];
+
+        listener.scoresChanged();
+        listener.opponentMoved(previous, position, lastWasCorrect, hitHidden);
+    }
+
+    /**
+     * Multiplayer: absolute progress of the remote player; the score stays hidden until the end
+     */
+    public void opponentProgress(int position, int errors) {
+        int total = opponentHidden.length;
+        int pos = Math.max(0, Math.min(position, total));
+        int previous = Math.min(opponentPosition, total);
+        opponentPosition = pos;
+        opponentErrors = Math.max(0, errors);
+        listener.opponentMoved(previous, pos, true, false);
+    }
+
+    /**
+     * Opponent completed its passage and moves to the next one in the shared sequence
+     * @return false when ignored (match not running, or this passage was already handled)
+     */
+    public boolean opponentFinished() {
+        if (!running) return false;
+        if (!multiplayer) {
+            if (opponentPassageDone) return false;
+            opponentPassageDone = true;
+        }
+        if (recorder != null) recorder.opponentFinished();
+
+        opponentFinishedCount++;
+        listener.passageFinished(OPPONENT, opponentFinishedCount);
+
+        opponentPassageIndex++;
+        startOpponentPassage(passageAt(opponentPassageIndex));
+        return true;
+    }
+
+    /* ---------- HARD FADE ---------- */
+
+    /**
+     * Hide the next word of both passages
+     */
+    public void fadeNextWords() {
+        if (recorder != null) recorder.fade();
+        if (playerModel != null) {
+            playerModel.hideNextWord();
+            publishPlayerChanges();
+        }
+
+        while (opponentFadeIndex < opponentHidden.length && opponentHidden[opponentFadeIndex]) opponentFadeIndex++;
+        int start = opponentFadeIndex;
+        while (opponentFadeIndex < opponentHidden.length) {
+            opponentHidden[opponentFadeIndex] = true;
+            char ch = opponentPassage.charAt(opponentFadeIndex);
+            opponentFadeIndex++;
+            if (ch == ' ') break;
+        }
+        if (opponentFadeIndex > start) listener.opponentCellsHidden(start, opponentFadeIndex);
+    }
+
+    /* ---------- STATE ---------- */
+
+    public ScoreManager getScores() { return scores; }
+    /** Every player keystroke of this session */
+    public KeystrokeJournal getJournal() { return journal; }
+    public TypingModel getPlayerModel() { return playerModel; }
+    public String getPlayerPassage() { return playerModel == null ? "" : playerModel.getPassage(); }
+    public int getPlayerErrors() { return playerCumulativeErrors; }
+    public int getPlayerFinishedCount() { return playerFinishedCount; }
+    /** Passages the player has started this round, in order */
+    public List<String> getPlayerPassages() {
+        return List.copyOf(passageSequence.subList(0, Math.min(playerPassageIndex + 1, passageSequence.size())));
+    }
+
+    public String getOpponentPassage() { return opponentPassage; }
+    public int getOpponentPosition() { return opponentPosition; }
+    public boolean isOpponentHidden(int index) { return opponentHidden[index]; }
+    public int getOpponentFinishedCount() { return opponentFinishedCount; }
+
+    /* ---------- INTERNALS ---------- */
+
+    // Generate or reuse the passage at index, avoiding repeats within the current round
+    private String passageAt(int index) {
+        while (index >= passageSequence.size()) {
+            String p = wordGenerator.getRandomPassage(mode, usedPassagesInRound);
+            passageSequence.add(p);
+            usedPassagesInRound.add(p);
+        }
+        return passageSequence.get(index);
+    }
+
+    private void startPlayerPassage(String passage) {
+        playerModel = new TypingModel(passage);
+        playerCumulativeErrors = 0;
+        lastCorrectCount = 0;
+        pendingEditStart = Integer.MAX_VALUE;
+        inputLocked = false;
+        clearingFinished = false;
+        listener.passageStarted(PLAYER, passage);
+    }
+
+    private void startOpponentPassage(String passage) {
+        opponentPassage = passage;
+        opponentHidden = new boolean[passage.length()];
+        opponentMissed = new boolean[passage.length()];
+        opponentFadeIndex = 0;
+        opponentPosition = 0;
+        opponentErrors = 0;
+        opponentPassageDone = false;
+        listener.passageStarted(OPPONENT, passage);
+    }
+
+    private static char expectedAt(String passage, int index) {
+        return index < passage.length() ? passage.charAt(index) : 0;
+    }
+
+    private int consumeEditStart() {
+        int start = pendingEditStart;
+        pendingEditStart = Integer.MAX_VALUE;
+        return start;
+    }
+
+    private void publishPlayerChanges() {
+        listener.playerCellsChanged(playerModel);
+        playerModel.changes().clear();
+    }
+
+    // Input ends with a space and the word before it matches the passage
+    private boolean isCorrectWordEnd(CharSequence typed) {
+        int length = typed.length();
+        if (length == 0 || typed.charAt(length - 1) != ' ') return false;
+
+        String passage = playerModel.getPassage();
+        int wordStart = lastIndexOfSpace(typed, length - 2) + 1;
+        for (int i = wordStart; i < length - 1; i++) {
+            if (i >= passage.length() || typed.charAt(i) != passage.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static int lastIndexOfSpace(CharSequence s, int from) {
+        for (int i = Math.min(from, s.length() - 1); i >= 0; i--) {
+            if (s.charAt(i) == ' ') return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,31 @@
+package typeshi;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock and timer source for everything that runs on game time: the AI ticks, the countdown and the HARD fade
+ *
+ * {@link ExecutorGameScheduler} runs on real time and background threads; {@link VirtualGameScheduler} runs tasks
+ * on the caller's thread in simulated time, so whole matches and test suites finish without waiting
+ */
+public interface GameScheduler {
+
+    /**
+     * Handle to a scheduled task
+     */
+    interface Task {
+        void cancel();
+
+        boolean isCancelled();
+    }
+
+    /** Current time in nanoseconds, comparable only with other values from the same scheduler */
+    long nanoTime();
+
+    Task schedule(Runnable task, long delay, TimeUnit unit);
+
+    Task scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit);
+
+    /** Cancel everything and release the scheduler's threads, if any */
+    void shutdownNow();
+}
@@ -0,0 +1,163 @@
+package typeshi;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Opponent that replays a {@link GhostRecording} of an earlier player run at its original cadence
+ *
+ * Keystrokes are reported through the same {@link ComputerOpponent.Listener} as the AI: typed characters advance
+ * the position, errors also count a mistake, backspaces move back and a finished passage calls
+ * onComputerFinished. Unlike the AI one ghost spans the whole recording, so it keeps going into the next passage
+ * by itself. Events are read lazily through a small fixed buffer; memory does not grow with the recording's length
+ */
+public class GhostOpponent implements OpponentDriver.Opponent, Closeable {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final InputStream in;
+    private final GhostRecording.Header header;
+    private final ComputerOpponent.Listener listener;
+    private final LongSupplier clock;
+
+    private volatile boolean running = true;
+    private int passageIndex = 0;
+    private int position = 0;
+    private int errors = 0;
+
+    // Next event, already read from the stream
+    private long pendingDelayNanos;
+    private byte pendingFlag;
+
+    // Ticked mode
+    private boolean started = false;
+    private long lastTickNanos = 0;
+    private long remainingDelayNanos = 0;
+
+    /**
+     * @param clock nanosecond time source for ticked mode, e.g. {@link GameScheduler#nanoTime()}
+     */
+    public static GhostOpponent open(Path file, ComputerOpponent.Listener listener, LongSupplier clock)
+            throws IOException {
+        return new GhostOpponent(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE), listener, clock);
+    }
+
+    public GhostOpponent(InputStream in, ComputerOpponent.Listener listener, LongSupplier clock) throws IOException {
+        this.in = in;
+        this.listener = listener;
+        this.clock = clock;
+        try {
+            this.header = GhostRecording.readHeader(new DataInputStream(in));
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        readNext();
+        remainingDelayNanos = pendingDelayNanos;
+    }
+
+    /** Passages of the recorded run, in order; the game should give the player the same ones */
+    public List<String> getPassages() { return header.getPassages(); }
+
+    public int getMode() { return header.getMode(); }
+
+    @Override
+    public void run() {
+        if (!running) return;
+
+        long now = clock.getAsLong();
+        if (!started) {
+            started = true;
+            lastTickNanos = now;
+        }
+        remainingDelayNanos -= now - lastTickNanos;
+        lastTickNanos = now;
+
+        while (running && remainingDelayNanos <= 0) {
+            long next = typeNext();
+            if (next < 0) return;
+            remainingDelayNanos += next;
+        }
+    }
+
+    @Override
+    public long firstDelayNanos() {
+        return running ? pendingDelayNanos : 0;
+    }
+
+    @Override
+    public synchronized long typeNext() {
+        if (!running) return -1;
+
+        int length = passageIndex < header.passages.size() ? header.passages.get(passageIndex).length() : 0;
+        switch (pendingFlag) {
+            case KeystrokeJournal.CORRECT:
+            case KeystrokeJournal.ERROR:
+                boolean correct = pendingFlag == KeystrokeJournal.CORRECT;
+                if (!correct) errors++;
+                position = Math.min(length, position + 1);
+                listener.updateComputerTyping(position, errors, correct);
+                break;
+            case KeystrokeJournal.BACKSPACE:
+            case KeystrokeJournal.AUTO_DELETE:
+                position = Math.max(0, position - 1);
+                listener.updateComputerTyping(position, errors, true);
+                break;
+            case KeystrokeJournal.PASSAGE_END:
+                if (position < length) listener.updateComputerTyping(length, errors, true);
+                passageIndex++;
+                position = 0;
+                errors = 0;
+                listener.onComputerFinished();
+                break;
+            default:
+                break;
+        }
+
+        readNext();
+        return running ? pendingDelayNanos : -1;
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        try {
+            in.close();
+        } catch (IOException ignored) {}
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    public boolean isRunning() { return running; }
+
+    int getPosition() { return position; }
+
+    int getPassageIndex() { return passageIndex; }
+
+    // Load the following event; the end of the recording (or a damaged tail) stops the ghost
+    private void readNext() {
+        try {
+            long event = GhostRecording.readEvent(in);
+            if (event < 0) {
+                stop();
+                return;
+            }
+            pendingDelayNanos = GhostRecording.deltaNanos(event);
+            pendingFlag = GhostRecording.flag(event);
+            // The typed codepoint of a mistake is not needed for the replay itself
+            if (pendingFlag == KeystrokeJournal.ERROR) GhostRecording.readVarint(in);
+        } catch (IOException e) {
+            stop();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package typeshi;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary file format for a recorded player run, replayed by {@link GhostOpponent}
+ *
+ * Layout (big-endian): magic "TSGR", version byte, mode byte, varint passage count and the passages as modified
+ * UTF-8, then one event per keystroke until end of file. An event is a varint of
+ * (microseconds since the previous event &lt;&lt; 3 | journal flag); ERROR events are followed by a varint of the
+ * typed codepoint. Correct characters are implied by the passage, so a typical keystroke takes two bytes
+ */
+public final class GhostRecording {
+
+    private static final int MAGIC = 0x54534752; // "TSGR"
+    private static final int VERSION = 1;
+    private static final int FLAG_BITS = 3;
+    private static final int FLAG_MASK = (1 << FLAG_BITS) - 1;
+
+    private GhostRecording() {}
+
+    /**
+     * Write the journal entries from fromSequence on as a recording
+     * @param startNanos journal time the run started; the first keystroke is replayed this long after the start
+     * @param passages the passages of the run in order
+     */
+    public static void write(Path file, KeystrokeJournal journal, long fromSequence, long startNanos, int mode,
+                             List<String> passages) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(out, journal, fromSequence, startNanos, mode, passages);
+        }
+    }
+
+    public static void write(OutputStream out, KeystrokeJournal journal, long fromSequence, long startNanos, int mode,
+                             List<String> passages) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeByte(mode);
+        writeVarint(data, passages.size());
+        for (String passage : passages) data.writeUTF(passage);
+
+        KeystrokeJournal.Cursor cursor = journal.cursor();
+        cursor.seek(fromSequence);
+        long previous = startNanos;
+        while (cursor.next()) {
+            long deltaMicros = Math.max(0, cursor.time() - previous) / 1_000;
+            previous += deltaMicros * 1_000;
+            writeVarint(data, deltaMicros << FLAG_BITS | cursor.flag());
+            if (cursor.flag() == KeystrokeJournal.ERROR) writeVarint(data, cursor.codepoint());
+        }
+        data.flush();
+    }
+
+    /**
+     * Header of a recording; the events follow in the stream
+     */
+    public static final class Header {
+        final int mode;
+        final List<String> passages;
+
+        Header(int mode, List<String> passages) {
+            this.mode = mode;
+            this.passages = passages;
+        }
+
+        public int getMode() { return mode; }
+        public List<String> getPassages() { return passages; }
+    }
+
+    /**
+     * Whether file holds a recording whose header reads back; false for a missing or damaged file
+     */
+    public static boolean isReadable(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            readHeader(in);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static Header readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not a ghost recording");
+        int version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Unsupported ghost recording version " + version);
+        int mode = in.readUnsignedByte();
+        int count = (int) readVarint(in);
+        List<String> passages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) passages.add(in.readUTF());
+        return new Header(mode, List.copyOf(passages));
+    }
+
+    static long deltaNanos(long event) {
+        return (event >>> FLAG_BITS) * 1_000;
+    }
+
+    static byte flag(long event) {
+        return (byte) (event & FLAG_MASK);
+    }
+
+    /**
+     * @return the next varint, or -1 at a clean end of stream
+     */
+    static long readEvent(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) return -1;
+        return readVarint(in, b);
+    }
+
+    static long readVarint(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) throw new EOFException();
+        return readVarint(in, b);
+    }
+
+    private static long readVarint(InputStream in, int first) throws IOException {
+        long value = first & 0x7F;
+        int shift = 7;
+        int b = first;
+        while ((b & 0x80) != 0) {
+            b = in.read();
+            if (b < 0) throw new EOFException("Truncated varint");
+            if (shift > 63) throw new IOException("Varint too long");
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,133 @@
+package typeshi;
+
+import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+/**
+ * Pre-rasterized monospace glyphs, one row band per colour, blitted cell by cell by {@link CanvasPassageView}
+ *
+ * Covers printable ASCII up front; other characters (em dash etc.) are added the first time a passage uses them,
+ * which re-rasterizes the image once. Must be used on the JavaFX thread
+ */
+final class GlyphAtlas {
+
+    private static final int GLYPHS_PER_ROW = 16;
+
+    private static GlyphAtlas shared;
+
+    private final Font font;
+    private final Color[] colors;
+    private final double cellWidth;
+    private final double cellHeight;
+
+    private char[] extraGlyphs = new char[0];
+    private int glyphRows;
+    private Image image;
+
+    private GlyphAtlas(Font font, Color[] colors) {
+        this.font = font;
+        this.colors = colors;
+
+        Text probe = new Text("M");
+        probe.setFont(font);
+        this.cellWidth = Math.ceil(probe.getLayoutBounds().getWidth());
+        this.cellHeight = Math.ceil(probe.getLayoutBounds().getHeight());
+
+        rasterize();
+    }
+
+    /**
+     * Atlas shared by every canvas passage: Consolas 18 in the colours used by both sides
+     */
+    static GlyphAtlas shared() {
+        if (shared == null) {
+            shared = new GlyphAtlas(Font.font("Consolas", 18),
+                    new Color[]{Color.WHITE, Color.GRAY, Color.LIMEGREEN, Color.RED});
+        }
+        return shared;
+    }
+
+    double cellWidth() { return cellWidth; }
+
+    double cellHeight() { return cellHeight; }
+
+    /**
+     * Row band for a colour, or -1 when the colour was not rasterized
+     */
+    int colorIndex(Color color) {
+        for (int i = 0; i < colors.length; i++) {
+            if (colors[i].equals(color)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Make sure every character of the passage has a glyph
+     */
+    void ensureGlyphs(String passage) {
+        char[] extras = extraGlyphs;
+        int count = extras.length;
+        for (int i = 0; i < passage.length(); i++) {
+            char c = passage.charAt(i);
+            if (slotOf(c, extras, count) >= 0) continue;
+            if (count == extras.length) {
+                char[] grown = new char[Math.max(4, count * 2)];
+                System.arraycopy(extras, 0, grown, 0, count);
+                extras = grown;
+            }
+            extras[count++] = c;
+        }
+        if (count != extraGlyphs.length) {
+            char[] trimmed = new char[count];
+            System.arraycopy(extras, 0, trimmed, 0, count);
+            extraGlyphs = trimmed;
+            rasterize();
+        }
+    }
+
+    void draw(GraphicsContext gc, char c, int colorIndex, double x, double y) {
+        int slot = slotOf(c, extraGlyphs, extraGlyphs.length);
+        if (slot < 0 || colorIndex < 0) return;
+        double sx = (slot % GLYPHS_PER_ROW) * cellWidth;
+        double sy = (colorIndex * glyphRows + slot / GLYPHS_PER_ROW) * cellHeight;
+        gc.drawImage(image, sx, sy, cellWidth, cellHeight, x, y, cellWidth, cellHeight);
+    }
+
+    private static int slotOf(char c, char[] extras, int count) {
+        if (c >= 32 && c < 127) return c - 32;
+        for (int i = 0; i < count; i++) {
+            if (extras[i] == c) return 95 + i;
+        }
+        return -1;
+    }
+
+    private void rasterize() {
+        int glyphCount = 95 + extraGlyphs.length;
+        glyphRows = (glyphCount + GLYPHS_PER_ROW - 1) / GLYPHS_PER_ROW;
+
+        Canvas sheet = new Canvas(GLYPHS_PER_ROW * cellWidth, colors.length * glyphRows * cellHeight);
+        GraphicsContext gc = sheet.getGraphicsContext2D();
+        gc.setFont(font);
+        gc.setTextBaseline(VPos.TOP);
+
+        for (int color = 0; color < colors.length; color++) {
+            gc.setFill(colors[color]);
+            for (int slot = 0; slot < glyphCount; slot++) {
+                char c = slot < 95 ? (char) (32 + slot) : extraGlyphs[slot - 95];
+                double x = (slot % GLYPHS_PER_ROW) * cellWidth;
+                double y = (color * glyphRows + slot / GLYPHS_PER_ROW) * cellHeight;
+                gc.fillText(String.valueOf(c), x, y);
+            }
+        }
+
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        image = sheet.snapshot(params, null);
+    }
+}
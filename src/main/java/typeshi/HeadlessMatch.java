@@ -0,0 +1,177 @@
+package typeshi;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * Singleplayer match against the AI without any UI, on a {@link VirtualGameScheduler}
+ *
+ * Uses the same schedule as {@link GameController}: event-driven AI keystrokes, a one-second countdown and the
+ * HARD fade every 3 s; the legacy 100 ms AI tick is available for comparison. A two-minute match simulates in
+ * well under a millisecond; only the AI types.
+ *
+ * {@link #forRecording(MatchRecording)} replays a recorded round instead: passages and AI come from the recorded
+ * seed and the player's input, pauses, fades and AI passage swaps happen at their recorded times, so every run of
+ * the same recording is identical and reproduces the match's passages, AI keystrokes and player scoring
+ */
+public class HeadlessMatch implements ComputerOpponent.Listener {
+
+    private final VirtualGameScheduler scheduler = new VirtualGameScheduler();
+    private final GameEngine engine;
+    private final ComputerOpponentConfig config;
+    private final TypistModel model;
+    private final RandomGenerator random;
+
+    private final OpponentDriver driver;
+    private int remainingSeconds;
+
+    // Replay only
+    private MatchRecording recording;
+    private boolean paused = false;
+
+    public HeadlessMatch(WordGenerator wordGenerator, int mode, ComputerOpponentConfig config, RandomGenerator random) {
+        this(wordGenerator, mode, config, random, true);
+    }
+
+    /**
+     * @param eventDriven false to poll the AI every 100 ms as older builds did
+     */
+    public HeadlessMatch(WordGenerator wordGenerator, int mode, ComputerOpponentConfig config, RandomGenerator random,
+                         boolean eventDriven) {
+        this.driver = new OpponentDriver(scheduler, () -> paused, OpponentDriver.DEFAULT_TICK_MILLIS, eventDriven);
+        this.engine = new GameEngine(wordGenerator, null);
+        this.engine.setMode(mode);
+        this.config = config;
+        this.model = TypistModel.forConfig(config);
+        this.random = random;
+    }
+
+    /**
+     * Match that replays a recorded round; run it for recording.getDurationSeconds()
+     */
+    public static HeadlessMatch forRecording(MatchRecording recording) {
+        long seed = recording.getSeed();
+        HeadlessMatch match = new HeadlessMatch(new WordGenerator(), recording.getMode(),
+                ComputerOpponentConfig.fromLegacyDifficulty(recording.getDifficulty()),
+                MatchSeed.random(seed, recording.getRound(), MatchSeed.OPPONENT));
+        match.engine.setSeed(seed);
+        match.engine.setCurrentRound(recording.getRound());
+        match.recording = recording;
+        return match;
+    }
+
+    /**
+     * Replay a recording, e.g. under a profiler: HeadlessMatch file.tsmr [repetitions]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: HeadlessMatch <recording.tsmr> [repetitions]");
+            return;
+        }
+        MatchRecording recording = MatchRecording.read(Path.of(args[0]));
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        System.out.printf("Seed %s, round %d, mode %d, difficulty %d, %d s%n", MatchSeed.format(recording.getSeed()),
+                recording.getRound(), recording.getMode(), recording.getDifficulty(),
+                recording.getDurationSeconds());
+
+        long start = System.nanoTime();
+        ScoreManager scores = null;
+        for (int i = 0; i < repetitions; i++) {
+            scores = forRecording(recording).run(recording.getDurationSeconds());
+        }
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+        System.out.println("Player   " + scores.playerSummary());
+        System.out.println("Computer " + scores.computerSummary());
+        System.out.printf("%d replays in %d us%n", repetitions, elapsedMicros);
+    }
+
+    /**
+     * Play one round of durationSeconds and return the final scores
+     */
+    public ScoreManager run(int durationSeconds) {
+        engine.resetPassages();
+        engine.startRound();
+        remainingSeconds = durationSeconds;
+
+        startComputer();
+
+        scheduler.scheduleAtFixedRate(() -> {
+            if (paused) return;
+            remainingSeconds--;
+            if (remainingSeconds <= 0) {
+                engine.stop();
+                driver.stop();
+                scheduler.shutdownNow();
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+
+        // A recording has its own fade events
+        if (recording != null) {
+            scheduleNext(recording.events());
+        } else if (engine.getMode() == 3) {
+            scheduler.scheduleAtFixedRate(engine::fadeNextWords, 3, 3, TimeUnit.SECONDS);
+        }
+
+        scheduler.runUntil(() -> !engine.isRunning(), durationSeconds + 1L, TimeUnit.SECONDS);
+        return engine.getScores();
+    }
+
+    public GameEngine getEngine() { return engine; }
+
+    public GameScheduler getScheduler() { return scheduler; }
+
+    public OpponentDriver getOpponentDriver() { return driver; }
+
+    @Override
+    public void updateComputerTyping(int position, int errors, boolean lastWasCorrect) {
+        engine.opponentTyped(position, errors, lastWasCorrect);
+    }
+
+    @Override
+    public void onComputerFinished() {
+        // A recording says when the game moved the AI on
+        if (recording == null && engine.opponentFinished()) startComputer();
+    }
+
+    // One recorded event at a time, each at its own time on the virtual clock
+    private void scheduleNext(MatchRecording.Reader events) {
+        if (!events.next()) return;
+        long delay = Math.max(0, events.nanos() - scheduler.nanoTime());
+        scheduler.schedule(() -> {
+            apply(events);
+            scheduleNext(events);
+        }, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void apply(MatchRecording.Reader event) {
+        switch (event.kind()) {
+            case MatchRecording.INPUT:
+                engine.playerInput(event.text(), event.editStart(), event.nanos());
+                break;
+            case MatchRecording.RELEASE:
+                engine.releaseInput();
+                break;
+            case MatchRecording.PAUSE:
+                paused = true;
+                break;
+            case MatchRecording.RESUME:
+                paused = false;
+                break;
+            case MatchRecording.FADE:
+                engine.fadeNextWords();
+                break;
+            case MatchRecording.OPPONENT_FINISHED:
+                if (engine.opponentFinished()) startComputer();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void startComputer() {
+        driver.drive(new ComputerOpponent(engine.getOpponentPassage(), this, config, random, scheduler::nanoTime,
+                model));
+    }
+}
@@ -0,0 +1,121 @@
+package typeshi;
+
+/**
+ * Ring buffer of the player's keystrokes for one session: timestamp, typed character, expected character and a
+ * correct/error/backspace flag per entry, plus markers for the engine's own edits and finished passages
+ *
+ * Storage is four preallocated primitive arrays, so recording never allocates; once full the oldest entries are
+ * overwritten. Entries are addressed by a session-wide sequence number and read through a reusable {@link Cursor},
+ * which lets WPM, latency or replay code walk the journal without copying it. Single-threaded like the engine
+ */
+public class KeystrokeJournal {
+
+    public static final byte CORRECT = 0;
+    public static final byte ERROR = 1;
+    public static final byte BACKSPACE = 2;
+    // A character removed by the engine (Medium/Hard auto-backspace), not by the player
+    public static final byte AUTO_DELETE = 3;
+    // The player completed the passage; codepoint and expected character are 0
+    public static final byte PASSAGE_END = 4;
+
+    // Typed codepoint recorded for a deletion
+    public static final int BACKSPACE_CODEPOINT = '\b';
+
+    // 2^17 entries, enough for a marathon session (~3 MB)
+    public static final int DEFAULT_CAPACITY = 1 << 17;
+
+    private final long[] times;
+    private final int[] codepoints;
+    private final char[] expected;
+    private final byte[] flags;
+    private final int mask;
+
+    // Sequence number of the next entry; entries [count - retained(), count) are readable
+    private long count = 0;
+
+    public KeystrokeJournal() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity entries kept before the oldest are overwritten, rounded up to a power of two
+     */
+    public KeystrokeJournal(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.times = new long[size];
+        this.codepoints = new int[size];
+        this.expected = new char[size];
+        this.flags = new byte[size];
+    }
+
+    /**
+     * @param expectedChar passage character at the typed position, or 0 past the end
+     */
+    public void record(long nanos, int codepoint, char expectedChar, byte flag) {
+        int slot = (int) (count & mask);
+        times[slot] = nanos;
+        codepoints[slot] = codepoint;
+        expected[slot] = expectedChar;
+        flags[slot] = flag;
+        count++;
+    }
+
+    /** Total entries recorded this session, including overwritten ones */
+    public long size() { return count; }
+
+    /** Entries still readable */
+    public int retained() { return (int) Math.min(count, mask + 1L); }
+
+    /** Sequence number of the oldest readable entry */
+    public long oldestSequence() { return count - retained(); }
+
+    public int capacity() { return mask + 1; }
+
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * New cursor positioned before the oldest entry; keep and {@link Cursor#seek(long)} it instead of creating one
+     * per read
+     */
+    public Cursor cursor() {
+        Cursor cursor = new Cursor();
+        cursor.seek(oldestSequence());
+        return cursor;
+    }
+
+    /**
+     * Forward reader over the journal. next() returns false at the newest entry; entries overwritten while reading
+     * are skipped
+     */
+    public final class Cursor {
+        private long nextSequence;
+        private int slot = -1;
+
+        private Cursor() {}
+
+        /** Position so the following next() reads the entry with this sequence number (or the oldest retained) */
+        public void seek(long sequence) {
+            nextSequence = Math.max(sequence, oldestSequence());
+            slot = -1;
+        }
+
+        public boolean next() {
+            if (nextSequence < oldestSequence()) nextSequence = oldestSequence();
+            if (nextSequence >= count) return false;
+            slot = (int) (nextSequence & mask);
+            nextSequence++;
+            return true;
+        }
+
+        /** Sequence number of the current entry */
+        public long sequence() { return nextSequence - 1; }
+
+        public long time() { return times[slot]; }
+        public int codepoint() { return codepoints[slot]; }
+        public char expected() { return expected[slot]; }
+        public byte flag() { return flags[slot]; }
+    }
+}
@@ -0,0 +1,250 @@
+package typeshi;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.LongSupplier;
+
+/**
+ * Everything needed to play a singleplayer round again headless: the {@link MatchSeed}, the round's settings and
+ * every input the engine received from outside, replayed by {@link HeadlessMatch#forRecording(MatchRecording)}
+ *
+ * Passages and the AI are not stored; they follow from the seed. The events are the player's input changes (as
+ * handed to {@link GameEngine#playerInput(CharSequence, int, long)}), input releases, pauses, Hard fades and the
+ * moments the AI moved on to its next passage, each with its time since the round started.
+ *
+ * Layout (big-endian): magic "TSMR", version byte, seed long, varint round, mode byte, difficulty byte, varint
+ * duration in seconds, then events until end of file. An event is a varint of (microseconds since the previous
+ * event &lt;&lt; 3 | kind); INPUT is followed by varints of editStart + 1 (0 for none), the new input length and
+ * the characters from the edit point on
+ */
+public final class MatchRecording {
+
+    public static final byte INPUT = 0;
+    public static final byte RELEASE = 1;
+    public static final byte PAUSE = 2;
+    public static final byte RESUME = 3;
+    public static final byte FADE = 4;
+    public static final byte OPPONENT_FINISHED = 5;
+
+    private static final int MAGIC = 0x54534D52; // "TSMR"
+    private static final int VERSION = 1;
+    private static final int KIND_BITS = 3;
+    private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+
+    private final long seed;
+    private final int round;
+    private final int mode;
+    private final int difficulty;
+    private final int durationSeconds;
+    private final byte[] events;
+
+    MatchRecording(long seed, int round, int mode, int difficulty, int durationSeconds, byte[] events) {
+        this.seed = seed;
+        this.round = round;
+        this.mode = mode;
+        this.difficulty = difficulty;
+        this.durationSeconds = durationSeconds;
+        this.events = events;
+    }
+
+    public long getSeed() { return seed; }
+    public int getRound() { return round; }
+    public int getMode() { return mode; }
+    public int getDifficulty() { return difficulty; }
+    public int getDurationSeconds() { return durationSeconds; }
+
+    /** New reader positioned before the first event */
+    public Reader events() {
+        return new Reader();
+    }
+
+    /* ---------- FILES ---------- */
+
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(out);
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeLong(seed);
+        GhostRecording.writeVarint(data, round);
+        data.writeByte(mode);
+        data.writeByte(difficulty);
+        GhostRecording.writeVarint(data, durationSeconds);
+        data.write(events);
+        data.flush();
+    }
+
+    public static MatchRecording read(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return read(in);
+        }
+    }
+
+    public static MatchRecording read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) throw new IOException("Not a match recording");
+        int version = data.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Unsupported match recording version " + version);
+        long seed = data.readLong();
+        int round = (int) GhostRecording.readVarint(data);
+        int mode = data.readUnsignedByte();
+        int difficulty = data.readUnsignedByte();
+        int duration = (int) GhostRecording.readVarint(data);
+        return new MatchRecording(seed, round, mode, difficulty, duration, data.readAllBytes());
+    }
+
+    /* ---------- RECORDING ---------- */
+
+    /**
+     * Collects one round's events in memory while it is played; single-threaded like the engine
+     */
+    public static final class Recorder {
+        private final long seed;
+        private final int round;
+        private final int mode;
+        private final int difficulty;
+        private final int durationSeconds;
+        private final LongSupplier clock;
+        private final ByteArrayOutputStream events = new ByteArrayOutputStream(4096);
+
+        private long previousNanos;
+        private int previousLength = 0;
+
+        /**
+         * @param startNanos clock time the round started; event times are stored relative to it
+         * @param clock stamps the events that carry no time of their own
+         */
+        public Recorder(long seed, int round, int mode, int difficulty, int durationSeconds, long startNanos,
+                        LongSupplier clock) {
+            this.seed = seed;
+            this.round = round;
+            this.mode = mode;
+            this.difficulty = difficulty;
+            this.durationSeconds = durationSeconds;
+            this.previousNanos = startNanos;
+            this.clock = clock;
+        }
+
+        /**
+         * The full input text after a change; only the part from the edit point on is stored
+         */
+        public void input(long nanos, CharSequence typed, int editStart) {
+            int length = typed.length();
+            putEvent(nanos, INPUT);
+            putVarint(editStart == Integer.MAX_VALUE ? 0 : editStart + 1L);
+            putVarint(length);
+            for (int i = suffixStart(editStart, previousLength, length); i < length; i++) putVarint(typed.charAt(i));
+            previousLength = length;
+        }
+
+        public void release() { putEvent(clock.getAsLong(), RELEASE); }
+
+        public void pause() { putEvent(clock.getAsLong(), PAUSE); }
+
+        public void resume() { putEvent(clock.getAsLong(), RESUME); }
+
+        public void fade() { putEvent(clock.getAsLong(), FADE); }
+
+        public void opponentFinished() { putEvent(clock.getAsLong(), OPPONENT_FINISHED); }
+
+        public MatchRecording finish() {
+            return new MatchRecording(seed, round, mode, difficulty, durationSeconds, events.toByteArray());
+        }
+
+        private void putEvent(long nanos, byte kind) {
+            long deltaMicros = Math.max(0, nanos - previousNanos) / 1_000;
+            previousNanos += deltaMicros * 1_000;
+            putVarint(deltaMicros << KIND_BITS | kind);
+        }
+
+        private void putVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                events.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            events.write((int) value);
+        }
+    }
+
+    /* ---------- READING ---------- */
+
+    /**
+     * Forward reader over the events; also rebuilds the input text as it was after each INPUT
+     */
+    public final class Reader {
+        private final StringBuilder text = new StringBuilder();
+        private int offset = 0;
+        private long nanos = 0;
+        private byte kind;
+        private int editStart;
+
+        private Reader() {}
+
+        /**
+         * @return false at the end of the recording (or at a damaged tail)
+         */
+        public boolean next() {
+            if (offset >= events.length) return false;
+            long event = getVarint();
+            if (event < 0) return false;
+            nanos += (event >>> KIND_BITS) * 1_000;
+            kind = (byte) (event & KIND_MASK);
+            if (kind != INPUT) return true;
+
+            long start = getVarint();
+            long length = getVarint();
+            if (start < 0 || length < 0 || length > Integer.MAX_VALUE) return false;
+            editStart = start == 0 ? Integer.MAX_VALUE : (int) (start - 1);
+            int newLength = (int) length;
+            text.setLength(suffixStart(editStart, text.length(), newLength));
+            while (text.length() < newLength) {
+                long c = getVarint();
+                if (c < 0) return false;
+                text.append((char) c);
+            }
+            return true;
+        }
+
+        public byte kind() { return kind; }
+
+        /** Time of the current event since the round started */
+        public long nanos() { return nanos; }
+
+        /** INPUT: the editStart passed with the change */
+        public int editStart() { return editStart; }
+
+        /** INPUT: the input text after the change; reused, valid until the next call to next() */
+        public CharSequence text() { return text; }
+
+        // -1 when the bytes run out mid-varint
+        private long getVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64 && offset < events.length; shift += 7) {
+                int b = events[offset++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            return -1;
+        }
+    }
+
+    // Characters before the edit point are unchanged since the previous input, and none can be beyond either length
+    private static int suffixStart(int editStart, int previousLength, int length) {
+        return Math.max(0, Math.min(editStart, Math.min(previousLength, length)));
+    }
+}
@@ -0,0 +1,68 @@
+package typeshi;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Master seed of a match and the independent random streams derived from it
+ *
+ * One 64-bit seed fixes everything random in a singleplayer match: the passage sequence, the AI's delays and
+ * mistakes and the field race. Every round and purpose gets its own stream, so reproducing one round needs only the
+ * seed and the round number, and drawing more numbers for one purpose never shifts another
+ */
+public final class MatchSeed {
+
+    public static final int PASSAGES = 0;
+    public static final int OPPONENT = 1;
+    public static final int FIELD = 2;
+    // The other AI of a bot-vs-bot match
+    public static final int RIVAL = 3;
+
+    // Set to a hex seed to play a specific match again
+    public static final String PROPERTY = "typeshi.seed";
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private MatchSeed() {}
+
+    /**
+     * Seed for a new match: the {@value #PROPERTY} system property when set, otherwise a fresh random one
+     */
+    public static long newSeed() {
+        String fixed = System.getProperty(PROPERTY);
+        if (fixed != null) {
+            try {
+                return parse(fixed);
+            } catch (NumberFormatException e) {
+                System.err.println("Ignoring invalid " + PROPERTY + ": " + fixed);
+            }
+        }
+        return new SplittableRandom().nextLong();
+    }
+
+    /**
+     * Seed of one round's stream for a purpose (PASSAGES, OPPONENT, FIELD or RIVAL)
+     */
+    public static long derive(long seed, int round, int stream) {
+        return mix(mix(seed + round * GOLDEN_GAMMA) + (stream + 1) * GOLDEN_GAMMA);
+    }
+
+    public static RandomGenerator random(long seed, int round, int stream) {
+        return new SplittableRandom(derive(seed, round, stream));
+    }
+
+    public static String format(long seed) {
+        return Long.toHexString(seed);
+    }
+
+    public static long parse(String text) {
+        return Long.parseUnsignedLong(text.trim(), 16);
+    }
+
+    // SplitMix64 finalizer: nearby inputs give unrelated outputs
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -4,47 +4,19 @@ import java.io.*;
 import java.net.*;
 
 public class
-MultiplayerServer {
-
-    private ServerSocket serverSocket;
-    private Socket clientSocket;
-    private BufferedReader in;
-    private PrintWriter out;
+MultiplayerServer extends WireConnection {
 
     public MultiplayerServer(int port) throws IOException {
-        serverSocket = new ServerSocket(port);
-        System.out.println("Waiting for player...");
-        clientSocket = serverSocket.accept();
-        System.out.println("Player connected!");
-
-        in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-        out = new PrintWriter(clientSocket.getOutputStream(), true);
-    }
-
-    public void send(String msg) {
-        out.println(msg);
-    }
-
-    public String receive() throws IOException {
-        return in.readLine();
-    }
-
-    public void close() throws IOException {
-        clientSocket.close();
-        serverSocket.close();
+        super(acceptOne(port));
     }
 
-    // Simple listener for incoming messages
-    public void listenForMessages() {
-        new Thread(() -> {
-            try {
-                String line;
-                while ((line = in.readLine()) != null) {
-                    System.out.println("Client: " + line);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }).start();
+    // Only one opponent per hosted match, so the listening socket is closed once it connected
+    private static Socket acceptOne(int port) throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port)) {
+            System.out.println("Waiting for player...");
+            Socket clientSocket = serverSocket.accept();
+            System.out.println("Player connected!");
+            return clientSocket;
+        }
     }
 }
@@ -2,121 +2,174 @@ package typeshi;
 
 import javafx.application.Platform;
 
+import java.net.InetSocketAddress;
+
 public class NetworkOpponent implements Runnable {
 
     private final GameController controller;
-    private final MultiplayerServer server;
-    private final MultiplayerClient client;
-    private final boolean isHost;
+    private final WireConnection connection;
+    // Null unless both sides agreed on UDP progress
+    private final ProgressChannel udp;
+    private final ProgressCoalescer outbound;
 
     private volatile boolean running = true;
 
-    public NetworkOpponent(GameController controller,
-                           MultiplayerServer server,
-                           MultiplayerClient client,
-                           boolean isHost) {
+    /**
+     * @param connection the host's {@link MultiplayerServer} or the joiner's {@link MultiplayerClient}, after the
+     *                   handshake
+     */
+    public NetworkOpponent(GameController controller, WireConnection connection) {
+        this(controller, connection, null);
+    }
+
+    /**
+     * @param udp the progress channel whose port this side announced in the handshake, or null; closed here when the
+     *            other side did not agree
+     */
+    public NetworkOpponent(GameController controller, WireConnection connection, ProgressChannel udp) {
         this.controller = controller;
-        this.server = server;
-        this.client = client;
-        this.isHost = isHost;
+        this.connection = connection;
+        this.udp = connectProgressChannel(connection, udp);
+        this.outbound = new ProgressCoalescer(connection, this.udp);
+    }
+
+    private static ProgressChannel connectProgressChannel(WireConnection connection, ProgressChannel udp) {
+        if (udp == null) return null;
+        try {
+            if (connection.has(WireProtocol.CAP_UDP_PROGRESS)) {
+                udp.connect(new InetSocketAddress(connection.getRemoteAddress(), connection.getPeerUdpPort()));
+                return udp;
+            }
+        } catch (Exception e) {
+            System.err.println("UDP progress unavailable, using TCP: " + e.getMessage());
+        }
+        try { udp.close(); } catch (Exception ignored) {}
+        return null;
     }
 
     /* ---------- SEND ---------- */
 
+    // Progress goes through the send window; see ProgressCoalescer
+
     public void sendProgress(int position, int errors) {
-        send("PROGRESS:" + position + ":" + errors);
+        progress(WireProtocol.PROGRESS, position, errors);
     }
 
     public void sendAbsoluteProgress(int position, int errors) {
-        send("ABS:" + position + ":" + errors);
+        progress(WireProtocol.ABS, position, errors);
+    }
+
+    /**
+     * Write progress held back by the send window once the window has passed; called every frame
+     */
+    public void flushProgress(long nowNanos) {
+        if (!running) return;
+        try {
+            outbound.flushIfDue(nowNanos);
+        } catch (Exception ignored) {}
     }
 
     public void sendPause() {
-        send("PAUSE");
+        send(WireProtocol.PAUSE);
     }
 
     public void sendResume() {
-        send("RESUME");
+        send(WireProtocol.RESUME);
     }
 
     public void sendFinished() {
-        send("FINISHED");
+        send(WireProtocol.FINISHED);
     }
 
     public void sendFinalScore(int score, int errors) {
-        send("FINAL_SCORE:" + score + ":" + errors);
+        send(WireProtocol.FINAL_SCORE, score, errors);
     }
 
     public void sendDisconnect() {
-        send("DISCONNECT");
+        send(WireProtocol.DISCONNECT);
     }
 
 
 
-    private void send(String msg) {
+    private void progress(byte opcode, int position, int errors) {
         if (!running) return;
         try {
-            if (isHost && server != null) server.send(msg);
-            else if (client != null) client.send(msg);
+            outbound.progress(opcode, position, errors, System.nanoTime());
         } catch (Exception ignored) {}
     }
 
-    private String receive() throws Exception {
-        return isHost ? server.receive() : client.receive();
+    private void send(byte opcode) {
+        if (!running) return;
+        try {
+            outbound.control(opcode);
+        } catch (Exception ignored) {}
     }
 
-    /* ---------- RECEIVE LOOP ---------- */
-    @Override
-    public void run() {
+    private void send(byte opcode, int first, int second) {
+        if (!running) return;
         try {
-            while (running) {
-                String msg = receive();
-                if (msg == null) {
-                    break;
-                }
-
-                switch (msg) {
-                    case "PAUSE":
-                        Platform.runLater(controller::pauseFromNetwork);
-                        break;
+            outbound.control(opcode, first, second);
+        } catch (Exception ignored) {}
+    }
 
-                    case "RESUME":
-                        Platform.runLater(controller::resumeFromNetwork);
-                        break;
-                    case "DISCONNECT":
-                        Platform.runLater(controller::onOpponentDisconnected);
-                        running = false;
-                        break;
+    /* ---------- RECEIVE LOOP ---------- */
 
-                    case "FINISHED":
-                        Platform.runLater(controller::onComputerFinished);
-                        break;
+    /**
+     * Run the receive loop, and the datagram loop with UDP progress, on the session's threads
+     */
+    public void start(NetworkSession session) {
+        session.start(this);
+        if (udp != null) session.start(this::receiveDatagrams);
+    }
 
-                    default:
-                        if (msg.startsWith("PROGRESS:") || msg.startsWith("ABS:")) {
-                            String[] p = msg.split(":");
-                            int position = Integer.parseInt(p[1]);
-                            int errors = Integer.parseInt(p[2]);
+    private final MessageHandler handler = new MessageHandler() {
+        @Override
+        public void onPause() {
+            Platform.runLater(controller::pauseFromNetwork);
+        }
 
-                            Platform.runLater(() ->
-                                    controller.updateOpponentFromNetwork(position, errors)
-                            );
-                        }
-                        else if (msg.startsWith("FINAL_SCORE:")) {
-                            String[] p = msg.split(":");
-                            int score = Integer.parseInt(p[1]);
-                            int errors = Integer.parseInt(p[2]);
+        @Override
+        public void onResume() {
+            Platform.runLater(controller::resumeFromNetwork);
+        }
 
-                            Platform.runLater(() ->
-                                    controller.onOpponentFinalScore(score, errors)
-                            );
-                        }
+        @Override
+        public void onDisconnect() {
+            Platform.runLater(controller::onOpponentDisconnected);
+            running = false;
+        }
 
-                        break;
+        @Override
+        public void onFinished() {
+            // Goes through the frame bus so it lands after the last progress update
+            controller.onComputerFinished();
+        }
 
+        @Override
+        public void onProgress(int position, int errors) {
+            // Conflated on the frame bus, no per-message runLater
+            controller.updateOpponentFromNetwork(position, errors);
+        }
 
+        @Override
+        public void onFinalScore(int score, int errors) {
+            Platform.runLater(() ->
+                    controller.onOpponentFinalScore(score, errors)
+            );
+        }
+    };
 
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                WireProtocol.Decoder msg = connection.receive();
+                if (msg == null) {
+                    break;
                 }
+                // Datagrams still on their way from the finished passage are stale from here on
+                if (udp != null && msg.opcode() == WireProtocol.FINISHED) udp.nextReceiveEpoch();
+                dispatch(msg, handler);
             }
         } catch (Exception e) {
             if (running) {
@@ -125,13 +178,73 @@ public class NetworkOpponent implements Runnable {
         }
     }
 
+    private void receiveDatagrams() {
+        try {
+            udp.receive(handler);
+        } catch (Exception ignored) {
+            // The TCP loop notices a lost opponent
+        }
+    }
+
+    /**
+     * Receives decoded messages, on the receive thread
+     */
+    public interface MessageHandler {
+        void onPause();
+
+        void onResume();
+
+        void onDisconnect();
+
+        void onFinished();
+
+        /** PROGRESS and ABS both carry the absolute position */
+        void onProgress(int position, int errors);
+
+        void onFinalScore(int score, int errors);
+    }
+
+    /**
+     * Hand one received frame to the handler; lobby and unknown messages are ignored
+     */
+    public static void dispatch(WireProtocol.Decoder msg, MessageHandler handler) {
+        switch (msg.opcode()) {
+            case WireProtocol.PAUSE:
+                handler.onPause();
+                break;
+
+            case WireProtocol.RESUME:
+                handler.onResume();
+                break;
+            case WireProtocol.DISCONNECT:
+                handler.onDisconnect();
+                break;
+
+            case WireProtocol.FINISHED:
+                handler.onFinished();
+                break;
+
+            case WireProtocol.PROGRESS:
+            case WireProtocol.ABS:
+                handler.onProgress(msg.first(), msg.second());
+                break;
+
+            case WireProtocol.FINAL_SCORE:
+                handler.onFinalScore(msg.first(), msg.second());
+                break;
+
+            default:
+                break;
+        }
+    }
+
 
 
     /* ---------- STOP ---------- */
 
     public void stop() {
         running = false;
-        try { if (client != null) client.close(); } catch (Exception ignored) {}
-        try { if (server != null) server.close(); } catch (Exception ignored) {}
+        try { connection.close(); } catch (Exception ignored) {}
+        try { if (udp != null) udp.close(); } catch (Exception ignored) {}
     }
 }
@@ -0,0 +1,74 @@
+package typeshi;
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Threads of one multiplayer match: hosting or joining, the receive loops and the short waits around the results
+ *
+ * Every task runs on its own virtual thread, named after the session. A virtual thread costs a few kilobytes
+ * instead of a platform thread's stack, so blocking socket reads and sleeps are fine here. {@link #close()}
+ * interrupts all of them; an interrupted virtual thread blocked on a socket also closes that socket, so even a host
+ * still waiting in accept() stops at once. Nothing started here outlives the session
+ */
+public class NetworkSession implements Closeable {
+
+    private final ExecutorService threads;
+    private volatile boolean closed = false;
+
+    /**
+     * @param name prefix of the thread names ("host", "join", ...)
+     */
+    public NetworkSession(String name) {
+        this.threads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("typeshi-" + name + "-", 0).factory());
+    }
+
+    /**
+     * Run task on a new virtual thread
+     * @return its future, or null when the session is already closed (the task is dropped)
+     */
+    public Future<?> start(Runnable task) {
+        try {
+            return threads.submit(task);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Run task after a delay, unless the session is closed first
+     */
+    public Future<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return start(() -> {
+            try {
+                unit.sleep(Math.max(0, delay));
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!closed) task.run();
+        });
+    }
+
+    public boolean isClosed() { return closed; }
+
+    /**
+     * Wait for every task to end after {@link #close()}
+     * @return false when some are still running after the timeout
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return threads.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Interrupt every task and refuse new ones; does not wait
+     */
+    @Override
+    public void close() {
+        closed = true;
+        threads.shutdownNow();
+    }
+}
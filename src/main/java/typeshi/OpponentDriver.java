@@ -0,0 +1,171 @@
+package typeshi;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Drives the current {@link Opponent} ({@link ComputerOpponent}, {@link GhostOpponent}) from a single subscription
+ * on a {@link GameScheduler}
+ *
+ * Ticked mode polls the opponent at a fixed rate and lets it catch up in bursts. Event-driven mode keeps exactly one
+ * one-shot task pending, due at the opponent's next sampled keystroke deadline, so every keystroke lands on time and
+ * wakeups scale with keystrokes instead of wall-clock ticks
+ *
+ * Either way the subscription lives for the whole match; finishing a passage only swaps the opponent it drives.
+ * {@link #liveTaskCount()} counts subscriptions that are not yet stopped across all drivers, so a missing
+ * {@link #stop()} shows up as a number that keeps growing
+ */
+public class OpponentDriver {
+
+    /**
+     * Something that types on the opponent side at its own pace
+     */
+    public interface Opponent {
+        /** Ticked mode: emit every keystroke due by now */
+        void run();
+
+        /** Event-driven mode: nanoseconds until the first keystroke */
+        long firstDelayNanos();
+
+        /** Event-driven mode: type one keystroke; nanoseconds until the next, or -1 when done */
+        long typeNext();
+
+        void stop();
+    }
+
+    public static final long DEFAULT_TICK_MILLIS = 100;
+
+    private static final AtomicInteger LIVE_TASKS = new AtomicInteger();
+
+    private final GameScheduler scheduler;
+    private final BooleanSupplier paused;
+    private final long tickNanos;
+    private final boolean eventDriven;
+
+    private volatile Opponent current;
+    private boolean subscribed = false;
+    private GameScheduler.Task task;
+
+    // Event-driven: scheduler time the pending keystroke is due; deadlines chain so scheduling latency doesn't add up
+    private long dueNanos;
+
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong swaps = new AtomicLong();
+
+    public OpponentDriver(GameScheduler scheduler, BooleanSupplier paused) {
+        this(scheduler, paused, DEFAULT_TICK_MILLIS, false);
+    }
+
+    /**
+     * @param paused checked on every wakeup; the opponent does not type while it returns true
+     * @param tickMillis polling period, or in event-driven mode how often a paused keystroke is retried
+     * @param eventDriven schedule each keystroke at its own deadline instead of polling
+     */
+    public OpponentDriver(GameScheduler scheduler, BooleanSupplier paused, long tickMillis, boolean eventDriven) {
+        this.scheduler = scheduler;
+        this.paused = paused == null ? () -> false : paused;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.eventDriven = eventDriven;
+    }
+
+    /**
+     * Event-driven driver with the default pause retry
+     */
+    public static OpponentDriver eventDriven(GameScheduler scheduler, BooleanSupplier paused) {
+        return new OpponentDriver(scheduler, paused, DEFAULT_TICK_MILLIS, true);
+    }
+
+    /**
+     * Drive this opponent from now on; the previous one is stopped. Subscribes on the first call only
+     */
+    public synchronized void drive(Opponent opponent) {
+        Opponent previous = current;
+        current = opponent;
+        if (previous != null) {
+            previous.stop();
+            swaps.incrementAndGet();
+        }
+
+        if (!subscribed) {
+            subscribed = true;
+            LIVE_TASKS.incrementAndGet();
+            if (!eventDriven) {
+                task = scheduler.scheduleAtFixedRate(this::tick, 0, tickNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (eventDriven) {
+            // The old opponent's pending keystroke is dropped, not left to fire
+            if (task != null) task.cancel();
+            task = null;
+            if (opponent != null) scheduleKeystroke(opponent, scheduler.nanoTime() + opponent.firstDelayNanos());
+        }
+    }
+
+    /**
+     * Stop the opponent and cancel the subscription; call before shutting the scheduler down
+     */
+    public synchronized void stop() {
+        Opponent previous = current;
+        current = null;
+        if (previous != null) previous.stop();
+
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (subscribed) {
+            subscribed = false;
+            LIVE_TASKS.decrementAndGet();
+        }
+    }
+
+    public Opponent getOpponent() { return current; }
+
+    public boolean isEventDriven() { return eventDriven; }
+
+    public synchronized boolean isSubscribed() { return subscribed; }
+
+    /** Wakeups that reached an opponent: ticks when polling, keystrokes (plus paused retries) when event-driven */
+    public long tickCount() { return ticks.get(); }
+
+    /** Opponents replaced in place by {@link #drive(Opponent)} */
+    public long swapCount() { return swaps.get(); }
+
+    /** Subscriptions of all drivers that have not been stopped */
+    public static int liveTaskCount() { return LIVE_TASKS.get(); }
+
+    private void tick() {
+        Opponent opponent = current;
+        if (opponent == null || paused.getAsBoolean()) return;
+        ticks.incrementAndGet();
+        opponent.run();
+    }
+
+    // Caller holds the lock
+    private void scheduleKeystroke(Opponent opponent, long due) {
+        dueNanos = due;
+        long delay = Math.max(0, due - scheduler.nanoTime());
+        task = scheduler.schedule(() -> keystroke(opponent), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void keystroke(Opponent opponent) {
+        // A swap or stop may race with a task that already started
+        if (opponent != current) return;
+        ticks.incrementAndGet();
+
+        if (paused.getAsBoolean()) {
+            // Resume typing at the original pace once unpaused, rather than bursting to catch up
+            scheduleKeystroke(opponent, scheduler.nanoTime() + tickNanos);
+            return;
+        }
+
+        task = null;
+        long next = opponent.typeNext();
+        // The listener may already have swapped in the next passage's opponent from inside typeNext
+        if (next < 0 || opponent != current || task != null) return;
+        scheduleKeystroke(opponent, dueNanos + next);
+    }
+}
@@ -0,0 +1,16 @@
+package typeshi;
+
+/**
+ * Typing speed and error probability a {@link ComputerOpponent} samples from on every keystroke
+ *
+ * {@link ComputerOpponentConfig} is the fixed set; {@link TunableOpponentConfig} is retuned while the AI runs
+ */
+public interface OpponentParams {
+
+    double getMeanDelayMs();
+
+    double getJitterMs();
+
+    /** 0.0 - 1.0 */
+    double getErrorRate();
+}
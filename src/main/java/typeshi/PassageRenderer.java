@@ -0,0 +1,42 @@
+package typeshi;
+
+/**
+ * Per-character passage display used for both the player and the opponent side
+ *
+ * Callers change character styles and the caret, then call {@link #commit()} to push only the changed cells to
+ * the screen. Implementations: {@link PassageView} (TextFlow runs) and {@link CanvasPassageView} (glyph atlas)
+ */
+public interface PassageRenderer {
+
+    byte PENDING = 0;
+    byte CORRECT = 1;
+    byte ERROR = 2;
+    byte FADED = 3;
+
+    /**
+     * Replace the passage; every character starts PENDING with no caret
+     */
+    void setPassage(String passage);
+
+    default void clear() {
+        setPassage("");
+    }
+
+    void setStyle(int index, byte style);
+
+    byte getStyle(int index);
+
+    /**
+     * Underline the character at index; pass -1 (or the passage length) for no caret
+     */
+    void setCaret(int index);
+
+    int length();
+
+    String getPassage();
+
+    /**
+     * Apply pending style changes to the screen
+     */
+    void commit();
+}
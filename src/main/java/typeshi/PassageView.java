@@ -0,0 +1,217 @@
+package typeshi;
+
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders a passage into a TextFlow as runs of same-styled characters instead of one Text node per character
+ *
+ * Callers change per-character styles (and the caret) and then call {@link #commit()}; only the runs around the
+ * changed cells are split or merged, and existing Text nodes are reused in place where possible
+ */
+public class PassageView implements PassageRenderer {
+
+    private static final Font FONT = Font.font("Consolas", 18);
+
+    private final TextFlow flow;
+    private final Color pendingColor;
+
+    private String passage = "";
+    private byte[] styles = new byte[0];
+    private int caret = -1;
+
+    // Runs in passage order, parallel to the TextFlow children
+    private int[] runStarts = new int[16];
+    private int[] runEnds = new int[16];
+    private int[] runKeys = new int[16];
+    private int runCount = 0;
+
+    // Scratch buffers for rebuilding a span of runs
+    private int[] spanStarts = new int[16];
+    private int[] spanKeys = new int[16];
+
+    private final DirtyRanges dirty = new DirtyRanges();
+
+    public PassageView(TextFlow flow, Color pendingColor) {
+        this.flow = flow;
+        this.pendingColor = pendingColor;
+    }
+
+    @Override
+    public void setPassage(String passage) {
+        this.passage = passage == null ? "" : passage;
+        this.styles = new byte[this.passage.length()];
+        this.caret = -1;
+        dirty.clear();
+
+        flow.getChildren().clear();
+        runCount = 0;
+        if (!this.passage.isEmpty()) {
+            ensureRunCapacity(1);
+            runStarts[0] = 0;
+            runEnds[0] = this.passage.length();
+            runKeys[0] = PENDING;
+            runCount = 1;
+            flow.getChildren().add(newRunNode(0, this.passage.length(), PENDING));
+        }
+    }
+
+    @Override
+    public void setStyle(int index, byte style) {
+        if (index < 0 || index >= styles.length || styles[index] == style) return;
+        styles[index] = style;
+        dirty.add(index);
+    }
+
+    @Override
+    public byte getStyle(int index) {
+        return styles[index];
+    }
+
+    @Override
+    public void setCaret(int index) {
+        if (index == caret) return;
+        if (caret >= 0 && caret < styles.length) dirty.add(caret);
+        caret = index;
+        if (caret >= 0 && caret < styles.length) dirty.add(caret);
+    }
+
+    @Override
+    public int length() {
+        return styles.length;
+    }
+
+    @Override
+    public String getPassage() {
+        return passage;
+    }
+
+    @Override
+    public void commit() {
+        for (int r = 0; r < dirty.size(); r++) {
+            rebuildSpan(dirty.start(r), dirty.end(r));
+        }
+        dirty.clear();
+    }
+
+    // Key combines style and caret so a run never spans the caret boundary
+    private int keyAt(int index) {
+        return index == caret ? styles[index] | 0x10 : styles[index];
+    }
+
+    private void rebuildSpan(int from, int to) {
+        if (runCount == 0 || from >= to) return;
+
+        // Widen by one neighbour run on each side so equal neighbours can merge
+        int first = Math.max(0, runIndexAt(from) - 1);
+        int last = Math.min(runCount - 1, runIndexAt(to - 1) + 1);
+        int spanStart = runStarts[first];
+        int spanEnd = runEnds[last];
+
+        int newCount = 0;
+        int s = spanStart;
+        while (s < spanEnd) {
+            int key = keyAt(s);
+            int e = s + 1;
+            while (e < spanEnd && keyAt(e) == key) e++;
+            if (newCount == spanStarts.length) {
+                spanStarts = grow(spanStarts);
+                spanKeys = grow(spanKeys);
+            }
+            spanStarts[newCount] = s;
+            spanKeys[newCount] = key;
+            newCount++;
+            s = e;
+        }
+
+        int oldCount = last - first + 1;
+        var children = flow.getChildren();
+
+        // Reuse existing nodes in place, then add or drop the difference
+        int common = Math.min(oldCount, newCount);
+        for (int k = 0; k < common; k++) {
+            int start = spanStarts[k];
+            int end = k + 1 < newCount ? spanStarts[k + 1] : spanEnd;
+            int run = first + k;
+            if (runStarts[run] == start && runEnds[run] == end && runKeys[run] == spanKeys[k]) continue;
+            styleRunNode((Text) children.get(run), start, end, spanKeys[k]);
+        }
+        if (newCount < oldCount) {
+            children.remove(first + newCount, first + oldCount);
+        } else if (newCount > oldCount) {
+            List<Node> added = new ArrayList<>(newCount - oldCount);
+            for (int k = oldCount; k < newCount; k++) {
+                int end = k + 1 < newCount ? spanStarts[k + 1] : spanEnd;
+                added.add(newRunNode(spanStarts[k], end, spanKeys[k]));
+            }
+            children.addAll(first + oldCount, added);
+        }
+
+        // Splice the run table
+        int delta = newCount - oldCount;
+        ensureRunCapacity(runCount + delta);
+        int tail = runCount - (last + 1);
+        System.arraycopy(runStarts, last + 1, runStarts, last + 1 + delta, tail);
+        System.arraycopy(runEnds, last + 1, runEnds, last + 1 + delta, tail);
+        System.arraycopy(runKeys, last + 1, runKeys, last + 1 + delta, tail);
+        for (int k = 0; k < newCount; k++) {
+            runStarts[first + k] = spanStarts[k];
+            runEnds[first + k] = k + 1 < newCount ? spanStarts[k + 1] : spanEnd;
+            runKeys[first + k] = spanKeys[k];
+        }
+        runCount += delta;
+    }
+
+    private int runIndexAt(int index) {
+        int lo = 0;
+        int hi = runCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (runStarts[mid] <= index) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    private Text newRunNode(int start, int end, int key) {
+        Text t = new Text();
+        t.setFont(FONT);
+        styleRunNode(t, start, end, key);
+        return t;
+    }
+
+    private void styleRunNode(Text t, int start, int end, int key) {
+        t.setText(passage.substring(start, end));
+        t.setFill(colorFor((byte) (key & 0x0F)));
+        t.setUnderline((key & 0x10) != 0);
+    }
+
+    private Color colorFor(byte style) {
+        switch (style) {
+            case CORRECT: return Color.LIMEGREEN;
+            case ERROR: return Color.RED;
+            case FADED: return Color.TRANSPARENT;
+            default: return pendingColor;
+        }
+    }
+
+    private void ensureRunCapacity(int needed) {
+        while (runStarts.length < needed) {
+            runStarts = grow(runStarts);
+            runEnds = grow(runEnds);
+            runKeys = grow(runKeys);
+        }
+    }
+
+    private static int[] grow(int[] a) {
+        int[] b = new int[a.length * 2];
+        System.arraycopy(a, 0, b, 0, a.length);
+        return b;
+    }
+}
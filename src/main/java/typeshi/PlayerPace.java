@@ -0,0 +1,70 @@
+package typeshi;
+
+/**
+ * Rolling typing speed and accuracy of the player, updated incrementally from the {@link KeystrokeJournal}
+ *
+ * Both are exponentially weighted per keystroke, so each update is O(new keystrokes) and allocation-free.
+ * Gaps longer than {@link #MAX_GAP_NANOS} (pauses, reading) are capped instead of dragging the speed down.
+ * Reads the journal, so it belongs to the engine's thread
+ */
+public class PlayerPace {
+
+    public static final long MAX_GAP_NANOS = 2_000_000_000L;
+
+    private final double alpha;
+    private final KeystrokeJournal.Cursor cursor;
+
+    private double intervalNanos;
+    private double accuracy = 1.0;
+    private long lastTimeNanos = Long.MIN_VALUE;
+    private long keystrokes = 0;
+
+    /**
+     * @param alpha weight of each new keystroke, e.g. 0.05 for roughly the last 20 keystrokes
+     * @param initialWpm speed assumed before the first keystrokes arrive
+     */
+    public PlayerPace(KeystrokeJournal journal, double alpha, double initialWpm) {
+        this.alpha = alpha;
+        this.cursor = journal.cursor();
+        this.cursor.seek(journal.size());
+        this.intervalNanos = intervalForWpm(initialWpm);
+    }
+
+    /**
+     * Fold in the keystrokes journaled since the previous call
+     */
+    public void update() {
+        while (cursor.next()) {
+            byte flag = cursor.flag();
+            // Engine edits and passage markers are not player keystrokes
+            if (flag == KeystrokeJournal.AUTO_DELETE || flag == KeystrokeJournal.PASSAGE_END) continue;
+
+            long time = cursor.time();
+            if (lastTimeNanos != Long.MIN_VALUE) {
+                long gap = Math.min(MAX_GAP_NANOS, Math.max(0, time - lastTimeNanos));
+                intervalNanos += alpha * (gap - intervalNanos);
+            }
+            lastTimeNanos = time;
+            keystrokes++;
+
+            if (flag != KeystrokeJournal.BACKSPACE) {
+                accuracy += alpha * ((flag == KeystrokeJournal.CORRECT ? 1.0 : 0.0) - accuracy);
+            }
+        }
+    }
+
+    /** Mean time between keystrokes */
+    public double intervalNanos() { return intervalNanos; }
+
+    /** Words (5 keystrokes) per minute */
+    public double wpm() { return 60e9 / (5 * Math.max(1.0, intervalNanos)); }
+
+    /** Share of correct characters, 0..1 */
+    public double accuracy() { return accuracy; }
+
+    public long keystrokes() { return keystrokes; }
+
+    static double intervalForWpm(double wpm) {
+        return 60e9 / (5 * Math.max(1.0, wpm));
+    }
+}
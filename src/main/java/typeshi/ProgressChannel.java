@@ -0,0 +1,224 @@
+package typeshi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * Opponent progress over UDP, next to the TCP connection that keeps carrying everything reliable
+ *
+ * Progress is "latest value wins", so on the TCP stream one lost segment held back every later update until it was
+ * retransmitted. Here each update is one datagram: varint sequence number, varint epoch, then the opcode and fields
+ * of the PROGRESS/ABS frame. The receiver drops anything not newer than what it already applied (reordered or
+ * duplicated datagrams) and anything from another epoch. The epoch counts the FINISHED messages, so a late update
+ * from the previous passage never lands on the next one: the sender moves on when it sends FINISHED, the receiver
+ * when FINISHED arrives on the TCP connection.
+ *
+ * A lost last update would leave the caret behind, so {@link ProgressCoalescer} repeats the latest position while the
+ * player is idle. Datagrams go through an {@link Impairment}, which the tests use to simulate loss and jitter
+ */
+public class ProgressChannel implements Closeable {
+
+    // Set to true to offer UDP progress in the handshake; both players need it
+    public static final String PROPERTY = "typeshi.udpProgress";
+
+    // seq, epoch, opcode, position, errors
+    private static final int MAX_DATAGRAM = 5 + 5 + 1 + 5 + 5;
+
+    /**
+     * Decides the fate of each outgoing datagram
+     */
+    public interface Impairment {
+        /** @return delay before it leaves in nanoseconds, 0 to send at once, negative to lose it */
+        long delayNanos();
+    }
+
+    public static final Impairment PERFECT = () -> 0;
+
+    private final DatagramChannel channel;
+    private final Impairment impairment;
+    // Delivers delayed datagrams; only needed with an impairment that delays
+    private final GameScheduler scheduler;
+
+    private final ByteBuffer sendBuffer = ByteBuffer.allocate(MAX_DATAGRAM);
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(MAX_DATAGRAM);
+    private int sendSequence = 0;
+    private int sendEpoch = 0;
+    private volatile int receiveEpoch = 0;
+    private boolean received = false;
+    private int lastSequence;
+    // The datagram accepted last
+    private int position;
+    private int errors;
+
+    private volatile long sent = 0;
+    private volatile long applied = 0;
+    private volatile long dropped = 0;
+
+    /**
+     * Whether UDP progress is switched on ({@value #PROPERTY})
+     */
+    public static boolean enabled() {
+        return Boolean.getBoolean(PROPERTY);
+    }
+
+    /**
+     * Bound to any free port on all interfaces, without impairment
+     */
+    public ProgressChannel() throws IOException {
+        this(PERFECT, null);
+    }
+
+    public ProgressChannel(Impairment impairment, GameScheduler scheduler) throws IOException {
+        this.impairment = impairment;
+        this.scheduler = scheduler;
+        this.channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(0));
+    }
+
+    public int getLocalPort() {
+        return channel.socket().getLocalPort();
+    }
+
+    /**
+     * Talk only to the peer's progress channel; datagrams from anywhere else are discarded by the socket
+     */
+    public void connect(InetSocketAddress peer) throws IOException {
+        channel.connect(peer);
+    }
+
+    /* ---------- SEND ---------- */
+
+    /**
+     * One progress update (PROGRESS or ABS) in the current epoch
+     */
+    public synchronized void send(byte opcode, int position, int errors) throws IOException {
+        sendBuffer.clear();
+        WireProtocol.putVarint(sendBuffer, ++sendSequence);
+        WireProtocol.putVarint(sendBuffer, sendEpoch);
+        sendBuffer.put(opcode);
+        WireProtocol.putVarint(sendBuffer, position);
+        WireProtocol.putVarint(sendBuffer, errors);
+        sendBuffer.flip();
+        sent++;
+
+        long delay = impairment.delayNanos();
+        if (delay < 0) return;
+        if (delay == 0 || scheduler == null) {
+            channel.write(sendBuffer);
+            return;
+        }
+        ByteBuffer late = ByteBuffer.allocate(sendBuffer.remaining()).put(sendBuffer).flip();
+        scheduler.schedule(() -> {
+            try {
+                channel.write(late);
+            } catch (IOException ignored) {}
+        }, delay, TimeUnit.NANOSECONDS);
+    }
+
+    /** Sender side: this side sent FINISHED; earlier updates are now stale */
+    public synchronized void nextSendEpoch() {
+        sendEpoch++;
+    }
+
+    /* ---------- RECEIVE ---------- */
+
+    /** Receiver side: FINISHED arrived on the TCP connection */
+    public void nextReceiveEpoch() {
+        receiveEpoch++;
+    }
+
+    /**
+     * Receive until the channel is closed, passing fresh updates to handler.onProgress; one thread only
+     */
+    public void receive(NetworkOpponent.MessageHandler handler) throws IOException {
+        try {
+            while (channel.isOpen()) {
+                receiveBuffer.clear();
+                try {
+                    channel.read(receiveBuffer);
+                } catch (PortUnreachableException e) {
+                    // The peer's channel is not up (yet); its updates still go by TCP until then
+                    continue;
+                }
+                receiveBuffer.flip();
+                if (accept(receiveBuffer)) handler.onProgress(position, errors);
+            }
+        } catch (AsynchronousCloseException e) {
+            // close() while blocked in read
+        }
+    }
+
+    // Decodes into position and errors; false for stale, foreign-epoch or damaged datagrams
+    private boolean accept(ByteBuffer datagram) {
+        try {
+            int end = datagram.limit();
+            int sequence = WireProtocol.Decoder.getVarint(datagram, end);
+            int epoch = WireProtocol.Decoder.getVarint(datagram, end);
+            if (datagram.position() >= end) throw new ProtocolException("Truncated datagram");
+            byte opcode = datagram.get();
+            int newPosition = WireProtocol.Decoder.getVarint(datagram, end);
+            int newErrors = WireProtocol.Decoder.getVarint(datagram, end);
+            // Sequence numbers wrap; "newer" is a positive difference
+            boolean fresh = !received || sequence - lastSequence > 0;
+            if (!fresh || epoch != receiveEpoch
+                    || (opcode != WireProtocol.PROGRESS && opcode != WireProtocol.ABS)) {
+                dropped++;
+                return false;
+            }
+            received = true;
+            lastSequence = sequence;
+            position = newPosition;
+            errors = newErrors;
+            applied++;
+            return true;
+        } catch (ProtocolException e) {
+            dropped++;
+            return false;
+        }
+    }
+
+    /** Updates handed to send(), including those the impairment lost */
+    public long getSent() { return sent; }
+
+    /** Updates passed on by receive() */
+    public long getApplied() { return applied; }
+
+    /** Received datagrams thrown away as stale, from another epoch or damaged */
+    public long getDropped() { return dropped; }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Random loss plus a uniformly random extra delay, so datagrams also overtake each other
+     */
+    public static final class LossyLink implements Impairment {
+        private final double lossRate;
+        private final long baseDelayNanos;
+        private final long jitterNanos;
+        private final RandomGenerator random;
+
+        public LossyLink(double lossRate, long baseDelayNanos, long jitterNanos, RandomGenerator random) {
+            this.lossRate = lossRate;
+            this.baseDelayNanos = baseDelayNanos;
+            this.jitterNanos = jitterNanos;
+            this.random = random;
+        }
+
+        @Override
+        public long delayNanos() {
+            if (random.nextDouble() < lossRate) return -1;
+            return baseDelayNanos + (jitterNanos > 0 ? random.nextLong(jitterNanos + 1) : 0);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package typeshi;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound multiplayer messages, with progress updates limited to one per send window
+ *
+ * The first progress update after a quiet window is written at once; later ones in the same window only replace
+ * the pending position and errors, and the latest is written when the window has passed ({@link #flushIfDue(long)},
+ * called every frame). Progress frames per player are so bounded by the window however fast anyone types, and the
+ * caret predictor on the other side glides across the gaps.
+ *
+ * Control messages (FINISHED, FINAL_SCORE, PAUSE, ...) never wait: a pending progress update is put in front of
+ * them and both leave in one write, so the peer never sees a control message before the progress that led to it.
+ *
+ * With a {@link ProgressChannel} the windowed updates go out as datagrams instead, and the latest one is repeated
+ * every {@link #REFRESH_NANOS} while nothing changes, in case it was lost. Control messages and the update in front
+ * of them stay on the connection; that update is also sent as a datagram. Everything runs under the connection's
+ * lock
+ */
+public class ProgressCoalescer {
+
+    // Set to the send window in milliseconds; 0 writes every update at once
+    public static final String PROPERTY = "typeshi.sendWindowMs";
+    public static final long DEFAULT_WINDOW_MS = 25;
+    // UDP only: resend the latest update this often while idle
+    public static final long REFRESH_NANOS = 250_000_000L;
+
+    private final WireConnection connection;
+    private final long windowNanos;
+    // Null: progress on the connection
+    private final ProgressChannel udp;
+
+    private boolean pending = false;
+    private byte pendingOpcode;
+    private int pendingPosition;
+    private int pendingErrors;
+    private boolean sentProgress = false;
+    private long lastProgressNanos;
+    // Latest update sent over UDP, repeated while idle; cleared when the passage ends
+    private boolean refreshable = false;
+    private byte lastOpcode;
+    private int lastPosition;
+    private int lastErrors;
+
+    private long progressFrames = 0;
+    private long writes = 0;
+
+    /**
+     * Window from the {@value #PROPERTY} system property, {@value #DEFAULT_WINDOW_MS} ms by default
+     */
+    public ProgressCoalescer(WireConnection connection, ProgressChannel udp) {
+        this(connection, TimeUnit.MILLISECONDS.toNanos(configuredWindowMs()), udp);
+    }
+
+    public ProgressCoalescer(WireConnection connection, long windowNanos) {
+        this(connection, windowNanos, null);
+    }
+
+    /**
+     * @param udp channel for the windowed updates, or null to keep them on the connection
+     */
+    public ProgressCoalescer(WireConnection connection, long windowNanos, ProgressChannel udp) {
+        this.connection = connection;
+        this.windowNanos = Math.max(0, windowNanos);
+        this.udp = udp;
+    }
+
+    private static long configuredWindowMs() {
+        String value = System.getProperty(PROPERTY);
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                System.err.println("Ignoring invalid " + PROPERTY + ": " + value);
+            }
+        }
+        return DEFAULT_WINDOW_MS;
+    }
+
+    /**
+     * Latest absolute progress (PROGRESS or ABS); written now or at the end of the current window
+     */
+    public void progress(byte opcode, int position, int errors, long nowNanos) throws IOException {
+        synchronized (connection) {
+            pending = true;
+            pendingOpcode = opcode;
+            pendingPosition = position;
+            pendingErrors = errors;
+            flushIfDue(nowNanos);
+        }
+    }
+
+    /**
+     * Write the pending update once its window has passed; called every frame
+     */
+    public void flushIfDue(long nowNanos) throws IOException {
+        synchronized (connection) {
+            if (!pending) {
+                if (refreshable && nowNanos - lastProgressNanos >= REFRESH_NANOS) {
+                    lastProgressNanos = nowNanos;
+                    udp.send(lastOpcode, lastPosition, lastErrors);
+                }
+                return;
+            }
+            if (sentProgress && nowNanos - lastProgressNanos < windowNanos) return;
+            sentProgress = true;
+            lastProgressNanos = nowNanos;
+            if (udp != null) {
+                pending = false;
+                progressFrames++;
+                sendDatagram();
+                return;
+            }
+            putPending();
+            flush();
+        }
+    }
+
+    /** START, PAUSE, RESUME, FINISHED or DISCONNECT, after any pending progress */
+    public void control(byte opcode) throws IOException {
+        synchronized (connection) {
+            putPending();
+            connection.put(opcode);
+            flush();
+            if (opcode == WireProtocol.FINISHED && udp != null) {
+                // Datagrams still on their way belong to the finished passage
+                udp.nextSendEpoch();
+                refreshable = false;
+            }
+        }
+    }
+
+    /** FINAL_SCORE, after any pending progress */
+    public void control(byte opcode, int first, int second) throws IOException {
+        synchronized (connection) {
+            putPending();
+            connection.put(opcode, first, second);
+            flush();
+        }
+    }
+
+    /** Progress frames written so far */
+    public long getProgressFrames() {
+        synchronized (connection) {
+            return progressFrames;
+        }
+    }
+
+    /** Socket writes so far, progress and control together */
+    public long getWrites() {
+        synchronized (connection) {
+            return writes;
+        }
+    }
+
+    private void putPending() throws IOException {
+        if (!pending) return;
+        pending = false;
+        progressFrames++;
+        connection.put(pendingOpcode, pendingPosition, pendingErrors);
+        // Sequenced on the channel too: older datagrams still on their way become stale, and the idle refresh
+        // repeats this position rather than the one before it
+        if (udp != null) sendDatagram();
+    }
+
+    private void sendDatagram() throws IOException {
+        refreshable = true;
+        lastOpcode = pendingOpcode;
+        lastPosition = pendingPosition;
+        lastErrors = pendingErrors;
+        udp.send(pendingOpcode, pendingPosition, pendingErrors);
+    }
+
+    private void flush() throws IOException {
+        writes++;
+        connection.flush();
+    }
+}
@@ -0,0 +1,433 @@
+package typeshi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Dedicated multiplayer host for many simultaneous races, on non-blocking channels
+ *
+ * Players connect with the normal Join flow. Every two players whose HELLO it accepted share a room: the server
+ * picks the passage and settings, sends both of them the host's TEXT, CFG and START, then relays PROGRESS, ABS,
+ * FINISHED, FINAL_SCORE, PAUSE, RESUME and DISCONNECT frames to the other member unchanged, so a client cannot tell
+ * it from a hosting player. A room name in the HELLO joins that room instead of the next free one. A closed
+ * connection ends its room with DISCONNECT. It announces no capabilities, so progress stays on the TCP stream.
+ *
+ * One event loop per core, each a Selector thread owning its connections. The acceptor spreads new connections over
+ * the loops, two in a row to the same loop so players paired in arrival order usually share one; a frame for a peer
+ * on another loop is handed over through that loop's task queue, one for a peer on the same loop is copied straight
+ * into its output buffer. Thousands of connections cost a few threads. A client that stops reading is closed once
+ * {@link #MAX_PENDING} bytes wait for it, which ends its room like any other disconnect
+ *
+ * Usage: RaceServer [port] [roundSeconds] [mode] [difficulty]
+ */
+public class RaceServer implements Closeable {
+
+    // Grown up to one maximum frame when a longer one arrives
+    private static final int INITIAL_BUFFER = 256;
+    // Unsent bytes one connection may hold: the opening plus a frame; a client that falls further behind is dropped
+    static final int MAX_PENDING = 2 * (WireProtocol.MAX_HEADER + WireProtocol.MAX_FRAME);
+    private static final byte[] HELLO = frame(out -> WireProtocol.writeHello(out, null, 0, 0));
+    private static final byte[] DISCONNECT = frame(out -> WireProtocol.write(out, WireProtocol.DISCONNECT));
+
+    private final int roundSeconds;
+    private final int mode;
+    private final int difficulty;
+    private final WordGenerator words = new WordGenerator();
+
+    private final ServerSocketChannel server;
+    private final EventLoop[] loops;
+    private final Thread acceptor;
+    private volatile boolean open = true;
+
+    // Room registry; joins are rare next to relayed frames, so one lock is enough
+    private final Map<String, Room> namedRooms = new HashMap<>();
+    private Room waiting;
+    private final AtomicInteger rooms = new AtomicInteger();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int mode = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int difficulty = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        RaceServer server = new RaceServer(port, seconds, mode, difficulty,
+                Runtime.getRuntime().availableProcessors());
+        System.out.println("Race server on port " + server.getPort() + " with " + server.loops.length + " loops");
+
+        // The server threads are daemons, so keep serving here until the process is stopped
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException ignored) {}
+        }, "race-server-shutdown"));
+        try {
+            server.awaitClose();
+        } catch (InterruptedException e) {
+            server.close();
+        }
+    }
+
+    /**
+     * Bind and start serving at once
+     * @param port 0 for any free port (see {@link #getPort()})
+     * @param loopCount event loop threads, usually the number of cores
+     */
+    public RaceServer(int port, int roundSeconds, int mode, int difficulty, int loopCount) throws IOException {
+        this.roundSeconds = roundSeconds;
+        this.mode = mode;
+        this.difficulty = difficulty;
+
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+        loops = new EventLoop[Math.max(1, loopCount)];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(i);
+            loops[i].thread.start();
+        }
+        acceptor = new Thread(this::acceptLoop, "race-server-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() { return server.socket().getLocalPort(); }
+
+    /** Rooms currently racing or waiting for a second player */
+    public int roomCount() { return rooms.get(); }
+
+    public int connectionCount() { return connections.get(); }
+
+    /**
+     * Block until {@link #close()} has stopped every event loop
+     */
+    public void awaitClose() throws InterruptedException {
+        for (EventLoop loop : loops) loop.thread.join();
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+        server.close();
+        for (EventLoop loop : loops) loop.selector.wakeup();
+    }
+
+    /* ---------- ACCEPT ---------- */
+
+    private void acceptLoop() {
+        long accepted = 0;
+        while (open) {
+            try {
+                SocketChannel channel = server.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                // Pairs of consecutive players on the same loop
+                loops[(int) (accepted++ / 2 % loops.length)].register(channel);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (open) System.err.println("Race server accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /* ---------- ROOMS ---------- */
+
+    // One race between two connections
+    private static final class Room {
+        final String name;
+        final Connection[] members = new Connection[2];
+        // Set after both members, read without the lock when relaying
+        volatile boolean started = false;
+
+        Room(String name) {
+            this.name = name;
+        }
+    }
+
+    private void join(Connection connection, String roomName) {
+        Room room;
+        synchronized (this) {
+            if (connection.room != null) return;
+            if (roomName == null) {
+                if (waiting == null) {
+                    waiting = new Room(null);
+                    rooms.incrementAndGet();
+                }
+                room = waiting;
+            } else {
+                room = namedRooms.get(roomName);
+                if (room == null || room.started) {
+                    room = new Room(roomName);
+                    namedRooms.put(roomName, room);
+                    rooms.incrementAndGet();
+                }
+            }
+            connection.room = room;
+            if (room.members[0] == null) {
+                room.members[0] = connection;
+                return;
+            }
+            room.members[1] = connection;
+            room.started = true;
+            if (room == waiting) waiting = null;
+        }
+
+        // Same opening the hosting player sends
+        String passage = words.getRandomPassage(mode);
+        byte[] opening = frame(out -> {
+            WireProtocol.writeText(out, passage);
+            WireProtocol.writeConfig(out, roundSeconds, difficulty, mode);
+            WireProtocol.write(out, WireProtocol.START);
+        });
+        for (Connection member : room.members) member.send(opening);
+    }
+
+    private void leave(Connection connection) {
+        Connection peer = null;
+        synchronized (this) {
+            Room room = connection.room;
+            if (room == null) return;
+            connection.room = null;
+            for (Connection member : room.members) {
+                if (member != null && member != connection) peer = member;
+            }
+            if (peer != null) peer.room = null;
+            if (room == waiting) waiting = null;
+            if (room.name != null && namedRooms.get(room.name) == room) namedRooms.remove(room.name);
+            rooms.decrementAndGet();
+        }
+        if (peer != null) {
+            peer.send(DISCONNECT);
+        }
+    }
+
+    private static Connection peerOf(Connection connection) {
+        Room room = connection.room;
+        if (room == null || !room.started) return null;
+        return room.members[0] == connection ? room.members[1] : room.members[0];
+    }
+
+    /* ---------- EVENT LOOPS ---------- */
+
+    private final class EventLoop implements Runnable {
+        final Selector selector;
+        final Thread thread;
+        final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        // Frames are decoded one at a time, so one decoder serves all of the loop's connections
+        final WireProtocol.Decoder decoder = new WireProtocol.Decoder();
+
+        EventLoop(int index) throws IOException {
+            selector = Selector.open();
+            thread = new Thread(this, "race-server-loop-" + index);
+            thread.setDaemon(true);
+        }
+
+        void register(SocketChannel channel) {
+            execute(() -> {
+                try {
+                    Connection connection = new Connection(channel, this);
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    connections.incrementAndGet();
+                } catch (IOException e) {
+                    closeQuietly(channel);
+                }
+            });
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        boolean inLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        @Override
+        public void run() {
+            while (open) {
+                try {
+                    selector.select();
+                } catch (IOException e) {
+                    break;
+                }
+                Runnable task;
+                while ((task = tasks.poll()) != null) task.run();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Connection connection = (Connection) key.attachment();
+                    if (!key.isValid()) continue;
+                    if (key.isReadable()) connection.read();
+                    if (key.isValid() && key.isWritable()) connection.flush();
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) ((Connection) key.attachment()).close();
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /* ---------- CONNECTIONS ---------- */
+
+    // Owned by one loop; other threads only call send()
+    private final class Connection {
+        final SocketChannel channel;
+        final EventLoop loop;
+        SelectionKey key;
+        // Written under the server's lock
+        volatile Room room;
+
+        // Received bytes not yet decoded, in write mode
+        private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER);
+        private ByteBuffer out = ByteBuffer.allocate(INITIAL_BUFFER);
+        private boolean closed = false;
+
+        Connection(SocketChannel channel, EventLoop loop) {
+            this.channel = channel;
+            this.loop = loop;
+        }
+
+        void read() {
+            WireProtocol.Decoder decoder = loop.decoder;
+            try {
+                while (true) {
+                    int n = channel.read(in);
+                    if (n < 0) {
+                        close();
+                        return;
+                    }
+                    if (n == 0) return;
+                    in.flip();
+                    while (decoder.next(in)) {
+                        onFrame(decoder);
+                        if (closed) return;
+                    }
+                    in.compact();
+                    if (!in.hasRemaining()) {
+                        // Only possible while a frame longer than the buffer arrives; the decoder caps its length
+                        in.flip();
+                        in = ByteBuffer.allocate(Math.min(in.capacity() * 2,
+                                WireProtocol.MAX_HEADER + WireProtocol.MAX_FRAME)).put(in);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        // The decoded frame is still in the input buffer, between frameStart() and its position
+        private void onFrame(WireProtocol.Decoder frame) {
+            switch (frame.opcode()) {
+                case WireProtocol.HELLO:
+                    if (!WireProtocol.supports(frame.first())) {
+                        send(DISCONNECT);
+                        close();
+                        return;
+                    }
+                    send(HELLO);
+                    join(this, frame.text());
+                    break;
+                case WireProtocol.DISCONNECT:
+                    close();
+                    break;
+                default:
+                    Connection peer = peerOf(this);
+                    if (peer == null) return;
+                    if (peer.loop == loop) {
+                        peer.append(in, frame.frameStart(), in.position());
+                    } else {
+                        byte[] copy = new byte[in.position() - frame.frameStart()];
+                        in.get(frame.frameStart(), copy);
+                        peer.send(copy);
+                    }
+                    break;
+            }
+        }
+
+        /**
+         * Queue complete frames; any thread
+         */
+        void send(byte[] frames) {
+            if (!loop.inLoop()) {
+                loop.execute(() -> send(frames));
+                return;
+            }
+            append(ByteBuffer.wrap(frames), 0, frames.length);
+        }
+
+        // On the loop: copy bytes from..to of source and try to write them
+        void append(ByteBuffer source, int from, int to) {
+            if (closed) return;
+            int length = to - from;
+            if (out.position() + length > MAX_PENDING) {
+                // Not reading; relaying more would only pile up here
+                close();
+                return;
+            }
+            if (out.remaining() < length) {
+                out.flip();
+                ByteBuffer bigger = ByteBuffer.allocate(Math.min(Math.max(out.capacity() * 2, out.remaining() + length), MAX_PENDING));
+                bigger.put(out);
+                out = bigger;
+            }
+            out.put(out.position(), source, from, length);
+            out.position(out.position() + length);
+            flush();
+        }
+
+        void flush() {
+            try {
+                out.flip();
+                channel.write(out);
+                out.compact();
+                boolean pending = out.position() > 0;
+                if (key.isValid()) {
+                    key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            if (key != null) key.cancel();
+            closeQuietly(channel);
+            connections.decrementAndGet();
+            leave(this);
+        }
+    }
+
+    private static byte[] frame(Consumer<ByteBuffer> writer) {
+        ByteBuffer buffer = ByteBuffer.allocate(WireProtocol.MAX_HEADER + WireProtocol.MAX_FRAME);
+        writer.accept(buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {}
+    }
+}
@@ -33,6 +33,11 @@ ScoreManager {
     public void awardPlayer(int amount) { playerScore += amount; }
     public void awardComputer(int amount) { computerScore += amount; }
 
+    // Final result shown on the victory screen: points minus errors, the higher one wins
+    public static int finalScore(int score, int errors) { return score - errors; }
+    public int getPlayerFinal() { return finalScore(playerScore, playerErrors); }
+    public int getComputerFinal() { return finalScore(computerScore, computerErrors); }
+
 
     public String playerSummary() { return String.format("Score: %d | Errors: %d", playerScore, playerErrors); }
     public String computerSummary() { return String.format("Score: %d | Errors: %d", computerScore, computerErrors); }
@@ -76,6 +76,25 @@ public class SettingsScreen {
         sfxCheck.getStyleClass().add("subtle");
         toggles.getChildren().addAll(musicCheck, sfxCheck);
 
+        // Display
+        Label displayLabel = new Label("Display");
+        displayLabel.getStyleClass().add("subtle");
+        CheckBox canvasTextCheck = new CheckBox("Canvas text rendering (faster on low-end machines)");
+        canvasTextCheck.getStyleClass().add("subtle");
+
+        // Opponent
+        CheckBox ghostCheck = new CheckBox("Race your personal best (ghost) instead of the computer");
+        ghostCheck.getStyleClass().add("subtle");
+        CheckBox adaptiveCheck = new CheckBox("Adaptive computer speed (keeps the race close)");
+        adaptiveCheck.getStyleClass().add("subtle");
+
+        Label fieldLabel = new Label("Field race (extra computer racers on your first passage)");
+        fieldLabel.getStyleClass().add("subtle");
+        ChoiceBox<String> fieldChoice = new ChoiceBox<>();
+        fieldChoice.getItems().addAll("Off", "8", "16", "32", "64");
+        fieldChoice.setMaxWidth(Double.MAX_VALUE);
+        fieldChoice.setStyle("-fx-background-color: #2b2b2b; -fx-text-fill: white;");
+
         // Difficulty
         Label diffLabel = new Label("Default Difficulty");
         diffLabel.getStyleClass().add("subtle");
@@ -89,6 +108,11 @@ public class SettingsScreen {
         volumeSlider.setValue(prefs.getInt("volume", 70));
         musicCheck.setSelected(prefs.getBoolean("music", true));
         sfxCheck.setSelected(prefs.getBoolean("sfx", true));
+        canvasTextCheck.setSelected(prefs.getBoolean("canvasText", false));
+        ghostCheck.setSelected(prefs.getBoolean("ghost", false));
+        adaptiveCheck.setSelected(prefs.getBoolean("adaptive", false));
+        int fieldSize = prefs.getInt("fieldRace", 0);
+        fieldChoice.setValue(fieldSize == 0 ? "Off" : String.valueOf(fieldSize));
         defaultDifficultyChoice.setValue(prefs.get("difficulty", "Medium"));
 
         // Footer buttons
@@ -102,6 +126,10 @@ public class SettingsScreen {
             volumeSlider.setValue(70);
             musicCheck.setSelected(true);
             sfxCheck.setSelected(true);
+            canvasTextCheck.setSelected(false);
+            ghostCheck.setSelected(false);
+            adaptiveCheck.setSelected(false);
+            fieldChoice.setValue("Off");
             defaultDifficultyChoice.setValue("Medium");
         });
 
@@ -111,6 +139,10 @@ public class SettingsScreen {
             prefs.putInt("volume", (int) volumeSlider.getValue());
             prefs.putBoolean("music", musicCheck.isSelected());
             prefs.putBoolean("sfx", sfxCheck.isSelected());
+            prefs.putBoolean("canvasText", canvasTextCheck.isSelected());
+            prefs.putBoolean("ghost", ghostCheck.isSelected());
+            prefs.putBoolean("adaptive", adaptiveCheck.isSelected());
+            prefs.putInt("fieldRace", "Off".equals(fieldChoice.getValue()) ? 0 : Integer.parseInt(fieldChoice.getValue()));
             prefs.put("difficulty", defaultDifficultyChoice.getValue());
             System.out.println("Settings saved!");
             if (onBack != null) onBack.run();
@@ -124,7 +156,7 @@ public class SettingsScreen {
 
         footer.getChildren().addAll(reset, save, backButton);
 
-        content.getChildren().addAll(volumeLabel, volumeSlider, volValRow, audioLabel, toggles, diffLabel, defaultDifficultyChoice);
+        content.getChildren().addAll(volumeLabel, volumeSlider, volValRow, audioLabel, toggles, displayLabel, canvasTextCheck, ghostCheck, adaptiveCheck, fieldLabel, fieldChoice, diffLabel, defaultDifficultyChoice);
         card.getChildren().addAll(title, subtitle, sep, content, footer);
         outer.getChildren().add(card);
         root.getChildren().add(outer);
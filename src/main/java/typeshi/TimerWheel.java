@@ -0,0 +1,182 @@
+package typeshi;
+
+import java.util.Arrays;
+
+/**
+ * Hashed timer wheel for short deferred effects (delayed red feedback, auto-backspace)
+ *
+ * Entries are plain ints in parallel arrays linked into per-slot lists, so scheduling allocates nothing once the
+ * arrays have grown to the peak number of pending entries. The wheel does not own a thread: whoever drives it
+ * (the frame pulse in the game) calls {@link #advance(long)} with the current time
+ *
+ * Each entry belongs to a channel; {@link #cancelChannel(int)} drops every pending entry of that channel at once,
+ * e.g. when a passage is replaced
+ */
+public class TimerWheel {
+
+    /**
+     * Called for each expired entry, on the thread that calls {@link #advance(long)}
+     */
+    public interface Handler {
+        void onTimer(int channel, int kind, int arg);
+    }
+
+    private static final int NONE = -1;
+
+    private final long tickNanos;
+    private final int mask;
+    private final int[] slotHeads;
+    private final Handler handler;
+
+    // Entry pool (parallel arrays + free list)
+    private int[] next;
+    private int[] remainingRounds;
+    private int[] channels;
+    private int[] epochs;
+    private int[] kinds;
+    private int[] args;
+    private int freeHead = NONE;
+    private int used = 0;
+    private int pending = 0;
+
+    // Incremented to invalidate everything scheduled on a channel
+    private int[] channelEpochs = new int[4];
+
+    private long currentTick = Long.MIN_VALUE;
+
+    /**
+     * @param slots wheel size, rounded up to a power of two
+     * @param tickNanos resolution of one slot
+     */
+    public TimerWheel(int slots, long tickNanos, Handler handler) {
+        int size = Integer.highestOneBit(Math.max(2, slots - 1)) << 1;
+        this.mask = size - 1;
+        this.slotHeads = new int[size];
+        Arrays.fill(slotHeads, NONE);
+        this.tickNanos = tickNanos;
+        this.handler = handler;
+
+        int capacity = 32;
+        next = new int[capacity];
+        remainingRounds = new int[capacity];
+        channels = new int[capacity];
+        epochs = new int[capacity];
+        kinds = new int[capacity];
+        args = new int[capacity];
+    }
+
+    /**
+     * Schedule an entry to fire delayNanos after nowNanos
+     */
+    public void schedule(long nowNanos, long delayNanos, int channel, int kind, int arg) {
+        if (currentTick == Long.MIN_VALUE) currentTick = nowNanos / tickNanos;
+
+        // Round up so an entry never fires early
+        long ticks = Math.max(1, (nowNanos + delayNanos + tickNanos - 1) / tickNanos - currentTick);
+        int slot = (int) ((currentTick + ticks) & mask);
+
+        int e = allocate();
+        remainingRounds[e] = (int) ((ticks - 1) / slotHeads.length);
+        channels[e] = channel;
+        epochs[e] = epochOf(channel);
+        kinds[e] = kind;
+        args[e] = arg;
+        next[e] = slotHeads[slot];
+        slotHeads[slot] = e;
+        pending++;
+    }
+
+    /**
+     * Drop every pending entry of the channel; they are reclaimed lazily when their slot comes round
+     */
+    public void cancelChannel(int channel) {
+        epochOf(channel);
+        channelEpochs[channel]++;
+    }
+
+    /**
+     * Fire every entry due at or before nowNanos
+     */
+    public void advance(long nowNanos) {
+        long target = nowNanos / tickNanos;
+        if (currentTick == Long.MIN_VALUE) {
+            currentTick = target;
+            return;
+        }
+
+        long start = currentTick;
+        long total = target - start;
+        if (total <= 0) return;
+
+        // Visit each slot at most once; after a long stall a slot counts for every turn it missed
+        long steps = Math.min(total, slotHeads.length);
+        for (long s = 1; s <= steps; s++) {
+            currentTick = start + s;
+            long visits = (total - s) / slotHeads.length + 1;
+            expireSlot((int) (currentTick & mask), visits);
+        }
+        currentTick = target;
+    }
+
+    /** Entries scheduled and not yet fired or reclaimed, including cancelled ones */
+    public int pendingCount() {
+        return pending;
+    }
+
+    private void expireSlot(int slot, long visits) {
+        // Detach the list and put back what stays, so the handler may schedule into this slot
+        int e = slotHeads[slot];
+        slotHeads[slot] = NONE;
+        while (e != NONE) {
+            int following = next[e];
+            boolean cancelled = epochs[e] != channelEpochs[channels[e]];
+
+            if (!cancelled && remainingRounds[e] >= visits) {
+                // Fits an int: no more than the rounds left
+                remainingRounds[e] -= (int) visits;
+                next[e] = slotHeads[slot];
+                slotHeads[slot] = e;
+            } else {
+                int channel = channels[e];
+                int kind = kinds[e];
+                int arg = args[e];
+                release(e);
+                if (!cancelled) handler.onTimer(channel, kind, arg);
+            }
+            e = following;
+        }
+    }
+
+    private int epochOf(int channel) {
+        if (channel >= channelEpochs.length) {
+            int[] grown = new int[Math.max(channel + 1, channelEpochs.length * 2)];
+            System.arraycopy(channelEpochs, 0, grown, 0, channelEpochs.length);
+            channelEpochs = grown;
+        }
+        return channelEpochs[channel];
+    }
+
+    private int allocate() {
+        if (freeHead != NONE) {
+            int e = freeHead;
+            freeHead = next[e];
+            return e;
+        }
+        if (used == next.length) {
+            int capacity = next.length * 2;
+            next = Arrays.copyOf(next, capacity);
+            remainingRounds = Arrays.copyOf(remainingRounds, capacity);
+            channels = Arrays.copyOf(channels, capacity);
+            epochs = Arrays.copyOf(epochs, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            args = Arrays.copyOf(args, capacity);
+        }
+        return used++;
+    }
+
+    private void release(int e) {
+        next[e] = freeHead;
+        freeHead = e;
+        pending--;
+    }
+}
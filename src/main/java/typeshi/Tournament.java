@@ -0,0 +1,300 @@
+package typeshi;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Headless bot-vs-bot tournaments between AI profiles
+ *
+ * Every game is a {@link BotMatch}: both bots race on the same seeded passages, are scored by the game's own rules
+ * and the higher final score (points minus errors) wins. Games run in parallel on the common fork/join pool; each
+ * one writes only its own slot of the result arrays, and standings and Elo ratings are folded in game order
+ * afterwards, so a tournament gives the same table for a given seed on any number of cores.
+ *
+ * Round robin plays every pairing gamesPerPairing times, alternating sides. A bracket is single elimination in seed
+ * order (entry order), each tie played over gamesPerPairing games; byes go to the top seeds.
+ *
+ * Usage: Tournament [roundrobin|bracket] [gamesPerPairing] [seconds] [mode] [seed] [outFile]
+ */
+public class Tournament {
+
+    public static final double INITIAL_RATING = 1500;
+    // Small K: a tournament has thousands of games and the ratings should settle, not chase the last result
+    private static final double K_FACTOR = 8;
+
+    /**
+     * One participant: a named AI profile, its bigram model compiled once for all its games
+     */
+    public static final class Entry {
+        final String name;
+        final ComputerOpponentConfig config;
+        final TypistModel model;
+
+        public Entry(String name, ComputerOpponentConfig config) {
+            this.name = name;
+            this.config = config;
+            this.model = TypistModel.forConfig(config);
+        }
+
+        public String getName() { return name; }
+        public ComputerOpponentConfig getConfig() { return config; }
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean bracket = args.length > 0 && args[0].equalsIgnoreCase("bracket");
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : (bracket ? 9 : 250);
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int mode = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        long seed = args.length > 4 ? MatchSeed.parse(args[4]) : 125L;
+        Path out = Path.of(args.length > 5 ? args[5] : "tournament.txt");
+
+        List<Entry> entries = legacyDifficulties();
+        long start = System.nanoTime();
+        Standings standings = bracket ? bracket(entries, games, mode, seconds, seed)
+                : roundRobin(entries, games, mode, seconds, seed);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        StringWriter table = new StringWriter();
+        standings.print(new PrintWriter(table));
+        System.out.print(table);
+        System.out.printf("%d games in %d ms on %d cores%n", standings.getGames(), elapsedMs,
+                Runtime.getRuntime().availableProcessors());
+        Files.writeString(out, table.toString());
+    }
+
+    /**
+     * The ten legacy difficulty levels, strongest first so a bracket seeds them by strength
+     */
+    public static List<Entry> legacyDifficulties() {
+        List<Entry> entries = new ArrayList<>();
+        for (int d = DifficultyCalibration.MAX_DIFFICULTY; d >= DifficultyCalibration.MIN_DIFFICULTY; d--) {
+            entries.add(new Entry("difficulty " + d, ComputerOpponentConfig.fromLegacyDifficulty(d)));
+        }
+        return entries;
+    }
+
+    /**
+     * Every entry against every other, gamesPerPairing games each
+     */
+    public static Standings roundRobin(List<Entry> entries, int gamesPerPairing, int mode, int seconds, long seed) {
+        int n = entries.size();
+        int pairings = n * (n - 1) / 2;
+        int[] first = new int[pairings * gamesPerPairing];
+        int[] second = new int[first.length];
+        int game = 0;
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                for (int g = 0; g < gamesPerPairing; g++, game++) {
+                    // Alternate sides so neither random stream favours one entry
+                    first[game] = g % 2 == 0 ? a : b;
+                    second[game] = g % 2 == 0 ? b : a;
+                }
+            }
+        }
+
+        Standings standings = new Standings(entries);
+        Results results = play(entries, first, second, mode, seconds, new SplittableRandom(seed));
+        for (int g = 0; g < first.length; g++) {
+            standings.record(first[g], second[g], results.first[g], results.second[g]);
+        }
+        return standings;
+    }
+
+    /**
+     * Single elimination in entry order; a tie goes to more wins, then more total final points, then the better seed
+     */
+    public static Standings bracket(List<Entry> entries, int gamesPerTie, int mode, int seconds, long seed) {
+        Standings standings = new Standings(entries);
+        SplittableRandom seeds = new SplittableRandom(seed);
+
+        // Standard seeding (1 v 8, 4 v 5, 2 v 7, 3 v 6, ...); slots past the entry count are byes
+        int[] alive = bracketOrder(Integer.highestOneBit(Math.max(1, entries.size() - 1)) << 1);
+        for (int i = 0; i < alive.length; i++) if (alive[i] >= entries.size()) alive[i] = -1;
+
+        while (alive.length > 1) {
+            int ties = alive.length / 2;
+            int[] first = new int[ties * gamesPerTie];
+            int[] second = new int[first.length];
+            int game = 0;
+            for (int t = 0; t < ties; t++) {
+                int a = alive[2 * t];
+                int b = alive[2 * t + 1];
+                if (a < 0 || b < 0) continue;
+                for (int g = 0; g < gamesPerTie; g++, game++) {
+                    first[game] = g % 2 == 0 ? a : b;
+                    second[game] = g % 2 == 0 ? b : a;
+                }
+            }
+            first = Arrays.copyOf(first, game);
+            second = Arrays.copyOf(second, game);
+
+            Results results = play(entries, first, second, mode, seconds, seeds);
+            int[] next = new int[ties];
+            game = 0;
+            for (int t = 0; t < ties; t++) {
+                int a = alive[2 * t];
+                int b = alive[2 * t + 1];
+                if (a < 0 || b < 0) {
+                    next[t] = Math.max(a, b);
+                    continue;
+                }
+                int winsA = 0;
+                int winsB = 0;
+                long pointsA = 0;
+                long pointsB = 0;
+                for (int g = 0; g < gamesPerTie; g++, game++) {
+                    standings.record(first[game], second[game], results.first[game], results.second[game]);
+                    int finalA = first[game] == a ? results.first[game] : results.second[game];
+                    int finalB = first[game] == a ? results.second[game] : results.first[game];
+                    pointsA += finalA;
+                    pointsB += finalB;
+                    if (finalA > finalB) winsA++;
+                    else if (finalB > finalA) winsB++;
+                }
+                boolean aGoesOn = winsA != winsB ? winsA > winsB : pointsA != pointsB ? pointsA > pointsB : a < b;
+                next[t] = aGoesOn ? a : b;
+            }
+            alive = next;
+        }
+        standings.champion = alive[0];
+        return standings;
+    }
+
+    // Final scores of every game, first[g] for the entry that played side FIRST
+    private static final class Results {
+        final int[] first;
+        final int[] second;
+
+        Results(int games) {
+            first = new int[games];
+            second = new int[games];
+        }
+    }
+
+    private static Results play(List<Entry> entries, int[] first, int[] second, int mode, int seconds,
+                                SplittableRandom seeds) {
+        // Drawn up front so every game's seed depends only on the tournament seed, not on scheduling
+        long[] gameSeeds = new long[first.length];
+        for (int g = 0; g < gameSeeds.length; g++) gameSeeds[g] = seeds.nextLong();
+
+        Results results = new Results(first.length);
+        IntStream.range(0, first.length).parallel().forEach(g -> {
+            Entry a = entries.get(first[g]);
+            Entry b = entries.get(second[g]);
+            BotMatch match = new BotMatch(mode, gameSeeds[g], a.config, a.model, b.config, b.model);
+            match.run(seconds);
+            results.first[g] = match.finalScore(BotMatch.FIRST);
+            results.second[g] = match.finalScore(BotMatch.SECOND);
+        });
+        return results;
+    }
+
+    // Bracket slots so that seeds 0 and 1 can only meet in the final, 0..3 in the semifinals, and so on
+    private static int[] bracketOrder(int size) {
+        int[] order = {0};
+        while (order.length < size) {
+            int[] next = new int[order.length * 2];
+            for (int i = 0; i < order.length; i++) {
+                next[2 * i] = order[i];
+                next[2 * i + 1] = 2 * order.length - 1 - order[i];
+            }
+            order = next;
+        }
+        return order;
+    }
+
+    /**
+     * Win/draw/loss record, final points and Elo rating per entry
+     */
+    public static final class Standings {
+        private final List<Entry> entries;
+        private final int[] wins;
+        private final int[] draws;
+        private final int[] losses;
+        private final long[] points;
+        private final double[] ratings;
+        int champion = -1;
+        private int games = 0;
+
+        Standings(List<Entry> entries) {
+            int n = entries.size();
+            this.entries = entries;
+            this.wins = new int[n];
+            this.draws = new int[n];
+            this.losses = new int[n];
+            this.points = new long[n];
+            this.ratings = new double[n];
+            Arrays.fill(ratings, INITIAL_RATING);
+        }
+
+        void record(int a, int b, int finalA, int finalB) {
+            games++;
+            points[a] += finalA;
+            points[b] += finalB;
+            double scoreA;
+            if (finalA > finalB) {
+                wins[a]++;
+                losses[b]++;
+                scoreA = 1;
+            } else if (finalB > finalA) {
+                wins[b]++;
+                losses[a]++;
+                scoreA = 0;
+            } else {
+                draws[a]++;
+                draws[b]++;
+                scoreA = 0.5;
+            }
+            double expectedA = 1 / (1 + Math.pow(10, (ratings[b] - ratings[a]) / 400));
+            double change = K_FACTOR * (scoreA - expectedA);
+            ratings[a] += change;
+            ratings[b] -= change;
+        }
+
+        public int getGames() { return games; }
+        public int getWins(int entry) { return wins[entry]; }
+        public int getDraws(int entry) { return draws[entry]; }
+        public int getLosses(int entry) { return losses[entry]; }
+        public long getPoints(int entry) { return points[entry]; }
+        public double getRating(int entry) { return ratings[entry]; }
+
+        /** Bracket winner, or -1 for a round robin */
+        public int getChampion() { return champion; }
+
+        /**
+         * Entry indexes from first to last place: match points (win 1, draw 1/2), then rating
+         */
+        public List<Integer> ranking() {
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < entries.size(); i++) order.add(i);
+            order.sort(Comparator.comparingDouble((Integer i) -> wins[i] + draws[i] / 2.0)
+                    .thenComparingDouble(i -> ratings[i]).reversed());
+            return order;
+        }
+
+        public void print(PrintWriter out) {
+            out.printf("%4s %-16s %6s %6s %6s %6s %10s %8s%n",
+                    "rank", "entry", "games", "wins", "draws", "losses", "avg final", "elo");
+            int rank = 1;
+            for (int i : ranking()) {
+                int played = wins[i] + draws[i] + losses[i];
+                out.printf(Locale.ROOT, "%4d %-16s %6d %6d %6d %6d %10.1f %8.1f%n", rank++, entries.get(i).name,
+                        played, wins[i], draws[i], losses[i], played == 0 ? 0.0 : (double) points[i] / played,
+                        ratings[i]);
+            }
+            if (champion >= 0) out.println("Champion: " + entries.get(champion).name);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package typeshi;
+
+/**
+ * Opponent parameters that can be changed while opponents are using them, starting from a
+ * {@link ComputerOpponentConfig}
+ *
+ * The opponent reads the getters on every keystroke, so a {@link #tune} from another thread takes effect from the
+ * next sampled delay on. Values are clamped to the ranges {@link ComputerOpponentConfig} validates; nothing is
+ * allocated
+ */
+public class TunableOpponentConfig implements OpponentParams {
+
+    private static final double MIN_MEAN_MS = 20.0;
+
+    private volatile double meanDelayMs;
+    private volatile double jitterMs;
+    private volatile double errorRate;
+
+    public TunableOpponentConfig(ComputerOpponentConfig initial) {
+        tune(initial.getMeanDelayMs(), initial.getJitterMs(), initial.getErrorRate());
+    }
+
+    public void tune(double meanDelayMs, double jitterMs, double errorRate) {
+        this.meanDelayMs = Math.max(MIN_MEAN_MS, meanDelayMs);
+        this.jitterMs = Math.max(0.0, jitterMs);
+        this.errorRate = Math.max(0.0, Math.min(1.0, errorRate));
+    }
+
+    @Override
+    public double getMeanDelayMs() {
+        return meanDelayMs;
+    }
+
+    @Override
+    public double getJitterMs() {
+        return jitterMs;
+    }
+
+    @Override
+    public double getErrorRate() {
+        return errorRate;
+    }
+}
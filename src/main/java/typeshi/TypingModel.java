@@ -0,0 +1,123 @@
+package typeshi;
+
+/**
+ * Headless typing state for one passage
+ *
+ * Keeps one state byte per character plus a hidden flag (HARD fading) and re-evaluates only the part of the
+ * input that changed since the previous update. Cells whose visible state changed are collected in {@link #changes()}
+ * so the view can restyle just those characters instead of walking the whole passage on every keystroke
+ */
+public class TypingModel {
+
+    public static final byte UNTYPED = 0;
+    public static final byte CORRECT = 1;
+    public static final byte ERROR = 2;
+    // Wrong character whose red feedback is still delayed (Medium/Hard)
+    public static final byte PENDING_ERROR = 3;
+
+    private final String passage;
+    private final byte[] states;
+    private final boolean[] hidden;
+    private final DirtyRanges changes = new DirtyRanges();
+
+    private int typedLength = 0;
+    private int correctCount = 0;
+    private int firstDivergentIndex = 0;
+    private int fadeIndex = 0;
+
+    public TypingModel(String passage) {
+        this.passage = passage == null ? "" : passage;
+        this.states = new byte[this.passage.length()];
+        this.hidden = new boolean[this.passage.length()];
+    }
+
+    /**
+     * Apply the current input text
+     * @param typed full text of the input field
+     * @param editStart lowest index touched since the previous update; anything below it is assumed unchanged
+     * @param delayedFeedback when true new mistakes become {@link #PENDING_ERROR} instead of {@link #ERROR}
+     * @return number of newly wrong characters on visible cells
+     */
+    public int update(CharSequence typed, int editStart, boolean delayedFeedback) {
+        int newLength = Math.min(typed.length(), states.length);
+        int from = Math.max(0, Math.min(editStart, Math.min(typedLength, newLength)));
+        int to = Math.max(typedLength, newLength);
+        int newErrors = 0;
+
+        for (int i = from; i < to; i++) {
+            byte previous = states[i];
+            byte next;
+
+            if (i < newLength) {
+                if (typed.charAt(i) == passage.charAt(i)) {
+                    next = CORRECT;
+                } else if (previous == ERROR || previous == PENDING_ERROR) {
+                    // Already counted for this character
+                    next = previous;
+                } else {
+                    next = delayedFeedback ? PENDING_ERROR : ERROR;
+                    if (!hidden[i]) newErrors++;
+                }
+            } else {
+                next = UNTYPED;
+            }
+
+            if (next == previous) continue;
+            if (previous == CORRECT) correctCount--;
+            if (next == CORRECT) correctCount++;
+            states[i] = next;
+            if (!hidden[i]) changes.add(i);
+        }
+
+        typedLength = newLength;
+
+        // Everything below "from" is unchanged, so the divergence point only moves inside the edited suffix
+        if (firstDivergentIndex >= from) {
+            int d = from;
+            while (d < typedLength && states[d] == CORRECT) d++;
+            firstDivergentIndex = d;
+        }
+
+        return newErrors;
+    }
+
+    /**
+     * Turn a delayed mistake red; does nothing if the character was corrected or retyped meanwhile
+     */
+    public boolean revealError(int index) {
+        if (index < 0 || index >= states.length || states[index] != PENDING_ERROR) return false;
+        states[index] = ERROR;
+        if (!hidden[index]) changes.add(index);
+        return true;
+    }
+
+    /**
+     * HARD: hide the next visible word (up to and including its trailing space)
+     */
+    public void hideNextWord() {
+        while (fadeIndex < hidden.length && hidden[fadeIndex]) fadeIndex++;
+        int start = fadeIndex;
+        while (fadeIndex < hidden.length) {
+            hidden[fadeIndex] = true;
+            char ch = passage.charAt(fadeIndex);
+            fadeIndex++;
+            if (ch == ' ') break;
+        }
+        changes.add(start, fadeIndex);
+    }
+
+    public String getPassage() { return passage; }
+    public int length() { return states.length; }
+    public byte state(int index) { return states[index]; }
+    public boolean isHidden(int index) { return hidden[index]; }
+    public int getTypedLength() { return typedLength; }
+    public int getCorrectCount() { return correctCount; }
+
+    /** Length of the correctly typed prefix */
+    public int getFirstDivergentIndex() { return firstDivergentIndex; }
+
+    public boolean isComplete() { return states.length > 0 && correctCount == states.length; }
+
+    /** Cells changed since the view last cleared this list */
+    public DirtyRanges changes() { return changes; }
+}
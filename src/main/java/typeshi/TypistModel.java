@@ -0,0 +1,309 @@
+package typeshi;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Bigram-aware keystroke model for {@link ComputerOpponent}
+ *
+ * Characters fall into {@link #CLASSES} classes (each lowercase letter, space, uppercase, digit, light punctuation,
+ * symbols, non-ASCII such as the em dash). Every (previous, next) class pair has its own delay distribution and
+ * error rate. Delays are discretised into {@link #BINS} bins and precompiled into Vose alias tables, so a sample costs
+ * one random draw and two array reads and never allocates
+ *
+ * A {@link Profile} stores per-bigram factors relative to a {@link ComputerOpponentConfig}, so one compact binary
+ * profile serves every difficulty. Compiled models are immutable and can be shared between threads
+ */
+public class TypistModel {
+
+    public static final int CLASSES = 32;
+    public static final int BIGRAMS = CLASSES * CLASSES;
+    public static final int BINS = 32;
+
+    static final int SPACE = 26;
+    static final int UPPER = 27;
+    static final int DIGIT = 28;
+    static final int LIGHT_PUNCT = 29;
+    static final int SYMBOL = 30;
+    static final int OTHER = 31;
+
+    // Same floor as ComputerOpponent's Gaussian
+    private static final long MIN_DELAY_NANOS = 20_000_000L;
+    // Bins cover mean +/- 3 sigma
+    private static final double SIGMAS = 3.0;
+
+    // Flat tables indexed by bigram * BINS + bin
+    private final long[] delays;
+    private final double[] cutoffs;
+    private final int[] aliases;
+    private final double[] errorRates;
+
+    private TypistModel(long[] delays, double[] cutoffs, int[] aliases, double[] errorRates) {
+        this.delays = delays;
+        this.cutoffs = cutoffs;
+        this.aliases = aliases;
+        this.errorRates = errorRates;
+    }
+
+    /**
+     * Model for a difficulty config using the built-in profile
+     */
+    public static TypistModel forConfig(ComputerOpponentConfig config) {
+        return compile(Profile.defaults(), config);
+    }
+
+    /**
+     * Build the alias tables: each bigram gets a Gaussian around config mean x delay factor, with sigma
+     * (config jitter / 2) x spread factor, clamped to 20 ms like the flat model
+     */
+    public static TypistModel compile(Profile profile, ComputerOpponentConfig config) {
+        long[] delays = new long[BIGRAMS * BINS];
+        double[] cutoffs = new double[BIGRAMS * BINS];
+        int[] aliases = new int[BIGRAMS * BINS];
+        double[] errorRates = new double[BIGRAMS];
+
+        double[] weights = new double[BINS];
+        int[] small = new int[BINS];
+        int[] large = new int[BINS];
+
+        for (int b = 0; b < BIGRAMS; b++) {
+            double mean = config.getMeanDelayMs() * profile.delayFactors[b];
+            double sigma = config.getJitterMs() / 2.0 * profile.spreadFactors[b];
+            int base = b * BINS;
+
+            if (sigma <= 0) {
+                // Degenerate: every bin is the mean
+                for (int i = 0; i < BINS; i++) {
+                    delays[base + i] = toNanos(mean);
+                    cutoffs[base + i] = 1.0;
+                    aliases[base + i] = i;
+                }
+            } else {
+                double width = 2 * SIGMAS * sigma / BINS;
+                double total = 0;
+                for (int i = 0; i < BINS; i++) {
+                    double z = (-SIGMAS * sigma + (i + 0.5) * width) / sigma;
+                    weights[i] = Math.exp(-0.5 * z * z);
+                    total += weights[i];
+                    delays[base + i] = toNanos(mean + z * sigma);
+                }
+                buildAlias(weights, total, base, cutoffs, aliases, small, large);
+            }
+
+            errorRates[b] = Math.min(1.0, config.getErrorRate() * profile.errorFactors[b]);
+        }
+        return new TypistModel(delays, cutoffs, aliases, errorRates);
+    }
+
+    /**
+     * Delay before typing next when previous was the last character typed
+     */
+    public long sampleDelayNanos(char previous, char next, RandomGenerator random) {
+        int base = bigram(previous, next) * BINS;
+        double u = random.nextDouble() * BINS;
+        int bin = (int) u;
+        int slot = base + bin;
+        return delays[u - bin < cutoffs[slot] ? slot : base + aliases[slot]];
+    }
+
+    public boolean sampleError(char previous, char next, RandomGenerator random) {
+        return random.nextDouble() < errorRates[bigram(previous, next)];
+    }
+
+    /** Expected delay of a bigram in nanoseconds */
+    public double meanDelayNanos(char previous, char next) {
+        int base = bigram(previous, next) * BINS;
+        double sum = 0;
+        for (int i = 0; i < BINS; i++) {
+            double p = cutoffs[base + i];
+            sum += p * delays[base + i] + (1 - p) * delays[base + aliases[base + i]];
+        }
+        return sum / BINS;
+    }
+
+    public double errorRate(char previous, char next) {
+        return errorRates[bigram(previous, next)];
+    }
+
+    static int bigram(char previous, char next) {
+        return classOf(previous) * CLASSES + classOf(next);
+    }
+
+    static int classOf(char c) {
+        if (c >= 'a' && c <= 'z') return c - 'a';
+        if (c == ' ') return SPACE;
+        if (c >= 'A' && c <= 'Z') return UPPER;
+        if (c >= '0' && c <= '9') return DIGIT;
+        if (c == '.' || c == ',' || c == '\'' || c == '-') return LIGHT_PUNCT;
+        if (c < 128) return SYMBOL;
+        return OTHER;
+    }
+
+    private static long toNanos(double ms) {
+        return Math.max(MIN_DELAY_NANOS, (long) (ms * 1_000_000L));
+    }
+
+    // Vose's alias method over weights[0..BINS), written into the bigram's slice of the tables
+    private static void buildAlias(double[] weights, double total, int base, double[] cutoffs, int[] aliases,
+                                   int[] small, int[] large) {
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < BINS; i++) {
+            weights[i] = weights[i] * BINS / total;
+            if (weights[i] < 1.0) small[smallCount++] = i;
+            else large[largeCount++] = i;
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int s = small[--smallCount];
+            int l = large[--largeCount];
+            cutoffs[base + s] = weights[s];
+            aliases[base + s] = l;
+            weights[l] = (weights[l] + weights[s]) - 1.0;
+            if (weights[l] < 1.0) small[smallCount++] = l;
+            else large[largeCount++] = l;
+        }
+        // Leftovers are 1 up to rounding
+        while (largeCount > 0) {
+            int l = large[--largeCount];
+            cutoffs[base + l] = 1.0;
+            aliases[base + l] = l;
+        }
+        while (smallCount > 0) {
+            int s = small[--smallCount];
+            cutoffs[base + s] = 1.0;
+            aliases[base + s] = s;
+        }
+    }
+
+    /**
+     * Per-bigram delay, spread and error factors relative to a difficulty config
+     *
+     * Binary layout (big-endian): magic "TSTP", version byte, class count byte, then for every bigram three
+     * unsigned shorts holding delay, spread and error factors in thousandths (~6 KB)
+     */
+    public static final class Profile {
+
+        private static final int MAGIC = 0x54535450; // "TSTP"
+        private static final int VERSION = 1;
+        private static final double SCALE = 1000.0;
+
+        final float[] delayFactors = new float[BIGRAMS];
+        final float[] spreadFactors = new float[BIGRAMS];
+        final float[] errorFactors = new float[BIGRAMS];
+
+        /**
+         * Every bigram at the flat config's values
+         */
+        public Profile() {
+            Arrays.fill(delayFactors, 1f);
+            Arrays.fill(spreadFactors, 1f);
+            Arrays.fill(errorFactors, 1f);
+        }
+
+        public void set(int previousClass, int nextClass, double delay, double spread, double error) {
+            int b = previousClass * CLASSES + nextClass;
+            delayFactors[b] = (float) clampFactor(delay);
+            spreadFactors[b] = (float) clampFactor(spread);
+            errorFactors[b] = (float) clampFactor(error);
+        }
+
+        /**
+         * Built-in QWERTY profile: alternating hands and frequent English bigrams are quicker, same-finger
+         * bigrams, shifted characters, digits, symbols and the em dash are slower and more error-prone
+         */
+        public static Profile defaults() {
+            return buildDefaults();
+        }
+
+        public static Profile read(InputStream in) throws IOException {
+            DataInputStream data = new DataInputStream(in);
+            if (data.readInt() != MAGIC) throw new IOException("Not a typist profile");
+            int version = data.readUnsignedByte();
+            if (version != VERSION) throw new IOException("Unsupported typist profile version " + version);
+            int classes = data.readUnsignedByte();
+            if (classes != CLASSES) throw new IOException("Profile has " + classes + " classes, expected " + CLASSES);
+
+            Profile p = new Profile();
+            for (int b = 0; b < BIGRAMS; b++) {
+                p.delayFactors[b] = (float) (data.readUnsignedShort() / SCALE);
+                p.spreadFactors[b] = (float) (data.readUnsignedShort() / SCALE);
+                p.errorFactors[b] = (float) (data.readUnsignedShort() / SCALE);
+            }
+            return p;
+        }
+
+        public void write(OutputStream out) throws IOException {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeByte(VERSION);
+            data.writeByte(CLASSES);
+            for (int b = 0; b < BIGRAMS; b++) {
+                data.writeShort((int) Math.round(delayFactors[b] * SCALE));
+                data.writeShort((int) Math.round(spreadFactors[b] * SCALE));
+                data.writeShort((int) Math.round(errorFactors[b] * SCALE));
+            }
+            data.flush();
+        }
+
+        // Factors are stored as thousandths in an unsigned short
+        private static double clampFactor(double factor) {
+            return Math.max(0, Math.min(65.535, factor));
+        }
+
+        private static Profile buildDefaults() {
+            // Finger per letter on QWERTY: 0-3 left pinky..index, 4-7 right index..pinky
+            String fingers = "03222334545644670313431140"; // a..z
+            String common = "th he in er an re on at en nd ti es or te of ed is it al ar st to nt ng";
+
+            Profile p = new Profile();
+            for (int prev = 0; prev < CLASSES; prev++) {
+                for (int next = 0; next < CLASSES; next++) {
+                    double delay = 1.0;
+                    double spread = 1.0;
+                    double error = 1.0;
+
+                    if (next < 26 && prev < 26) {
+                        int f1 = fingers.charAt(prev) - '0';
+                        int f2 = fingers.charAt(next) - '0';
+                        if (prev == next) {
+                            delay = 0.95;
+                        } else if (f1 == f2) {
+                            // Same finger, different key
+                            delay = 1.25;
+                            error = 1.4;
+                        } else if ((f1 < 4) != (f2 < 4)) {
+                            // Alternating hands
+                            delay = 0.85;
+                        }
+                    }
+
+                    switch (next) {
+                        case SPACE: delay *= 0.9; error *= 0.5; break;
+                        case UPPER: delay *= 1.3; spread *= 1.2; error *= 1.3; break;
+                        case DIGIT: delay *= 1.4; spread *= 1.3; error *= 1.5; break;
+                        case LIGHT_PUNCT: delay *= 1.2; error *= 1.2; break;
+                        case SYMBOL: delay *= 1.7; spread *= 1.5; error *= 2.0; break;
+                        case OTHER: delay *= 2.4; spread *= 2.0; error *= 3.0; break;
+                        default: break;
+                    }
+                    // Reaching back from a symbol or the em dash costs a little too
+                    if (prev == SYMBOL || prev == OTHER) delay *= 1.15;
+
+                    p.set(prev, next, delay, spread, error);
+                }
+            }
+
+            for (int i = 0; i + 1 < common.length(); i += 3) {
+                int b = bigram(common.charAt(i), common.charAt(i + 1));
+                p.delayFactors[b] *= 0.8f;
+                p.errorFactors[b] *= 0.7f;
+            }
+            return p;
+        }
+    }
+}
@@ -10,6 +10,8 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.TextFlow;
 
+import java.util.prefs.Preferences;
+
 public class UIComponents {
 
     public BorderPane rootPane;
@@ -19,9 +21,12 @@ public class UIComponents {
 
     public TextFlow targetTextFlow;       // Player target passage
     public TextFlow computerTextFlow;     // Computer typing display
+    public PassageRenderer playerPassageView;   // Player passage (TextFlow runs or canvas)
+    public PassageRenderer computerPassageView; // Computer passage (TextFlow runs or canvas)
     public TextField inputField;          // Player input
     public ProgressBar playerProgress;
     public ProgressBar computerProgress;
+    public FieldLanesView fieldLanes;     // Field race lanes (hidden unless a field race runs)
     public Label playerScoreLabel;
     public Label computerScoreLabel;
     public Label timerLabel;
@@ -36,7 +41,15 @@ public class UIComponents {
 
     private GameController controller;
 
+    // Draw passages on a Canvas instead of TextFlow (Settings > Canvas text rendering)
+    private final boolean canvasPassages;
+
     public UIComponents() {
+        this(Preferences.userNodeForPackage(SettingsScreen.class).getBoolean("canvasText", false));
+    }
+
+    public UIComponents(boolean canvasPassages) {
+        this.canvasPassages = canvasPassages;
         rootPane = new BorderPane();
         rootPane.setPadding(new Insets(15));
         rootPane.setStyle(
@@ -107,6 +120,17 @@ public class UIComponents {
                 "-fx-background-color: #1b1b2f; -fx-padding: 10; -fx-background-radius: 10;"
         );
 
+        Region playerPassageNode;
+        if (canvasPassages) {
+            CanvasPassageView canvasView = new CanvasPassageView(Color.WHITE);
+            canvasView.setStyle("-fx-background-color: #1b1b2f; -fx-background-radius: 10;");
+            playerPassageView = canvasView;
+            playerPassageNode = canvasView;
+        } else {
+            playerPassageView = new PassageView(targetTextFlow, Color.WHITE);
+            playerPassageNode = targetTextFlow;
+        }
+
         inputField = new TextField();
         inputField.setPromptText("Type here...");
         inputField.setFont(Font.font("Consolas", 18));
@@ -120,7 +144,7 @@ public class UIComponents {
 
         playerArea.getChildren().addAll(
                 playerTitleLabel,
-                targetTextFlow,
+                playerPassageNode,
                 inputField,
                 playerProgress,
                 playerScoreLabel
@@ -140,8 +164,22 @@ public class UIComponents {
                 "-fx-background-color: #2b1b1b; -fx-padding: 10; -fx-background-radius: 10;"
         );
 
+        Region computerPassageNode;
+        if (canvasPassages) {
+            CanvasPassageView canvasView = new CanvasPassageView(Color.GRAY);
+            canvasView.setStyle("-fx-background-color: #2b1b1b; -fx-background-radius: 10;");
+            computerPassageView = canvasView;
+            computerPassageNode = canvasView;
+        } else {
+            computerPassageView = new PassageView(computerTextFlow, Color.GRAY);
+            computerPassageNode = computerTextFlow;
+        }
+
         computerProgress = new ProgressBar(0);
 
+        fieldLanes = new FieldLanesView();
+        fieldLanes.setRace(null);
+
         computerScoreLabel = new Label("Score: 0 | Errors: 0");
         computerScoreLabel.setFont(Font.font("Consolas", 16));
         computerScoreLabel.setTextFill(Color.WHITE);
@@ -156,8 +194,9 @@ public class UIComponents {
 
         computerArea.getChildren().addAll(
                 opponentTitleLabel,
-                computerTextFlow,
+                computerPassageNode,
                 computerProgress,
+                fieldLanes,
                 computerScoreLabel,
                 scrollPane
         );
@@ -174,10 +213,11 @@ public class UIComponents {
         computerArea.maxWidthProperty().bind(columnWidth);
 
         // Inner content tracks the column width
-        targetTextFlow.maxWidthProperty().bind(columnWidth);
+        playerPassageNode.maxWidthProperty().bind(columnWidth);
         playerProgress.maxWidthProperty().bind(columnWidth);
-        computerTextFlow.maxWidthProperty().bind(columnWidth);
+        computerPassageNode.maxWidthProperty().bind(columnWidth);
         computerProgress.maxWidthProperty().bind(columnWidth);
+        fieldLanes.maxWidthProperty().bind(columnWidth);
 
         rootPane.setCenter(center);
     }
@@ -28,8 +28,8 @@ public class VictoryScreen {
 
         this.onBack = onBack;
 
-        int playerFinal = playerScore - playerErrors;
-        int computerFinal = computerScore - computerErrors;
+        int playerFinal = ScoreManager.finalScore(playerScore, playerErrors);
+        int computerFinal = ScoreManager.finalScore(computerScore, computerErrors);
 
         boolean playerWon = playerFinal > computerFinal;
 
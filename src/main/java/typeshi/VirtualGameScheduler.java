@@ -0,0 +1,125 @@
+package typeshi;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Deterministic {@link GameScheduler} on simulated time
+ *
+ * Nothing runs until the owner advances the clock; due tasks then run on the calling thread in due-time order
+ * (ties in scheduling order), with the clock set to each task's due time while it runs. Not thread-safe
+ */
+public class VirtualGameScheduler implements GameScheduler {
+
+    private final PriorityQueue<VirtualTask> queue = new PriorityQueue<>();
+    private long now = 0;
+    private long sequence = 0;
+    private boolean shutdown = false;
+
+    @Override
+    public long nanoTime() {
+        return now;
+    }
+
+    @Override
+    public Task schedule(Runnable task, long delay, TimeUnit unit) {
+        return enqueue(task, unit.toNanos(delay), 0);
+    }
+
+    @Override
+    public Task scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) throw new IllegalArgumentException("period must be > 0");
+        return enqueue(task, unit.toNanos(initialDelay), unit.toNanos(period));
+    }
+
+    @Override
+    public void shutdownNow() {
+        shutdown = true;
+        for (VirtualTask t : queue) t.cancelled = true;
+        queue.clear();
+    }
+
+    public void advanceBy(long amount, TimeUnit unit) {
+        advanceTo(now + unit.toNanos(amount));
+    }
+
+    /**
+     * Run every task due up to target, then leave the clock at target
+     */
+    public void advanceTo(long targetNanos) {
+        while (!queue.isEmpty() && queue.peek().due <= targetNanos) {
+            runNext();
+        }
+        now = Math.max(now, targetNanos);
+    }
+
+    /**
+     * Run tasks in order until done returns true, the queue empties or the clock would pass the limit
+     * @return whether done became true
+     */
+    public boolean runUntil(BooleanSupplier done, long limit, TimeUnit unit) {
+        long limitNanos = now + unit.toNanos(limit);
+        while (!done.getAsBoolean()) {
+            if (queue.isEmpty() || queue.peek().due > limitNanos) return false;
+            runNext();
+        }
+        return true;
+    }
+
+    /** Tasks waiting to run, including periodic ones */
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    private void runNext() {
+        VirtualTask t = queue.poll();
+        if (t.cancelled) return;
+        now = Math.max(now, t.due);
+        t.runnable.run();
+
+        if (t.period > 0 && !t.cancelled && !shutdown) {
+            t.due += t.period;
+            t.order = sequence++;
+            queue.add(t);
+        }
+    }
+
+    private Task enqueue(Runnable runnable, long delayNanos, long periodNanos) {
+        VirtualTask t = new VirtualTask(runnable, now + Math.max(0, delayNanos), periodNanos, sequence++);
+        if (shutdown) t.cancelled = true;
+        else queue.add(t);
+        return t;
+    }
+
+    private static final class VirtualTask implements Task, Comparable<VirtualTask> {
+        final Runnable runnable;
+        final long period;
+        long due;
+        long order;
+        boolean cancelled;
+
+        VirtualTask(Runnable runnable, long due, long period, long order) {
+            this.runnable = runnable;
+            this.due = due;
+            this.period = period;
+            this.order = order;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public int compareTo(VirtualTask o) {
+            if (due != o.due) return Long.compare(due, o.due);
+            return Long.compare(order, o.order);
+        }
+    }
+}
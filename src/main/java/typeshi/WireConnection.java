@@ -0,0 +1,170 @@
+package typeshi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * One blocking multiplayer socket speaking {@link WireProtocol}
+ *
+ * Sends encode into one reused buffer and go out in a single write; they may come from any thread. Receiving is
+ * for one thread (the receive loop): frames are decoded in place from a reused buffer, so the hot messages create
+ * no garbage on either side
+ */
+public class WireConnection implements Closeable {
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+
+    private final ByteBuffer sendBuffer = ByteBuffer.allocate(WireProtocol.MAX_HEADER + WireProtocol.MAX_FRAME);
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(WireProtocol.MAX_HEADER + WireProtocol.MAX_FRAME);
+    private final WireProtocol.Decoder decoder = new WireProtocol.Decoder();
+
+    // What this side announced in its HELLO, and what both agreed on
+    private int announced = 0;
+    private int capabilities = 0;
+    private int peerUdpPort = 0;
+
+    protected WireConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        socket.setTcpNoDelay(true);
+        this.in = socket.getInputStream();
+        this.out = socket.getOutputStream();
+        receiveBuffer.flip();
+    }
+
+    /* ---------- SEND ---------- */
+
+    /** START, PAUSE, RESUME, FINISHED or DISCONNECT */
+    public synchronized void send(byte opcode) throws IOException {
+        WireProtocol.write(sendBuffer, opcode);
+        flush();
+    }
+
+    /** PROGRESS, ABS or FINAL_SCORE */
+    public synchronized void send(byte opcode, int first, int second) throws IOException {
+        WireProtocol.write(sendBuffer, opcode, first, second);
+        flush();
+    }
+
+    public synchronized void sendText(String passage) throws IOException {
+        WireProtocol.writeText(sendBuffer, passage);
+        flush();
+    }
+
+    public synchronized void sendConfig(int roundSeconds, int difficulty, int mode) throws IOException {
+        WireProtocol.writeConfig(sendBuffer, roundSeconds, difficulty, mode);
+        flush();
+    }
+
+    /**
+     * @param room room to join on a race server, or null
+     * @param udpPort local port of this side's {@link ProgressChannel}, 0 for progress on this connection only
+     */
+    public synchronized void sendHello(String room, int udpPort) throws IOException {
+        announced = udpPort > 0 ? WireProtocol.CAP_UDP_PROGRESS : 0;
+        WireProtocol.writeHello(sendBuffer, room, announced, udpPort);
+        flush();
+    }
+
+    /*
+     * Batching for ProgressCoalescer: frames put while holding the connection's lock go out in one flush()
+     */
+
+    void put(byte opcode) {
+        WireProtocol.write(sendBuffer, opcode);
+    }
+
+    void put(byte opcode, int first, int second) {
+        WireProtocol.write(sendBuffer, opcode, first, second);
+    }
+
+    void flush() throws IOException {
+        try {
+            out.write(sendBuffer.array(), 0, sendBuffer.position());
+        } finally {
+            sendBuffer.clear();
+        }
+    }
+
+    /* ---------- RECEIVE ---------- */
+
+    /**
+     * Block for the next frame
+     * @return the decoder holding it, valid until the next call; null when the other side closed
+     */
+    public WireProtocol.Decoder receive() throws IOException {
+        while (!decoder.next(receiveBuffer)) {
+            receiveBuffer.compact();
+            int n = in.read(receiveBuffer.array(), receiveBuffer.position(), receiveBuffer.remaining());
+            if (n < 0) {
+                receiveBuffer.flip();
+                if (receiveBuffer.hasRemaining()) throw new ProtocolException("Connection closed mid-frame");
+                return null;
+            }
+            receiveBuffer.position(receiveBuffer.position() + n);
+            receiveBuffer.flip();
+        }
+        return decoder;
+    }
+
+    /* ---------- HANDSHAKE ---------- */
+
+    /**
+     * Host side: wait for the joiner's HELLO and answer it
+     * @param udpPort as for {@link #sendHello(String, int)}
+     * @throws ProtocolException when the joiner speaks something else (it is told with DISCONNECT first)
+     */
+    public void acceptHello(int udpPort) throws IOException {
+        WireProtocol.Decoder hello = receive();
+        if (hello == null) throw new IOException("Opponent left before the handshake");
+        if (hello.opcode() != WireProtocol.HELLO || !WireProtocol.supports(hello.first())) {
+            int version = hello.opcode() == WireProtocol.HELLO ? hello.first() : 0;
+            send(WireProtocol.DISCONNECT);
+            throw new ProtocolException("Opponent speaks protocol version " + version + ", this game "
+                    + WireProtocol.VERSION);
+        }
+        int peerCapabilities = hello.second();
+        int peerPort = hello.third();
+        sendHello(null, udpPort);
+        agree(peerCapabilities, peerPort);
+    }
+
+    /**
+     * Joiner side: the host's answer to {@link #sendHello(String, int)}
+     */
+    public void checkHello(WireProtocol.Decoder hello) throws ProtocolException {
+        if (!WireProtocol.supports(hello.first())) {
+            throw new ProtocolException("Host speaks protocol version " + hello.first() + ", this game "
+                    + WireProtocol.VERSION);
+        }
+        agree(hello.second(), hello.third());
+    }
+
+    private void agree(int peerCapabilities, int peerPort) {
+        capabilities = WireProtocol.negotiate(announced, peerCapabilities);
+        if (peerPort <= 0) capabilities &= ~WireProtocol.CAP_UDP_PROGRESS;
+        peerUdpPort = peerPort;
+    }
+
+    /** Capability bits both sides have, after the handshake */
+    public int getCapabilities() { return capabilities; }
+
+    public boolean has(int capability) { return (capabilities & capability) != 0; }
+
+    /** The other side's progress channel port from its HELLO, 0 for none */
+    public int getPeerUdpPort() { return peerUdpPort; }
+
+    public InetAddress getRemoteAddress() { return socket.getInetAddress(); }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
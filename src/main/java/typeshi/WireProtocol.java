@@ -0,0 +1,241 @@
+package typeshi;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary multiplayer protocol: length-prefixed frames of one opcode byte plus varint fields
+ *
+ * A frame is varint(length) followed by length bytes: the opcode, then its fields. Integers are unsigned LEB128
+ * varints of the 32-bit value (so a negative int still round-trips, in five bytes), texts are a varint byte count
+ * and UTF-8. A progress update is usually 4 or 5 bytes, where the text line "PROGRESS:1234:17" took 17.
+ *
+ * The joining side opens with HELLO(version, capabilities, room, udpPort) instead of the bare READY; the host
+ * answers with its own HELLO, or with DISCONNECT when it cannot speak the joiner's version, and then sends TEXT, CFG
+ * and START as before. Both sides use the capabilities they have in common ({@link #negotiate(int, int)}).
+ * {@link #CAP_UDP_PROGRESS} moves progress to a {@link ProgressChannel} on the announced UDP ports
+ */
+public final class WireProtocol {
+
+    public static final int VERSION = 1;
+    // Oldest version this build can still talk to
+    public static final int MIN_VERSION = 1;
+    // Capability bits; HELLO carries them so later additions need no new version
+    public static final int CAP_UDP_PROGRESS = 1;
+    // Every capability this build knows
+    public static final int CAPABILITIES = CAP_UDP_PROGRESS;
+
+    // Longest frame body accepted; a passage is far shorter
+    public static final int MAX_FRAME = 16 * 1024;
+    // Largest varint prefix of a frame no longer than MAX_FRAME
+    public static final int MAX_HEADER = 3;
+
+    public static final byte HELLO = 1;
+    public static final byte TEXT = 2;
+    public static final byte CFG = 3;
+    public static final byte START = 4;
+    public static final byte PROGRESS = 5;
+    public static final byte ABS = 6;
+    public static final byte PAUSE = 7;
+    public static final byte RESUME = 8;
+    public static final byte FINISHED = 9;
+    public static final byte FINAL_SCORE = 10;
+    public static final byte DISCONNECT = 11;
+
+    private WireProtocol() {}
+
+    /** Whether a peer announcing this version can be talked to */
+    public static boolean supports(int version) {
+        return version >= MIN_VERSION && version <= VERSION;
+    }
+
+    /** Capabilities both sides announced */
+    public static int negotiate(int ownCapabilities, int peerCapabilities) {
+        return CAPABILITIES & ownCapabilities & peerCapabilities;
+    }
+
+    /* ---------- ENCODE ---------- */
+
+    /** Frame without fields (START, PAUSE, RESUME, FINISHED, DISCONNECT) */
+    public static void write(ByteBuffer out, byte opcode) {
+        putVarint(out, 1);
+        out.put(opcode);
+    }
+
+    /** Frame with two fields (PROGRESS, ABS, FINAL_SCORE) */
+    public static void write(ByteBuffer out, byte opcode, int first, int second) {
+        putVarint(out, 1 + varintSize(first) + varintSize(second));
+        out.put(opcode);
+        putVarint(out, first);
+        putVarint(out, second);
+    }
+
+    public static void writeConfig(ByteBuffer out, int roundSeconds, int difficulty, int mode) {
+        putVarint(out, 1 + varintSize(roundSeconds) + varintSize(difficulty) + varintSize(mode));
+        out.put(CFG);
+        putVarint(out, roundSeconds);
+        putVarint(out, difficulty);
+        putVarint(out, mode);
+    }
+
+    public static void writeText(ByteBuffer out, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        putVarint(out, 1 + varintSize(bytes.length) + bytes.length);
+        out.put(TEXT);
+        putVarint(out, bytes.length);
+        out.put(bytes);
+    }
+
+    /**
+     * @param room room to join on a race server, or null
+     * @param udpPort local port of the progress channel, 0 when there is none
+     */
+    public static void writeHello(ByteBuffer out, String room, int capabilities, int udpPort) {
+        byte[] bytes = room == null ? new byte[0] : room.getBytes(StandardCharsets.UTF_8);
+        putVarint(out, 1 + varintSize(VERSION) + varintSize(capabilities) + varintSize(bytes.length) + bytes.length
+                + varintSize(udpPort));
+        out.put(HELLO);
+        putVarint(out, VERSION);
+        putVarint(out, capabilities);
+        putVarint(out, bytes.length);
+        out.put(bytes);
+        putVarint(out, udpPort);
+    }
+
+    static int varintSize(int value) {
+        long v = value & 0xFFFFFFFFL;
+        int size = 1;
+        while ((v & ~0x7FL) != 0) {
+            v >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static void putVarint(ByteBuffer out, int value) {
+        long v = value & 0xFFFFFFFFL;
+        while ((v & ~0x7FL) != 0) {
+            out.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    /* ---------- DECODE ---------- */
+
+    /**
+     * Reads frames out of a buffer in place; one instance per connection, reused for every frame
+     *
+     * Only TEXT and a HELLO room name create objects. The fields of the current frame are valid until the next call
+     * to {@link #next(ByteBuffer)}
+     */
+    public static final class Decoder {
+        private byte opcode;
+        private int first;
+        private int second;
+        private int third;
+        private String text;
+        private int frameStart;
+
+        /**
+         * Decode the frame at the buffer's position (the buffer is in read mode)
+         * @return false when the buffer holds only part of a frame; its position is then left at the frame's start
+         */
+        public boolean next(ByteBuffer in) throws ProtocolException {
+            int start = in.position();
+            int limit = in.limit();
+            int length = 0;
+            int p = start;
+            for (int shift = 0; ; shift += 7) {
+                if (p == limit) return false;
+                if (shift > 14) throw new ProtocolException("Frame length too long");
+                byte b = in.get(p++);
+                length |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) break;
+            }
+            if (length < 1 || length > MAX_FRAME) throw new ProtocolException("Bad frame length " + length);
+            if (limit - p < length) return false;
+
+            int end = p + length;
+            in.position(p);
+            frameStart = start;
+            opcode = in.get();
+            text = null;
+            switch (opcode) {
+                case HELLO:
+                    first = getVarint(in, end);
+                    second = getVarint(in, end);
+                    text = getText(in, end);
+                    if (text.isEmpty()) text = null;
+                    // Optional: the first version did not send it
+                    third = in.position() < end ? getVarint(in, end) : 0;
+                    break;
+                case TEXT:
+                    text = getText(in, end);
+                    break;
+                case CFG:
+                    first = getVarint(in, end);
+                    second = getVarint(in, end);
+                    third = getVarint(in, end);
+                    break;
+                case PROGRESS:
+                case ABS:
+                case FINAL_SCORE:
+                    first = getVarint(in, end);
+                    second = getVarint(in, end);
+                    break;
+                default:
+                    // Field-less, or unknown: skipped, so newer peers may add opcodes
+                    break;
+            }
+            // Trailing fields a newer version added are skipped as well
+            in.position(end);
+            return true;
+        }
+
+        public byte opcode() { return opcode; }
+
+        /** HELLO version, CFG round seconds, PROGRESS/ABS position, FINAL_SCORE score */
+        public int first() { return first; }
+
+        /** HELLO capabilities, CFG difficulty, PROGRESS/ABS/FINAL_SCORE errors */
+        public int second() { return second; }
+
+        /** CFG mode, HELLO UDP port (0 for none) */
+        public int third() { return third; }
+
+        /** TEXT passage, HELLO room (null when none) */
+        public String text() { return text; }
+
+        /** Buffer index where the current frame (its length prefix) starts; the frame ends at the position */
+        public int frameStart() { return frameStart; }
+
+        static int getVarint(ByteBuffer in, int end) throws ProtocolException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (in.position() >= end) throw new ProtocolException("Truncated field");
+                byte b = in.get();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new ProtocolException("Field too long");
+        }
+
+        private static String getText(ByteBuffer in, int end) throws ProtocolException {
+            int length = getVarint(in, end);
+            if (length < 0 || length > end - in.position()) throw new ProtocolException("Truncated text");
+            if (length == 0) return "";
+            String value;
+            if (in.hasArray()) {
+                value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+            } else {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return value;
+        }
+    }
+}
@@ -53,7 +53,25 @@ public class WordGenerator {
             "Software development is the art of transforming vague ideas into precise instructions that computers relentlessly follow."
     );
 
-    private final Random random = new Random();
+    private final Random random;
+
+    public WordGenerator() {
+        this.random = new Random();
+    }
+
+    /**
+     * Generator whose passage choices are reproducible from the seed
+     */
+    public WordGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Restart the choice sequence from a seed (e.g. a round's {@link MatchSeed} stream)
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
 
     /**
      * Get a random passage based on difficulty level
@@ -114,6 +132,14 @@ public class WordGenerator {
         return getRandomPassage(2);  // Default to medium
     }
 
+    /**
+     * Every passage of a difficulty tier (read-only)
+     * @param mode 1 = Easy, 2 = Medium, 3 = Hard
+     */
+    public List<String> getPassages(int mode) {
+        return listForMode(mode);
+    }
+
     // Helper to map mode to the correct list
     private List<String> listForMode(int mode) {
         switch (mode) {
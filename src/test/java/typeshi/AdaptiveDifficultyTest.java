@@ -0,0 +1,53 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveDifficultyTest {
+
+    @Test
+    public void testFastAiIsPulledBackToThePlayersPace() {
+        // player types 50 WPM (240 ms per key) with one mistake in 20; the AI starts at level 10 (80 ms per key)
+        long keyNanos = TimeUnit.MILLISECONDS.toNanos(240);
+        long frameNanos = TimeUnit.MILLISECONDS.toNanos(16);
+        KeystrokeJournal journal = new KeystrokeJournal();
+        PlayerPace pace = new PlayerPace(journal, 0.05, 125);
+        TunableOpponentConfig config = new TunableOpponentConfig(ComputerOpponentConfig.fromLegacyDifficulty(10));
+        AdaptiveDifficulty controller = new AdaptiveDifficulty(config, 0);
+
+        VirtualGameScheduler scheduler = new VirtualGameScheduler();
+        ComputerOpponent ai = new ComputerOpponent("x".repeat(100_000), new ComputerOpponentTest.DummyListener(),
+                config, new SplittableRandom(4), scheduler::nanoTime);
+        OpponentDriver driver = OpponentDriver.eventDriven(scheduler, null);
+        driver.drive(ai);
+
+        int playerChars = 0;
+        long nextKey = keyNanos;
+        double maxLateLead = 0;
+        for (long now = 0; now <= TimeUnit.SECONDS.toNanos(90); now += frameNanos) {
+            while (nextKey <= now) {
+                playerChars++;
+                byte flag = playerChars % 20 == 0 ? KeystrokeJournal.ERROR : KeystrokeJournal.CORRECT;
+                journal.record(nextKey, 'x', 'x', flag);
+                nextKey += keyNanos;
+            }
+            scheduler.advanceTo(now);
+            pace.update();
+            double lead = ai.getPosition() - playerChars;
+            controller.update(now, pace, lead);
+            if (now > TimeUnit.SECONDS.toNanos(45)) maxLateLead = Math.max(maxLateLead, Math.abs(lead));
+        }
+        driver.stop();
+
+        assertEquals(50.0, pace.wpm(), 0.5);
+        assertEquals(0.95, pace.accuracy(), 0.05);
+        assertTrue(maxLateLead < 12, "AI should settle near the player, worst lead " + maxLateLead);
+        // 240 ms keys => the AI's mean delay ends up close to the player's interval
+        assertEquals(240.0, config.getMeanDelayMs(), 60.0);
+        assertEquals(pace.accuracy(), 1.0 - config.getErrorRate(), 0.01);
+    }
+}
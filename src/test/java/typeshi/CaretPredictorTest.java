@@ -0,0 +1,54 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CaretPredictorTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long FRAME = 16 * MS;
+
+    @Test
+    public void testCaretGlidesThroughBurstsAndReconciles() {
+        CaretPredictor caret = new CaretPredictor(5.0);
+        caret.reset(100, 0);
+
+        // Steady 10 characters per second: the rate is learned and the caret never runs more than one ahead
+        long now = 0;
+        int position = 0;
+        for (int i = 0; i < 20; i++) {
+            for (int f = 0; f < 6; f++) {
+                now += FRAME;
+                double display = caret.advance(now);
+                assertTrue(display <= position + CaretPredictor.MAX_LEAD + 1e-9);
+            }
+            now += 4 * MS;
+            caret.observe(++position, now);
+        }
+        assertEquals(10.0, caret.getRate(), 1.5);
+
+        // A burst of five characters after a silence: the caret walks there over several frames, never backwards
+        now += 500 * MS;
+        caret.advance(now);
+        position += 5;
+        caret.observe(position, now);
+        double previous = caret.advance(now + FRAME);
+        int frames = 1;
+        for (long t = now + 2 * FRAME; previous < position; t += FRAME, frames++) {
+            double display = caret.advance(t);
+            assertTrue(display >= previous);
+            assertTrue(display - previous < 1.0);
+            previous = display;
+        }
+        assertTrue(frames > 3);
+
+        // Deleted characters snap the caret back at once
+        now += 2_000 * MS;
+        caret.observe(position - 3, now);
+        assertEquals(position - 3, (int) caret.advance(now + FRAME));
+
+        // While held nothing is extrapolated
+        assertEquals(position - 3, caret.hold(now + 10 * FRAME), 1e-9);
+    }
+}
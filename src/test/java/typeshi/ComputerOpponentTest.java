@@ -2,8 +2,6 @@ package typeshi;
 
 import org.junit.jupiter.api.Test;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -11,35 +9,85 @@ import static org.junit.jupiter.api.Assertions.*;
 public class ComputerOpponentTest {
 
     @Test
-    public void testFastAccurateOpponentFinishes() throws Exception {
+    public void testFastAccurateOpponentFinishes() {
         String passage = "hello world"; // 11 chars
         // fast mean and tiny jitter, no errors
         ComputerOpponentConfig config = new ComputerOpponentConfig(10.0, 1.0, 0.0);
 
-        ComputerOpponent ai = new ComputerOpponent(passage, new DummyController(), config, new java.util.Random(42));
+        VirtualGameScheduler scheduler = new VirtualGameScheduler();
+        ComputerOpponent ai = new ComputerOpponent(passage, new DummyListener(), config, new java.util.Random(42),
+                scheduler::nanoTime);
+        scheduler.scheduleAtFixedRate(ai, 0, 10, TimeUnit.MILLISECONDS);
 
-        ScheduledExecutorService pool = Executors.newScheduledThreadPool(1);
-        pool.scheduleAtFixedRate(ai, 0, 10, TimeUnit.MILLISECONDS);
-
-        // wait up to 2 seconds for completion
-        long start = System.currentTimeMillis();
-        while (ai.isRunning() && (System.currentTimeMillis() - start) < 2000) {
-            Thread.sleep(20);
-        }
-
-        pool.shutdownNow();
+        // up to 2 seconds of game time, simulated
+        scheduler.runUntil(() -> !ai.isRunning(), 2, TimeUnit.SECONDS);
 
         assertFalse(ai.isRunning(), "Computer should have finished");
         assertEquals(passage.length(), ai.getPosition(), "Position should match passage length");
         assertEquals(0, ai.getErrors(), "No errors expected");
     }
 
-    // Minimal controller stub used for tests
-    static class DummyController extends GameController {
-        DummyController() {
-            super(null);
+    @Test
+    public void testHeadlessMatchRunsInVirtualTime() {
+        long start = System.nanoTime();
+        HeadlessMatch match = new HeadlessMatch(new WordGenerator(), 3,
+                ComputerOpponentConfig.fromLegacyDifficulty(10), new java.util.Random(7));
+        ScoreManager scores = match.run(120);
+
+        assertEquals(TimeUnit.SECONDS.toNanos(120), match.getScheduler().nanoTime());
+        assertFalse(match.getEngine().isRunning());
+        assertTrue(match.getEngine().getOpponentFinishedCount() > 0, "A fast AI finishes passages in two minutes");
+        assertTrue(scores.getComputerScore() > 0);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "Simulation should not wait in real time");
+    }
+
+    @Test
+    public void testDriverKeepsOneTickTaskAcrossPassages() {
+        int liveBefore = OpponentDriver.liveTaskCount();
+        HeadlessMatch match = new HeadlessMatch(new WordGenerator(), 1,
+                ComputerOpponentConfig.fromLegacyDifficulty(10), new java.util.Random(3), false);
+        VirtualGameScheduler scheduler = (VirtualGameScheduler) match.getScheduler();
+        match.run(120);
+
+        OpponentDriver driver = match.getOpponentDriver();
+        assertTrue(driver.swapCount() > 0, "AI should have moved on to new passages");
+        assertEquals(match.getEngine().getOpponentFinishedCount(), driver.swapCount());
+        assertFalse(driver.isSubscribed());
+        assertEquals(liveBefore, OpponentDriver.liveTaskCount());
+        assertEquals(0, scheduler.pendingCount());
+        // one tick per 100 ms, however many passages were typed
+        assertTrue(driver.tickCount() <= 1200, "ticks: " + driver.tickCount());
+    }
+
+    @Test
+    public void testEventDrivenKeystrokesLandOnTheirDeadlines() {
+        String passage = "type shi";
+        // no jitter: every keystroke exactly 250 ms after the previous one
+        ComputerOpponentConfig config = new ComputerOpponentConfig(250.0, 0.0, 0.0);
+        VirtualGameScheduler scheduler = new VirtualGameScheduler();
+        long[] times = new long[passage.length()];
+
+        OpponentDriver driver = OpponentDriver.eventDriven(scheduler, null);
+        driver.drive(new ComputerOpponent(passage, new DummyListener() {
+            @Override
+            public void updateComputerTyping(int position, int errors, boolean lastWasCorrect) {
+                times[position - 1] = scheduler.nanoTime();
+            }
+        }, config, new java.util.Random(1), scheduler::nanoTime));
+
+        scheduler.advanceBy(10, TimeUnit.SECONDS);
+
+        for (int i = 0; i < times.length; i++) {
+            assertEquals(TimeUnit.MILLISECONDS.toNanos(250L * (i + 1)), times[i], "keystroke " + i);
         }
+        // one wakeup per keystroke, nothing left queued
+        assertEquals(passage.length(), driver.tickCount());
+        assertEquals(0, scheduler.pendingCount());
+        driver.stop();
+    }
 
+    // Minimal listener stub used for tests
+    static class DummyListener implements ComputerOpponent.Listener {
         @Override
         public void updateComputerTyping(int position, int errors, boolean lastWasCorrect) {
             // no-op for tests (headless)
@@ -50,4 +98,4 @@ public class ComputerOpponentTest {
             // no-op for tests
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DifficultyCalibrationTest {
+
+    @Test
+    public void testSameSeedGivesSameCellsOnAnyPool() throws Exception {
+        WordGenerator words = new WordGenerator();
+        DifficultyCalibration.Cell[] parallel = DifficultyCalibration.calibrate(words, 40, 7L);
+
+        // The parallel stream runs on the pool of the task that starts it, here a single thread
+        ForkJoinPool single = new ForkJoinPool(1);
+        DifficultyCalibration.Cell[] sequential;
+        try {
+            sequential = single.submit(() -> DifficultyCalibration.calibrate(words, 40, 7L)).get();
+        } finally {
+            single.shutdown();
+        }
+        assertEquals(csv(sequential), csv(parallel));
+
+        // Cells by mode, then difficulty 1..10, each faster than the one before
+        int difficulties = DifficultyCalibration.MAX_DIFFICULTY - DifficultyCalibration.MIN_DIFFICULTY + 1;
+        assertEquals(DifficultyCalibration.MODES * difficulties, parallel.length);
+        for (int i = 0; i < parallel.length; i++) {
+            DifficultyCalibration.Cell cell = parallel[i];
+            assertEquals(i / difficulties + 1, cell.getMode());
+            assertEquals(i % difficulties + DifficultyCalibration.MIN_DIFFICULTY, cell.getDifficulty());
+            if (i % difficulties > 0) assertTrue(cell.meanWpm() > parallel[i - 1].meanWpm());
+        }
+    }
+
+    private static String csv(DifficultyCalibration.Cell[] cells) {
+        StringWriter out = new StringWriter();
+        DifficultyCalibration.printCsv(cells, new PrintWriter(out));
+        return out.toString();
+    }
+}
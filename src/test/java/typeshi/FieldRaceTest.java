@@ -0,0 +1,47 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FieldRaceTest {
+
+    @Test
+    public void testSixtyFourLanesShareOneTick() {
+        String passage = "Small steps lead to big progress.";
+        FieldRace race = new FieldRace(passage, FieldRace.mixedField(64, 5), new SplittableRandom(9));
+        assertEquals(64, race.lanes());
+
+        long frame = TimeUnit.MILLISECONDS.toNanos(16);
+        long now = 0;
+        int version = race.version();
+        while (race.getFinishedCount() < race.lanes() && now < TimeUnit.SECONDS.toNanos(60)) {
+            race.tick(now);
+            now += frame;
+        }
+        assertTrue(race.version() > version);
+        assertEquals(race.lanes(), race.getFinishedCount());
+
+        // lanes cycle difficulty 3..7, so lane 4 (difficulty 7) beats lane 0 (difficulty 3) on average
+        long slow = 0;
+        long fast = 0;
+        for (int lane = 0; lane < race.lanes(); lane += 5) {
+            slow += race.finishTimeNanos(lane);
+            if (lane + 4 < race.lanes()) fast += race.finishTimeNanos(lane + 4);
+            assertEquals(passage.length(), race.position(lane));
+        }
+        assertTrue(fast < slow);
+        assertEquals(race.lanes(), race.finishedBefore(now));
+        assertEquals(0, race.finishedBefore(0));
+
+        // pausing holds every lane
+        FieldRace paused = new FieldRace(passage, FieldRace.mixedField(8, 5), new SplittableRandom(9));
+        paused.tick(0);
+        paused.hold(TimeUnit.SECONDS.toNanos(30));
+        paused.tick(TimeUnit.SECONDS.toNanos(30));
+        for (int lane = 0; lane < paused.lanes(); lane++) assertEquals(0, paused.position(lane));
+    }
+}
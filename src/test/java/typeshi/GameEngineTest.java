@@ -0,0 +1,105 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameEngineTest {
+
+    @Test
+    public void testPlayerFinishesPassageHeadless() {
+        int[] finished = new int[2];
+        GameEngine engine = new GameEngine(new WordGenerator(), new GameEngine.Listener() {
+            @Override
+            public void passageFinished(int side, int finishedCount) {
+                finished[side] = finishedCount;
+            }
+        });
+        engine.useSharedPassage("ab cd");
+        engine.startRound();
+
+        engine.playerInput("ab", 0);
+        engine.playerInput("abx", 2);
+        assertEquals(1, engine.getScores().getPlayerErrors());
+
+        // fix the mistake with a backspace, then finish
+        engine.playerInput("ab", 2);
+        engine.playerInput("ab cd", 2);
+
+        assertEquals(1, finished[GameEngine.PLAYER]);
+        assertEquals(5, engine.getScores().getPlayerScore());
+        assertNotEquals(0, engine.getPlayerPassage().length());
+        assertEquals(0, engine.getPlayerModel().getTypedLength());
+    }
+
+    @Test
+    public void testCoalescedOpponentKeystrokesSkipHiddenCells() {
+        GameEngine engine = new GameEngine(new WordGenerator(), null);
+        engine.setMode(3);
+        engine.useSharedPassage("ab cd ef");
+        engine.startRound();
+
+        // first word (and its space) hidden, then four keystrokes arrive in one update with one mistake, on "c"
+        engine.fadeNextWords();
+        engine.opponentMissed(3);
+        engine.opponentTyped(4, 1, true);
+
+        // only "c" landed on a visible cell and one keystroke was wrong
+        assertEquals(0, engine.getScores().getComputerScore());
+        engine.opponentTyped(5, 1, true);
+        assertEquals(1, engine.getScores().getComputerScore());
+
+        assertTrue(engine.opponentFinished());
+        assertEquals(1, engine.getOpponentFinishedCount());
+        assertEquals(0, engine.getOpponentPosition());
+
+        engine.stop();
+        assertFalse(engine.opponentFinished());
+    }
+
+    @Test
+    public void testCoalescedOpponentAwardMatchesPerKeystroke() {
+        // "ab cd ef gh" with the first two words faded; mistakes on hidden "b" and "d" and on visible "h"
+        String passage = "ab cd ef gh";
+        boolean[] wrong = new boolean[passage.length()];
+        wrong[1] = true;
+        wrong[4] = true;
+        wrong[10] = true;
+
+        GameEngine perKeystroke = fadedOpponent(passage);
+        int errors = 0;
+        for (int i = 0; i < passage.length(); i++) {
+            if (wrong[i]) errors++;
+            perKeystroke.opponentTyped(i + 1, errors, !wrong[i]);
+        }
+
+        // Same keystrokes in bursts of four, mistakes before the last one of a burst reported as misses;
+        // the burst "d ef" mixes a hidden mistake with visible hits
+        GameEngine coalesced = fadedOpponent(passage);
+        errors = 0;
+        for (int i = 0; i < passage.length(); i++) {
+            if (wrong[i]) errors++;
+            boolean last = i % 4 == 3 || i == passage.length() - 1;
+            if (!last) {
+                if (wrong[i]) coalesced.opponentMissed(i);
+                continue;
+            }
+            coalesced.opponentTyped(i + 1, errors, !wrong[i]);
+        }
+
+        // Visible cells "ef gh" minus the mistake on "h"
+        assertEquals(4, perKeystroke.getScores().getComputerScore());
+        assertEquals(perKeystroke.getScores().getComputerScore(), coalesced.getScores().getComputerScore());
+        assertEquals(3, coalesced.getScores().getComputerErrors());
+    }
+
+    private static GameEngine fadedOpponent(String passage) {
+        GameEngine engine = new GameEngine(new WordGenerator(), null);
+        engine.setMode(3);
+        engine.useSharedPassage(passage);
+        engine.startRound();
+        engine.fadeNextWords();
+        engine.fadeNextWords();
+        return engine;
+    }
+}
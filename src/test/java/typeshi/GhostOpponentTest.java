@@ -0,0 +1,82 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GhostOpponentTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testRecordedRunReplaysAtOriginalCadence() throws IOException {
+        GameEngine engine = new GameEngine(new WordGenerator(), null);
+        engine.useSharedPassage("ab c");
+        engine.startRound();
+        long start = 1_000 * MS;
+
+        // a, then a mistake fixed with a backspace, then the rest; finishing moves on to a new passage
+        engine.playerInput("a", 0, start + 100 * MS);
+        engine.playerInput("ax", 1, start + 300 * MS);
+        engine.playerInput("a", 1, start + 450 * MS);
+        engine.playerInput("ab", 1, start + 500 * MS);
+        engine.playerInput("ab ", 2, start + 650 * MS);
+        engine.playerInput("ab c", 3, start + 800 * MS);
+        assertEquals(1, engine.getPlayerFinishedCount());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GhostRecording.write(bytes, engine.getJournal(), 0, start, 1, List.of("ab c"));
+
+        List<long[]> updates = new ArrayList<>();
+        int[] finished = new int[1];
+        VirtualGameScheduler scheduler = new VirtualGameScheduler();
+        GhostOpponent ghost = new GhostOpponent(new ByteArrayInputStream(bytes.toByteArray()),
+                new ComputerOpponent.Listener() {
+                    @Override
+                    public void updateComputerTyping(int position, int errors, boolean lastWasCorrect) {
+                        updates.add(new long[] {scheduler.nanoTime() / MS, position, errors});
+                    }
+
+                    @Override
+                    public void onComputerFinished() {
+                        finished[0]++;
+                    }
+                }, scheduler::nanoTime);
+        assertEquals(List.of("ab c"), ghost.getPassages());
+
+        OpponentDriver driver = OpponentDriver.eventDriven(scheduler, null);
+        driver.drive(ghost);
+        scheduler.advanceBy(5, TimeUnit.SECONDS);
+
+        long[][] expected = {
+                {100, 1, 0}, {300, 2, 1}, {450, 1, 1}, {500, 2, 1}, {650, 3, 1}, {800, 4, 1}
+        };
+        assertEquals(expected.length, updates.size());
+        for (int i = 0; i < expected.length; i++) assertArrayEquals(expected[i], updates.get(i), "update " + i);
+        assertEquals(1, finished[0]);
+        assertFalse(ghost.isRunning(), "Ghost stops at the end of the recording");
+        driver.stop();
+    }
+
+    @Test
+    public void testMissingOrDamagedRecordingIsNotReadable(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("ghost-1.tsgr");
+        assertFalse(GhostRecording.isReadable(file));
+
+        GhostRecording.write(file, new GameEngine(new WordGenerator(), null).getJournal(), 0, 0, 1, List.of("ab c"));
+        assertTrue(GhostRecording.isReadable(file));
+
+        Files.write(file, new byte[] {1, 2, 3});
+        assertFalse(GhostRecording.isReadable(file));
+    }
+}
@@ -0,0 +1,38 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeystrokeJournalTest {
+
+    @Test
+    public void testCursorReadsRetainedEntriesAfterWrap() {
+        KeystrokeJournal journal = new KeystrokeJournal(4);
+        for (int i = 0; i < 6; i++) {
+            journal.record(i * 1000L, 'a' + i, 'a', i == 0 ? KeystrokeJournal.CORRECT : KeystrokeJournal.ERROR);
+        }
+
+        assertEquals(6, journal.size());
+        assertEquals(4, journal.retained());
+        assertEquals(2, journal.oldestSequence());
+
+        KeystrokeJournal.Cursor cursor = journal.cursor();
+        int read = 0;
+        while (cursor.next()) {
+            assertEquals(2 + read, cursor.sequence());
+            assertEquals('c' + read, cursor.codepoint());
+            assertEquals((2 + read) * 1000L, cursor.time());
+            read++;
+        }
+        assertEquals(4, read);
+
+        // the same cursor picks up new entries after a seek
+        journal.record(9000L, KeystrokeJournal.BACKSPACE_CODEPOINT, 'x', KeystrokeJournal.BACKSPACE);
+        cursor.seek(6);
+        assertTrue(cursor.next());
+        assertEquals(KeystrokeJournal.BACKSPACE, cursor.flag());
+        assertEquals('x', cursor.expected());
+        assertFalse(cursor.next());
+    }
+}
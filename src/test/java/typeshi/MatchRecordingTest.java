@@ -0,0 +1,81 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchRecordingTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testSeedAndInputLogReplayTheRoundIdentically() throws IOException {
+        long seed = 0x5EEDL;
+        long[] now = {0};
+
+        // Played round: seeded passages, every input recorded
+        GameEngine live = new GameEngine(new WordGenerator(), null);
+        live.setSeed(seed);
+        live.setMode(1);
+        live.resetPassages();
+        live.startRound();
+        MatchRecording.Recorder recorder = new MatchRecording.Recorder(seed, 1, 1, 5, 30, 0, () -> now[0]);
+        live.setRecorder(recorder);
+
+        // The first passage with one mistake fixed on the way, then the start of the next one
+        String passage = live.getPlayerPassage();
+        StringBuilder typed = new StringBuilder();
+        for (int i = 0; i < passage.length(); i++) {
+            now[0] += 150 * MS;
+            if (i == 3) {
+                typed.append('#');
+                live.playerInput(typed, i, now[0]);
+                now[0] += 150 * MS;
+                typed.setLength(i);
+                live.playerInput(typed, i, now[0]);
+                now[0] += 150 * MS;
+            }
+            typed.append(passage.charAt(i));
+            live.playerInput(typed, i, now[0]);
+        }
+        assertEquals(1, live.getPlayerFinishedCount());
+        // The view clears the finished passage's input, as GameController does
+        typed.setLength(0);
+        live.playerInput(typed, 0, now[0]);
+        live.releaseInput();
+        String second = live.getPlayerPassage();
+        for (int i = 0; i < 5; i++) {
+            now[0] += 150 * MS;
+            typed.append(second.charAt(i));
+            live.playerInput(typed, i, now[0]);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        recorder.finish().write(bytes);
+        MatchRecording recording = MatchRecording.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(seed, recording.getSeed());
+        assertEquals(30, recording.getDurationSeconds());
+
+        HeadlessMatch first = HeadlessMatch.forRecording(recording);
+        ScoreManager a = first.run(recording.getDurationSeconds());
+        HeadlessMatch again = HeadlessMatch.forRecording(recording);
+        ScoreManager b = again.run(recording.getDurationSeconds());
+
+        // Same passages and player scoring as the played round
+        assertEquals(live.getPlayerPassages(), first.getEngine().getPlayerPassages());
+        assertEquals(live.getScores().getPlayerScore(), a.getPlayerScore());
+        assertEquals(live.getScores().getPlayerErrors(), a.getPlayerErrors());
+
+        // And every replay is the same match, AI included
+        assertEquals(a.getPlayerScore(), b.getPlayerScore());
+        assertEquals(a.getComputerScore(), b.getComputerScore());
+        assertEquals(a.getComputerErrors(), b.getComputerErrors());
+        assertTrue(a.getComputerScore() > 0);
+        assertEquals(first.getEngine().getOpponentFinishedCount(), again.getEngine().getOpponentFinishedCount());
+    }
+}
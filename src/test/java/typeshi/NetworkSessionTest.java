@@ -0,0 +1,51 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NetworkSessionTest {
+
+    @Test
+    public void testCloseCancelsBlockedAndPendingTasks() throws IOException, InterruptedException {
+        NetworkSession session = new NetworkSession("test");
+        AtomicReference<Thread> hostThread = new AtomicReference<>();
+        AtomicBoolean acceptEnded = new AtomicBoolean(false);
+        AtomicBoolean delayedRan = new AtomicBoolean(false);
+        CountDownLatch waiting = new CountDownLatch(1);
+
+        // A host still waiting for its opponent, and a results delay that has not fired yet
+        try (ServerSocket listener = new ServerSocket(0)) {
+            session.start(() -> {
+                hostThread.set(Thread.currentThread());
+                waiting.countDown();
+                try {
+                    listener.accept();
+                } catch (IOException e) {
+                    acceptEnded.set(true);
+                }
+            });
+            session.schedule(() -> delayedRan.set(true), 10, TimeUnit.SECONDS);
+            assertTrue(waiting.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50);
+
+            session.close();
+            assertTrue(session.awaitTermination(5, TimeUnit.SECONDS));
+            assertTrue(acceptEnded.get());
+            assertFalse(delayedRan.get());
+            assertTrue(hostThread.get().isVirtual());
+            assertTrue(hostThread.get().getName().startsWith("typeshi-test-"));
+        }
+
+        // Nothing starts after the session ended
+        assertNull(session.start(() -> delayedRan.set(true)));
+        assertFalse(delayedRan.get());
+    }
+}
@@ -0,0 +1,108 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProgressChannelTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void testLossAndReorderNeverMoveTheCaretBack() throws IOException, InterruptedException {
+        ExecutorGameScheduler link = new ExecutorGameScheduler(1);
+        // 20% loss, 0..30 ms of jitter with updates 2 ms apart: many datagrams overtake each other
+        ProgressChannel.LossyLink lossy = new ProgressChannel.LossyLink(0.2, 0, 30 * MS, new SplittableRandom(125));
+        try (ProgressChannel sender = new ProgressChannel(lossy, link);
+             ProgressChannel receiver = new ProgressChannel()) {
+            connect(sender, receiver);
+            List<Integer> positions = new CopyOnWriteArrayList<>();
+            Thread receiving = receive(receiver, positions);
+
+            for (int position = 1; position <= 100; position++) {
+                sender.send(WireProtocol.PROGRESS, position, 0);
+                Thread.sleep(2);
+            }
+            // The idle refresh repeats the last position until it gets through
+            for (int i = 0; i < 10; i++) {
+                Thread.sleep(40);
+                sender.send(WireProtocol.PROGRESS, 100, 0);
+            }
+            awaitLast(positions, 100);
+
+            for (int i = 1; i < positions.size(); i++) {
+                assertTrue(positions.get(i) >= positions.get(i - 1), "went back at " + i + ": " + positions);
+            }
+            assertTrue(receiver.getDropped() > 0, "jitter should have reordered some datagrams");
+            assertTrue(receiver.getApplied() < sender.getSent());
+            receiver.close();
+            receiving.join(1000);
+        } finally {
+            link.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testUpdatesFromAFinishedPassageAreDropped() throws IOException, InterruptedException {
+        ExecutorGameScheduler link = new ExecutorGameScheduler(1);
+        // Every datagram takes 50 ms, longer than FINISHED over the (simulated) reliable connection
+        try (ProgressChannel sender = new ProgressChannel(() -> 50 * MS, link);
+             ProgressChannel receiver = new ProgressChannel()) {
+            connect(sender, receiver);
+            List<Integer> positions = new CopyOnWriteArrayList<>();
+            receive(receiver, positions);
+
+            sender.send(WireProtocol.PROGRESS, 42, 1);
+            sender.nextSendEpoch();
+            receiver.nextReceiveEpoch();
+            sender.send(WireProtocol.PROGRESS, 3, 1);
+            awaitLast(positions, 3);
+
+            assertEquals(List.of(3), positions);
+            assertEquals(1, receiver.getDropped());
+        } finally {
+            link.shutdownNow();
+        }
+    }
+
+    static void connect(ProgressChannel a, ProgressChannel b) throws IOException {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        a.connect(new InetSocketAddress(loopback, b.getLocalPort()));
+        b.connect(new InetSocketAddress(loopback, a.getLocalPort()));
+    }
+
+    static Thread receive(ProgressChannel channel, List<Integer> positions) {
+        Thread thread = new Thread(() -> {
+            try {
+                channel.receive(new NetworkOpponent.MessageHandler() {
+                    @Override public void onPause() {}
+                    @Override public void onResume() {}
+                    @Override public void onDisconnect() {}
+                    @Override public void onFinished() {}
+                    @Override public void onProgress(int position, int errors) { positions.add(position); }
+                    @Override public void onFinalScore(int score, int errors) {}
+                });
+            } catch (IOException ignored) {}
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    static void awaitLast(List<Integer> positions, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (!positions.isEmpty() && positions.get(positions.size() - 1) == expected) return;
+            Thread.sleep(5);
+        }
+        fail("last position never arrived: " + positions);
+    }
+}
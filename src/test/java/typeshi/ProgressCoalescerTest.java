@@ -0,0 +1,95 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProgressCoalescerTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void testProgressIsBoundedAndControlKeepsOrder() throws IOException {
+        try (ServerSocket listener = new ServerSocket(0);
+             WireConnection sender = new WireConnection(new Socket("localhost", listener.getLocalPort()));
+             WireConnection receiver = new WireConnection(listener.accept())) {
+            ProgressCoalescer outbound = new ProgressCoalescer(sender, 25 * MS);
+
+            // 200 keystrokes at 1 ms apart (far beyond human speed), frames every 16 ms
+            long now = 0;
+            for (int position = 1; position <= 200; position++) {
+                now += MS;
+                outbound.progress(WireProtocol.PROGRESS, position, position / 50, now);
+                if (position % 16 == 0) outbound.flushIfDue(now);
+            }
+            long frames = outbound.getProgressFrames();
+            assertTrue(frames <= 200 / 25 + 1, "progress frames: " + frames);
+
+            // Finishing before the window ends: the last position still arrives first, in the same write
+            long writes = outbound.getWrites();
+            outbound.control(WireProtocol.FINISHED);
+            assertEquals(writes + 1, outbound.getWrites());
+            assertEquals(frames + 1, outbound.getProgressFrames());
+
+            int last = 0;
+            for (long i = 0; i < frames + 1; i++) {
+                WireProtocol.Decoder frame = receiver.receive();
+                assertEquals(WireProtocol.PROGRESS, frame.opcode());
+                assertTrue(frame.first() > last);
+                last = frame.first();
+            }
+            assertEquals(200, last);
+            assertEquals(WireProtocol.FINISHED, receiver.receive().opcode());
+
+            // After a quiet window the next update goes out at once
+            now += 100 * MS;
+            outbound.progress(WireProtocol.ABS, 150, 4, now);
+            outbound.control(WireProtocol.FINAL_SCORE, 90, 4);
+            WireProtocol.Decoder frame = receiver.receive();
+            assertEquals(WireProtocol.ABS, frame.opcode());
+            assertEquals(150, frame.first());
+            frame = receiver.receive();
+            assertEquals(WireProtocol.FINAL_SCORE, frame.opcode());
+            assertEquals(90, frame.first());
+        }
+    }
+
+    @Test
+    public void testRefreshAfterPauseRepeatsTheLatestPosition() throws IOException, InterruptedException {
+        try (ServerSocket listener = new ServerSocket(0);
+             WireConnection sender = new WireConnection(new Socket("localhost", listener.getLocalPort()));
+             WireConnection receiver = new WireConnection(listener.accept());
+             ProgressChannel udpOut = new ProgressChannel();
+             ProgressChannel udpIn = new ProgressChannel()) {
+            ProgressChannelTest.connect(udpOut, udpIn);
+            List<Integer> positions = new CopyOnWriteArrayList<>();
+            ProgressChannelTest.receive(udpIn, positions);
+            ProgressCoalescer outbound = new ProgressCoalescer(sender, 25 * MS, udpOut);
+
+            // A keystroke, another within the window, then pause: the second goes out in front of PAUSE
+            outbound.progress(WireProtocol.PROGRESS, 5, 0, 0);
+            outbound.progress(WireProtocol.PROGRESS, 6, 0, MS);
+            outbound.control(WireProtocol.PAUSE);
+            WireProtocol.Decoder frame = receiver.receive();
+            assertEquals(WireProtocol.PROGRESS, frame.opcode());
+            assertEquals(6, frame.first());
+            assertEquals(WireProtocol.PAUSE, receiver.receive().opcode());
+
+            // Idle while paused: the refresh must not bring back 5
+            outbound.flushIfDue(MS + ProgressCoalescer.REFRESH_NANOS);
+            outbound.flushIfDue(MS + 2 * ProgressCoalescer.REFRESH_NANOS);
+            ProgressChannelTest.awaitLast(positions, 6);
+            Thread.sleep(50);
+            List<Integer> seen = List.copyOf(positions);
+            for (int i = seen.indexOf(6); i < seen.size(); i++) {
+                assertEquals(6, seen.get(i), "went back at " + i + ": " + seen);
+            }
+        }
+    }
+}
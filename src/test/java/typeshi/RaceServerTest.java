@@ -0,0 +1,168 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RaceServerTest {
+
+    @Test
+    public void testPairsPlayersAndRelaysOnlyWithinRooms() throws IOException, InterruptedException {
+        try (RaceServer server = new RaceServer(0, 45, 1, 7, 2)) {
+            // Four players, one pair at a time, make two rooms; the second pair lands on the other loop
+            MultiplayerClient[] players = new MultiplayerClient[4];
+            String[] passages = new String[4];
+            for (int pair = 0; pair < 2; pair++) {
+                for (int i = 2 * pair; i < 2 * pair + 2; i++) {
+                    players[i] = new MultiplayerClient("localhost", server.getPort());
+                    players[i].sendHello(null, 0);
+                }
+                for (int i = 2 * pair; i < 2 * pair + 2; i++) {
+                    passages[i] = receiveOpening(players[i], 45, 7, 1);
+                }
+            }
+            assertEquals(passages[0], passages[1]);
+            assertEquals(passages[2], passages[3]);
+            assertEquals(2, server.roomCount());
+
+            // The hosting player's messages go through unchanged, to the room mate only
+            players[0].send(WireProtocol.PROGRESS, 12, 1);
+            players[2].send(WireProtocol.ABS, 300, 0);
+            assertFrame(players[1].receive(), WireProtocol.PROGRESS, 12, 1);
+            assertFrame(players[3].receive(), WireProtocol.ABS, 300, 0);
+            players[1].send(WireProtocol.FINAL_SCORE, 40, 2);
+            assertFrame(players[0].receive(), WireProtocol.FINAL_SCORE, 40, 2);
+
+            // Leaving ends the room for the other player
+            players[2].close();
+            assertEquals(WireProtocol.DISCONNECT, players[3].receive().opcode());
+            for (int i = 0; i < 100 && server.roomCount() > 1; i++) Thread.sleep(10);
+            assertEquals(1, server.roomCount());
+
+            players[0].send(WireProtocol.DISCONNECT);
+            assertEquals(WireProtocol.DISCONNECT, players[1].receive().opcode());
+            players[0].close();
+            players[1].close();
+            players[3].close();
+        }
+    }
+
+    @Test
+    public void testNamedRoomWaitsForItsOwnPlayers() throws IOException {
+        try (RaceServer server = new RaceServer(0, 60, 2, 5, 1)) {
+            MultiplayerClient first = new MultiplayerClient("localhost", server.getPort());
+            MultiplayerClient stranger = new MultiplayerClient("localhost", server.getPort());
+            MultiplayerClient second = new MultiplayerClient("localhost", server.getPort());
+            first.sendHello("finals", 0);
+            stranger.sendHello(null, 0);
+            second.sendHello("finals", 0);
+
+            assertEquals(receiveOpening(first, 60, 5, 2), receiveOpening(second, 60, 5, 2));
+
+            first.send(WireProtocol.FINISHED);
+            assertEquals(WireProtocol.FINISHED, second.receive().opcode());
+
+            first.close();
+            stranger.close();
+            second.close();
+        }
+    }
+
+    @Test
+    public void testStalledReaderIsDroppedInsteadOfBuffered() throws IOException, InterruptedException {
+        try (RaceServer server = new RaceServer(0, 60, 2, 5, 1)) {
+            MultiplayerClient flooder = new MultiplayerClient("localhost", server.getPort());
+            MultiplayerClient stalled = new MultiplayerClient("localhost", server.getPort());
+            flooder.sendHello(null, 0);
+            stalled.sendHello(null, 0);
+            receiveOpening(flooder, 60, 5, 2);
+
+            // The stalled player never reads; once the socket buffers are full, relayed frames would pile up
+            // on the server, so it has to let go of that connection
+            String big = "x".repeat(WireProtocol.MAX_FRAME / 2);
+            long written = 0;
+            while (server.connectionCount() > 1 && written < 1L << 30) {
+                flooder.sendText(big);
+                written += big.length();
+            }
+            assertEquals(1, server.connectionCount());
+            assertEquals(WireProtocol.DISCONNECT, flooder.receive().opcode());
+            for (int i = 0; i < 100 && server.roomCount() > 0; i++) Thread.sleep(10);
+            assertEquals(0, server.roomCount());
+
+            flooder.close();
+            stalled.close();
+        }
+    }
+
+    @Test
+    public void testMainKeepsServingUntilInterrupted() throws Exception {
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        Thread main = new Thread(() -> {
+            try {
+                RaceServer.main(new String[] {String.valueOf(port), "30", "1", "3"});
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        main.start();
+
+        MultiplayerClient first = connect(port);
+        MultiplayerClient second = connect(port);
+        first.sendHello(null, 0);
+        second.sendHello(null, 0);
+        assertEquals(receiveOpening(first, 30, 3, 1), receiveOpening(second, 30, 3, 1));
+        assertTrue(main.isAlive());
+
+        main.interrupt();
+        main.join(5_000);
+        assertFalse(main.isAlive());
+        first.close();
+        second.close();
+    }
+
+    // The server in main() binds on its own thread; retry until it listens
+    private static MultiplayerClient connect(int port) throws IOException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return new MultiplayerClient("localhost", port);
+            } catch (ConnectException e) {
+                if (attempt >= 100) throw e;
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    // HELLO, TEXT, CFG and START as a hosting player sends them; returns the passage
+    private static String receiveOpening(MultiplayerClient player, int seconds, int difficulty, int mode)
+            throws IOException {
+        WireProtocol.Decoder frame = player.receive();
+        assertEquals(WireProtocol.HELLO, frame.opcode());
+        player.checkHello(frame);
+        frame = player.receive();
+        assertEquals(WireProtocol.TEXT, frame.opcode());
+        String passage = frame.text();
+        assertFalse(passage.isEmpty());
+        frame = player.receive();
+        assertEquals(WireProtocol.CFG, frame.opcode());
+        assertEquals(seconds, frame.first());
+        assertEquals(difficulty, frame.second());
+        assertEquals(mode, frame.third());
+        assertEquals(WireProtocol.START, player.receive().opcode());
+        return passage;
+    }
+
+    private static void assertFrame(WireProtocol.Decoder frame, byte opcode, int first, int second) {
+        assertEquals(opcode, frame.opcode());
+        assertEquals(first, frame.first());
+        assertEquals(second, frame.second());
+    }
+}
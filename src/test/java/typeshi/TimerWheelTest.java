@@ -0,0 +1,77 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimerWheelTest {
+
+    private static final long TICK = 10;
+
+    @Test
+    public void testFiresAfterSeveralRounds() {
+        List<Integer> fired = new ArrayList<>();
+        TimerWheel wheel = new TimerWheel(8, TICK, (channel, kind, arg) -> fired.add(arg));
+
+        // 8 slots of 10ns: 250ns is three turns and a bit
+        wheel.schedule(0, 250, 0, 0, 1);
+        wheel.schedule(0, 30, 0, 0, 2);
+        wheel.advance(240);
+        assertEquals(List.of(2), fired);
+        wheel.advance(250);
+        assertEquals(List.of(2, 1), fired);
+        assertEquals(0, wheel.pendingCount());
+
+        // A stall longer than the wheel fires it too
+        wheel.schedule(250, 500, 0, 0, 3);
+        wheel.advance(10_000);
+        assertEquals(List.of(2, 1, 3), fired);
+    }
+
+    @Test
+    public void testCancelledChannelNeverFires() {
+        List<Integer> fired = new ArrayList<>();
+        TimerWheel wheel = new TimerWheel(8, TICK, (channel, kind, arg) -> fired.add(channel));
+
+        wheel.schedule(0, 50, 0, 0, 0);
+        wheel.schedule(0, 50, 1, 0, 0);
+        wheel.cancelChannel(1);
+        // Scheduled after the cancel, so still due
+        wheel.schedule(0, 50, 1, 0, 0);
+        wheel.advance(100);
+
+        assertEquals(List.of(0, 1), fired.stream().sorted().toList());
+        assertEquals(0, wheel.pendingCount());
+    }
+
+    @Test
+    public void testHandlerMayRescheduleIntoTheExpiringSlot() {
+        long[] now = {0};
+        List<Long> fired = new ArrayList<>();
+        TimerWheel[] wheel = new TimerWheel[1];
+        wheel[0] = new TimerWheel(8, TICK, (channel, kind, arg) -> {
+            fired.add(now[0]);
+            // One full turn: lands in the slot being expired right now
+            if (kind == 1) wheel[0].schedule(now[0], 8 * TICK, 0, 0, arg);
+        });
+
+        // Two entries in one slot, the one that reschedules first
+        wheel[0].schedule(0, 20, 0, 0, 0);
+        wheel[0].schedule(0, 20, 0, 1, 0);
+        now[0] = 20;
+        wheel[0].advance(now[0]);
+        assertEquals(2, fired.size());
+        assertEquals(1, wheel[0].pendingCount());
+
+        now[0] = 90;
+        wheel[0].advance(now[0]);
+        assertEquals(2, fired.size());
+        now[0] = 100;
+        wheel[0].advance(now[0]);
+        assertEquals(List.of(20L, 20L, 100L), fired);
+        assertEquals(0, wheel[0].pendingCount());
+    }
+}
@@ -0,0 +1,43 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TournamentTest {
+
+    private static final List<Tournament.Entry> ENTRIES = List.of(
+            new Tournament.Entry("fast", ComputerOpponentConfig.fromLegacyDifficulty(10)),
+            new Tournament.Entry("medium", ComputerOpponentConfig.fromLegacyDifficulty(5)),
+            new Tournament.Entry("slow", ComputerOpponentConfig.fromLegacyDifficulty(1)));
+
+    @Test
+    public void testRoundRobinIsReproducibleAndRanksByStrength() {
+        Tournament.Standings standings = Tournament.roundRobin(ENTRIES, 20, 2, 20, 42L);
+        Tournament.Standings again = Tournament.roundRobin(ENTRIES, 20, 2, 20, 42L);
+
+        assertEquals(60, standings.getGames());
+        assertEquals(List.of(0, 1, 2), standings.ranking());
+        for (int i = 0; i < ENTRIES.size(); i++) {
+            assertEquals(40, standings.getWins(i) + standings.getDraws(i) + standings.getLosses(i));
+            assertEquals(standings.getWins(i), again.getWins(i));
+            assertEquals(standings.getPoints(i), again.getPoints(i));
+            assertEquals(standings.getRating(i), again.getRating(i));
+        }
+        assertTrue(standings.getRating(0) > Tournament.INITIAL_RATING);
+        assertTrue(standings.getRating(2) < Tournament.INITIAL_RATING);
+        assertEquals(-1, standings.getChampion());
+    }
+
+    @Test
+    public void testBracketGivesTheTopSeedAByeAndCrownsAChampion() {
+        Tournament.Standings standings = Tournament.bracket(ENTRIES, 3, 1, 20, 7L);
+
+        // Three entries: the top seed waits out the semifinal, then plays the final
+        assertEquals(6, standings.getGames());
+        assertEquals(3, standings.getWins(0) + standings.getDraws(0) + standings.getLosses(0));
+        assertEquals(0, standings.getChampion());
+    }
+}
@@ -0,0 +1,60 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TypingModelTest {
+
+    @Test
+    public void testAppendOnlyTouchesNewCharacters() {
+        TypingModel model = new TypingModel("hello world");
+
+        assertEquals(0, model.update("he", 0, false));
+        model.changes().clear();
+
+        // one wrong key appended at index 2
+        assertEquals(1, model.update("hex", 2, false));
+        assertEquals(1, model.changes().size());
+        assertEquals(2, model.changes().start(0));
+        assertEquals(3, model.changes().end(0));
+        assertEquals(TypingModel.ERROR, model.state(2));
+        assertEquals(2, model.getCorrectCount());
+        assertEquals(2, model.getFirstDivergentIndex());
+    }
+
+    @Test
+    public void testErrorCountedOncePerCharacter() {
+        TypingModel model = new TypingModel("abc");
+
+        assertEquals(1, model.update("ax", 0, true));
+        assertEquals(TypingModel.PENDING_ERROR, model.state(1));
+
+        // the same wrong character re-evaluated is not charged again
+        assertEquals(0, model.update("ax", 0, true));
+        assertTrue(model.revealError(1));
+        assertEquals(TypingModel.ERROR, model.state(1));
+
+        // backspace clears it, a fix turns it green
+        model.update("a", 1, true);
+        assertEquals(TypingModel.UNTYPED, model.state(1));
+        assertFalse(model.revealError(1));
+        model.update("abc", 1, true);
+        assertTrue(model.isComplete());
+        assertEquals(3, model.getFirstDivergentIndex());
+    }
+
+    @Test
+    public void testHiddenCellsAreNotChargedOrReported() {
+        TypingModel model = new TypingModel("ab cd");
+        model.hideNextWord();
+        assertTrue(model.isHidden(0));
+        assertTrue(model.isHidden(2));
+        assertFalse(model.isHidden(3));
+        model.changes().clear();
+
+        assertEquals(0, model.update("x", 0, false));
+        assertTrue(model.changes().isEmpty());
+        assertEquals(0, model.getCorrectCount());
+    }
+}
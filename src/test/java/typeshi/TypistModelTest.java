@@ -0,0 +1,58 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TypistModelTest {
+
+    @Test
+    public void testAliasSamplesMatchBigramDistribution() {
+        ComputerOpponentConfig config = new ComputerOpponentConfig(200.0, 40.0, 0.05);
+        TypistModel model = TypistModel.forConfig(config);
+        SplittableRandom random = new SplittableRandom(125);
+
+        // em dash and semicolons are slower and sloppier than a common letter bigram
+        assertTrue(model.meanDelayNanos('s', '—') > 2 * model.meanDelayNanos('t', 'h'));
+        assertTrue(model.meanDelayNanos('x', ';') > model.meanDelayNanos('t', 'h'));
+        assertTrue(model.errorRate('s', '—') > model.errorRate('t', 'h'));
+
+        int n = 1_000_000;
+        double sum = 0;
+        int errors = 0;
+        for (int i = 0; i < n; i++) {
+            sum += model.sampleDelayNanos('t', 'h', random);
+            if (model.sampleError('t', 'h', random)) errors++;
+        }
+        assertEquals(model.meanDelayNanos('t', 'h'), sum / n, 0.005 * model.meanDelayNanos('t', 'h'));
+        assertEquals(model.errorRate('t', 'h'), (double) errors / n, 0.002);
+    }
+
+    @Test
+    public void testProfileRoundTripsThroughBinaryFormat() throws IOException {
+        TypistModel.Profile profile = TypistModel.Profile.defaults();
+        profile.set(TypistModel.classOf('q'), TypistModel.classOf('u'), 0.5, 2.0, 3.0);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        profile.write(bytes);
+        assertEquals(4 + 2 + TypistModel.BIGRAMS * 6, bytes.size());
+
+        TypistModel.Profile read = TypistModel.Profile.read(new ByteArrayInputStream(bytes.toByteArray()));
+        ComputerOpponentConfig config = ComputerOpponentConfig.fromLegacyDifficulty(5);
+        TypistModel expected = TypistModel.compile(profile, config);
+        TypistModel actual = TypistModel.compile(read, config);
+        for (char a : "qu th—;".toCharArray()) {
+            for (char b : "qu th—;".toCharArray()) {
+                assertEquals(expected.meanDelayNanos(a, b), actual.meanDelayNanos(a, b), 1000.0);
+                assertEquals(expected.errorRate(a, b), actual.errorRate(a, b), 1e-3);
+            }
+        }
+
+        assertThrows(IOException.class, () -> TypistModel.Profile.read(new ByteArrayInputStream(new byte[8])));
+    }
+}
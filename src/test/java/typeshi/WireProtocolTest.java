@@ -0,0 +1,60 @@
+package typeshi;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WireProtocolTest {
+
+    @Test
+    public void testFramesRoundTripAcrossPartialReads() throws ProtocolException {
+        ByteBuffer out = ByteBuffer.allocate(256);
+        WireProtocol.writeHello(out, "finals", WireProtocol.CAP_UDP_PROGRESS, 40000);
+        WireProtocol.writeText(out, "Practice — every day.");
+        WireProtocol.writeConfig(out, 60, 5, 3);
+        WireProtocol.write(out, WireProtocol.START);
+        WireProtocol.write(out, WireProtocol.PROGRESS, 1234, 17);
+        WireProtocol.write(out, WireProtocol.FINAL_SCORE, -3, 200_000);
+        byte[] bytes = Arrays.copyOf(out.array(), out.position());
+
+        // Fed one byte at a time, each frame comes out once it is complete
+        ByteBuffer in = ByteBuffer.allocate(bytes.length);
+        in.flip();
+        WireProtocol.Decoder decoder = new WireProtocol.Decoder();
+        StringBuilder decoded = new StringBuilder();
+        for (byte b : bytes) {
+            in.compact().put(b).flip();
+            while (decoder.next(in)) {
+                decoded.append(decoder.opcode()).append(':').append(decoder.first()).append(':')
+                        .append(decoder.second()).append(':').append(decoder.third()).append(':')
+                        .append(decoder.text()).append('|');
+            }
+        }
+        assertEquals("1:1:1:40000:finals|2:1:1:40000:Practice — every day.|3:60:5:3:null|4:60:5:3:null|"
+                + "5:1234:17:3:null|10:-3:200000:3:null|", decoded.toString());
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    public void testProgressFramesAreSmall() {
+        ByteBuffer out = ByteBuffer.allocate(16);
+        WireProtocol.write(out, WireProtocol.PROGRESS, 45, 2);
+        assertEquals(4, out.position());
+        out.clear();
+        WireProtocol.write(out, WireProtocol.ABS, 1234, 17);
+        assertEquals(5, out.position());
+    }
+
+    @Test
+    public void testRejectsOversizedFramesAndUnknownVersions() {
+        ByteBuffer in = ByteBuffer.wrap(new byte[]{(byte) 0xFF, (byte) 0xFF, 0x7F});
+        assertThrows(ProtocolException.class, () -> new WireProtocol.Decoder().next(in));
+        assertTrue(WireProtocol.supports(WireProtocol.VERSION));
+        assertFalse(WireProtocol.supports(WireProtocol.VERSION + 1));
+        assertFalse(WireProtocol.supports(0));
+    }
+}